@@ -25,6 +25,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.lang.invoke.MethodHandles;
 
 import org.apache.catalina.connector.Connector;
+import org.oransc.enrichment.clients.CachingDnsResolver;
+import org.oransc.enrichment.clients.CircuitBreakers;
+import org.oransc.enrichment.clients.RetryBudgets;
 import org.oransc.enrichment.configuration.ApplicationConfig;
 import org.oransc.enrichment.controllers.r1producer.ProducerCallbacks;
 import org.oransc.enrichment.repository.InfoJobs;
@@ -47,6 +50,9 @@ class BeanFactory {
     private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     private ProducerCallbacks producerCallbacks;
+    private CircuitBreakers circuitBreakers;
+    private RetryBudgets retryBudgets;
+    private CachingDnsResolver dnsResolver;
     private InfoTypes infoTypes;
     private InfoJobs infoJobs;
 
@@ -67,7 +73,7 @@ class BeanFactory {
     @Bean
     public InfoJobs infoJobs() {
         if (infoJobs == null) {
-            infoJobs = new InfoJobs(getApplicationConfig(), producerCallbacks());
+            infoJobs = new InfoJobs(getApplicationConfig(), producerCallbacks(), dnsResolver());
             try {
                 infoJobs.restoreJobsFromDatabase();
             } catch (Exception e) {
@@ -93,11 +99,36 @@ class BeanFactory {
     @Bean
     public ProducerCallbacks producerCallbacks() {
         if (this.producerCallbacks == null) {
-            producerCallbacks = new ProducerCallbacks(getApplicationConfig());
+            producerCallbacks =
+                new ProducerCallbacks(getApplicationConfig(), circuitBreakers(), retryBudgets(), dnsResolver());
         }
         return this.producerCallbacks;
     }
 
+    @Bean
+    public CircuitBreakers circuitBreakers() {
+        if (this.circuitBreakers == null) {
+            circuitBreakers = new CircuitBreakers(getApplicationConfig().getWebClientConfig().circuitBreakerConfig());
+        }
+        return this.circuitBreakers;
+    }
+
+    @Bean
+    public RetryBudgets retryBudgets() {
+        if (this.retryBudgets == null) {
+            retryBudgets = new RetryBudgets(getApplicationConfig().getWebClientConfig().retryBudgetConfig());
+        }
+        return this.retryBudgets;
+    }
+
+    @Bean
+    public CachingDnsResolver dnsResolver() {
+        if (this.dnsResolver == null) {
+            dnsResolver = new CachingDnsResolver(getApplicationConfig().getWebClientConfig().dnsConfig());
+        }
+        return this.dnsResolver;
+    }
+
     @Bean
     public ApplicationConfig getApplicationConfig() {
         return this.applicationConfig;
@@ -20,21 +20,29 @@
 
 package org.oransc.enrichment.clients;
 
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
 
 import java.lang.invoke.MethodHandles;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.oransc.enrichment.configuration.WebClientConfig.HttpProxyConfig;
+import org.oransc.enrichment.exceptions.ServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClient.RequestHeadersSpec;
@@ -42,6 +50,7 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 import reactor.netty.transport.ProxyProvider;
 
 /**
@@ -51,15 +60,50 @@ public class AsyncRestClient {
 
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
     private WebClient webClient = null;
+    private SslContext webClientSslContext = null;
     private final String baseUrl;
     private static final AtomicInteger sequenceNumber = new AtomicInteger();
-    private final SslContext sslContext;
+    private static final NettyDataBufferFactory bufferFactory =
+        new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+    private final SslContextProvider sslContextProvider;
     private final HttpProxyConfig httpProxyConfig;
+    private final ConnectionProvider connectionProvider;
+    private final CircuitBreakers circuitBreakers;
+    private final ConcurrencyLimiters concurrencyLimiters;
+    private final CallMetrics callMetrics;
+    private final CachingDnsResolver dnsResolver;
 
-    public AsyncRestClient(String baseUrl, @Nullable SslContext sslContext, @Nullable HttpProxyConfig httpProxyConfig) {
+    public AsyncRestClient(String baseUrl, @Nullable SslContextProvider sslContextProvider,
+        @Nullable HttpProxyConfig httpProxyConfig) {
+        this(baseUrl, sslContextProvider, httpProxyConfig, null, null, null, null, null);
+    }
+
+    /**
+     * @param sslContextProvider provides the SSL context, which may be replaced
+     *        at any time, or null if HTTPS is not used.
+     * @param connectionProvider the pool of connections to use, null means the
+     *        pool shared by all clients in the JVM.
+     * @param circuitBreakers the circuit breakers of the called destinations, or
+     *        null if calls are not guarded.
+     * @param concurrencyLimiters the limits of concurrent calls to the called
+     *        destinations, or null if the calls are not limited.
+     * @param callMetrics the metrics that the calls are recorded in, or null if
+     *        no metrics are recorded.
+     * @param dnsResolver the resolver of host names, or null if the default
+     *        resolver is used.
+     */
+    public AsyncRestClient(String baseUrl, @Nullable SslContextProvider sslContextProvider,
+        @Nullable HttpProxyConfig httpProxyConfig, @Nullable ConnectionProvider connectionProvider,
+        @Nullable CircuitBreakers circuitBreakers, @Nullable ConcurrencyLimiters concurrencyLimiters,
+        @Nullable CallMetrics callMetrics, @Nullable CachingDnsResolver dnsResolver) {
         this.baseUrl = baseUrl;
-        this.sslContext = sslContext;
+        this.sslContextProvider = sslContextProvider;
         this.httpProxyConfig = httpProxyConfig;
+        this.connectionProvider = connectionProvider;
+        this.circuitBreakers = circuitBreakers;
+        this.concurrencyLimiters = concurrencyLimiters;
+        this.callMetrics = callMetrics;
+        this.dnsResolver = dnsResolver;
     }
 
     public Mono<ResponseEntity<String>> postForEntity(String uri, @Nullable String body) {
@@ -73,7 +117,7 @@ public class AsyncRestClient {
                     .uri(uri) //
                     .contentType(MediaType.APPLICATION_JSON) //
                     .body(bodyProducer, String.class);
-                return retrieve(traceTag, request);
+                return retrieve(traceTag, uri, request);
             });
     }
 
@@ -82,6 +126,32 @@ public class AsyncRestClient {
             .flatMap(this::toBody);
     }
 
+    /**
+     * Posts an already encoded JSON body. The bytes are wrapped in the buffer that
+     * is written to the connection, without copying or encoding.
+     */
+    public Mono<ResponseEntity<String>> postForEntity(String uri, byte[] body) {
+        Object traceTag = createTraceTag();
+        logger.debug("{} POST uri = '{}{}''", traceTag, baseUrl, uri);
+        if (logger.isTraceEnabled()) {
+            logger.trace("{} POST body: {}", traceTag, new String(body, StandardCharsets.UTF_8));
+        }
+        Mono<DataBuffer> bodyProducer = Mono.fromSupplier(() -> bufferFactory.wrap(body));
+        return getWebClient() //
+            .flatMap(client -> {
+                RequestHeadersSpec<?> request = client.post() //
+                    .uri(uri) //
+                    .contentType(MediaType.APPLICATION_JSON) //
+                    .body(BodyInserters.fromDataBuffers(bodyProducer));
+                return retrieve(traceTag, uri, request);
+            });
+    }
+
+    public Mono<String> post(String uri, byte[] body) {
+        return postForEntity(uri, body) //
+            .flatMap(this::toBody);
+    }
+
     public Mono<String> postWithAuthHeader(String uri, String body, String username, String password) {
         Object traceTag = createTraceTag();
         logger.debug("{} POST (auth) uri = '{}{}''", traceTag, baseUrl, uri);
@@ -93,7 +163,7 @@ public class AsyncRestClient {
                     .headers(headers -> headers.setBasicAuth(username, password)) //
                     .contentType(MediaType.APPLICATION_JSON) //
                     .bodyValue(body);
-                return retrieve(traceTag, request) //
+                return retrieve(traceTag, uri, request) //
                     .flatMap(this::toBody);
             });
     }
@@ -108,7 +178,7 @@ public class AsyncRestClient {
                     .uri(uri) //
                     .contentType(MediaType.APPLICATION_JSON) //
                     .bodyValue(body);
-                return retrieve(traceTag, request);
+                return retrieve(traceTag, uri, request);
             });
     }
 
@@ -120,7 +190,7 @@ public class AsyncRestClient {
             .flatMap(client -> {
                 RequestHeadersSpec<?> request = client.put() //
                     .uri(uri);
-                return retrieve(traceTag, request);
+                return retrieve(traceTag, uri, request);
             });
     }
 
@@ -135,7 +205,7 @@ public class AsyncRestClient {
         return getWebClient() //
             .flatMap(client -> {
                 RequestHeadersSpec<?> request = client.get().uri(uri);
-                return retrieve(traceTag, request);
+                return retrieve(traceTag, uri, request);
             });
     }
 
@@ -150,7 +220,7 @@ public class AsyncRestClient {
         return getWebClient() //
             .flatMap(client -> {
                 RequestHeadersSpec<?> request = client.delete().uri(uri);
-                return retrieve(traceTag, request);
+                return retrieve(traceTag, uri, request);
             });
     }
 
@@ -159,12 +229,51 @@ public class AsyncRestClient {
             .flatMap(this::toBody);
     }
 
-    private Mono<ResponseEntity<String>> retrieve(Object traceTag, RequestHeadersSpec<?> request) {
+    private Mono<ResponseEntity<String>> retrieve(Object traceTag, String uri, RequestHeadersSpec<?> request) {
         final Class<String> clazz = String.class;
-        return request.retrieve() //
+        Mono<ResponseEntity<String>> exchange = request.retrieve() //
             .toEntity(clazz) //
             .doOnNext(entity -> logReceivedData(traceTag, entity)) //
             .doOnError(throwable -> onHttpError(traceTag, throwable));
+        Mono<ResponseEntity<String>> response =
+            this.callMetrics == null ? exchange : this.callMetrics.record(destinationOf(uri), exchange);
+        Mono<ResponseEntity<String>> guarded =
+            this.circuitBreakers == null ? response : withCircuitBreaker(uri, response);
+        return this.concurrencyLimiters == null ? guarded
+            : this.concurrencyLimiters.get(destinationOf(uri)).run(guarded);
+    }
+
+    private <T> Mono<T> withCircuitBreaker(String uri, Mono<T> call) {
+        return Mono.defer(() -> {
+            CircuitBreakers.CircuitBreaker breaker = this.circuitBreakers.get(destinationOf(uri));
+            try {
+                breaker.acquire();
+            } catch (ServiceException e) {
+                logger.debug("Call rejected, uri = '{}{}', reason: {}", baseUrl, uri, e.getMessage());
+                return Mono.error(e);
+            }
+            return call //
+                .doOnSuccess(response -> breaker.onSuccess()) //
+                .doOnError(breaker::onError) //
+                .doOnCancel(breaker::onCancel);
+        });
+    }
+
+    private String destinationOf(String uri) {
+        return destinationOf(baseUrl, uri);
+    }
+
+    /**
+     * @return the host and port that a request is sent to, used as key of the
+     *         state kept for each destination.
+     */
+    static String destinationOf(String baseUrl, String uri) {
+        try {
+            URI url = new URI(baseUrl + uri);
+            return url.getHost() == null ? baseUrl : url.getHost() + ":" + url.getPort();
+        } catch (URISyntaxException e) {
+            return baseUrl + uri;
+        }
     }
 
     private void logReceivedData(Object traceTag, ResponseEntity<String> entity) {
@@ -198,16 +307,24 @@ public class AsyncRestClient {
             && !httpProxyConfig.httpProxyHost().isEmpty();
     }
 
-    private HttpClient buildHttpClient() {
-        HttpClient httpClient = HttpClient.create() //
+    private HttpClient buildHttpClient(@Nullable SslContext sslContext) {
+        HttpClient httpClient =
+            connectionProvider != null ? HttpClient.create(connectionProvider) : HttpClient.create();
+        httpClient = httpClient //
             .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000) //
             .doOnConnected(connection -> {
                 connection.addHandlerLast(new ReadTimeoutHandler(30));
                 connection.addHandlerLast(new WriteTimeoutHandler(30));
             });
 
-        if (this.sslContext != null) {
-            httpClient = httpClient.secure(ssl -> ssl.sslContext(sslContext));
+        if (sslContext != null) {
+            httpClient = httpClient.secure(ssl -> ssl.sslContext(sslContext)) //
+                .doOnChannelInit((observer, channel, address) -> sslContextProvider
+                    .addHandshakeRecorder(channel.pipeline()));
+        }
+
+        if (this.dnsResolver != null) {
+            httpClient = httpClient.resolver(this.dnsResolver.getAddressResolverGroup());
         }
 
         if (isHttpProxyConfigured()) {
@@ -217,8 +334,8 @@ public class AsyncRestClient {
         return httpClient;
     }
 
-    private WebClient buildWebClient(String baseUrl) {
-        final HttpClient httpClient = buildHttpClient();
+    private WebClient buildWebClient(String baseUrl, @Nullable SslContext sslContext) {
+        final HttpClient httpClient = buildHttpClient(sslContext);
         ExchangeStrategies exchangeStrategies = ExchangeStrategies.builder() //
             .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(-1)) //
             .build();
@@ -230,10 +347,20 @@ public class AsyncRestClient {
     }
 
     private Mono<WebClient> getWebClient() {
-        if (this.webClient == null) {
-            this.webClient = buildWebClient(baseUrl);
+        return Mono.fromSupplier(this::currentWebClient);
+    }
+
+    /**
+     * @return the web client, rebuilt when the SSL context has been replaced.
+     *         Connections that are already established are not affected.
+     */
+    private synchronized WebClient currentWebClient() {
+        SslContext sslContext = this.sslContextProvider == null ? null : this.sslContextProvider.getSslContext();
+        if (this.webClient == null || sslContext != this.webClientSslContext) {
+            this.webClient = buildWebClient(baseUrl, sslContext);
+            this.webClientSslContext = sslContext;
         }
-        return Mono.just(buildWebClient(baseUrl));
+        return this.webClient;
     }
 
 }
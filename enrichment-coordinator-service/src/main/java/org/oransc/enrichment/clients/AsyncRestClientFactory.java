@@ -20,173 +20,109 @@
 
 package org.oransc.enrichment.clients;
 
-import io.netty.handler.ssl.SslContext;
-import io.netty.handler.ssl.SslContextBuilder;
-import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
-
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.Certificate;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
-
-import javax.net.ssl.KeyManagerFactory;
 
 import org.oransc.enrichment.configuration.WebClientConfig;
+import org.oransc.enrichment.configuration.WebClientConfig.ConnectionPoolConfig;
 import org.oransc.enrichment.configuration.WebClientConfig.HttpProxyConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.util.ResourceUtils;
+import org.springframework.lang.Nullable;
+import reactor.netty.resources.ConnectionProvider;
 
 /**
- * Factory for a generic reactive REST client.
+ * Factory for a generic reactive REST client. The clients created by a factory
+ * share one pool of connections and one (reloadable) SSL context.
  */
 public class AsyncRestClientFactory {
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final String DEFAULT_POOL_NAME = "ecs";
 
-    private final SslContextFactory sslContextFactory;
+    private final SslContextProvider sslContextProvider;
     private final HttpProxyConfig httpProxyConfig;
+    private final ConnectionProvider connectionProvider;
+    private final CircuitBreakers circuitBreakers;
+    private final ConcurrencyLimiters concurrencyLimiters;
+    private final CachingDnsResolver dnsResolver;
 
     public AsyncRestClientFactory(WebClientConfig clientConfig) {
+        this(clientConfig, DEFAULT_POOL_NAME, null, null, false);
+    }
+
+    /**
+     * The calls of the created clients are limited by adaptive concurrency limits
+     * for each destination, shared by the clients of the factory. The bulkheads
+     * of the circuit breakers are extended with the max limit of the factory.
+     *
+     * @param poolName the name of the connection pool, used as tag of the pool,
+     *        concurrency limit and TLS metrics
+     * @param circuitBreakers the circuit breakers guarding the calls of the
+     *        created clients, or null
+     * @param dnsResolver the resolver of host names shared by the created
+     *        clients, or null if the default resolver is used
+     */
+    public AsyncRestClientFactory(WebClientConfig clientConfig, String poolName,
+        @Nullable CircuitBreakers circuitBreakers, @Nullable CachingDnsResolver dnsResolver) {
+        this(clientConfig, poolName, circuitBreakers, dnsResolver, true);
+    }
+
+    private AsyncRestClientFactory(WebClientConfig clientConfig, String poolName,
+        @Nullable CircuitBreakers circuitBreakers, @Nullable CachingDnsResolver dnsResolver,
+        boolean isConcurrencyLimited) {
+        this.circuitBreakers = circuitBreakers;
+        this.dnsResolver = dnsResolver;
         if (clientConfig != null) {
-            this.sslContextFactory = new CachingSslContextFactory(clientConfig);
+            this.sslContextProvider = new SslContextProvider(clientConfig, poolName);
             this.httpProxyConfig = clientConfig.httpProxyConfig();
+            this.connectionProvider = createConnectionProvider(poolName, clientConfig.connectionPoolConfig());
+            this.concurrencyLimiters = isConcurrencyLimited
+                ? new ConcurrencyLimiters(poolName, clientConfig.concurrencyLimitConfig())
+                : null;
+            if (circuitBreakers != null && this.concurrencyLimiters != null) {
+                circuitBreakers.addConcurrencyLimit(clientConfig.concurrencyLimitConfig().maxLimit());
+            }
         } else {
             logger.warn("No configuration for web client defined, HTTPS will not work");
-            this.sslContextFactory = null;
+            this.sslContextProvider = null;
             this.httpProxyConfig = null;
+            this.connectionProvider = null;
+            this.concurrencyLimiters = null;
         }
     }
 
     public AsyncRestClient createRestClientNoHttpProxy(String baseUrl) {
-        return createRestClient(baseUrl, false);
+        return createRestClient(baseUrl, false, null);
     }
 
     public AsyncRestClient createRestClientUseHttpProxy(String baseUrl) {
-        return createRestClient(baseUrl, true);
+        return createRestClient(baseUrl, true, null);
     }
 
-    private AsyncRestClient createRestClient(String baseUrl, boolean useHttpProxy) {
-        if (this.sslContextFactory != null) {
-            try {
-                return new AsyncRestClient(baseUrl, this.sslContextFactory.createSslContext(),
-                    useHttpProxy ? httpProxyConfig : null);
-            } catch (Exception e) {
-                String exceptionString = e.toString();
-                logger.error("Could not init SSL context, reason: {}", exceptionString);
-            }
-        }
-        return new AsyncRestClient(baseUrl, null, httpProxyConfig);
+    /**
+     * @param callKind the kind of calls made by the client (for instance
+     *        "job_start"), the calls are recorded in metrics tagged with this
+     */
+    public AsyncRestClient createRestClientNoHttpProxy(String baseUrl, String callKind) {
+        return createRestClient(baseUrl, false, new CallMetrics(callKind));
     }
 
-    private class SslContextFactory {
-        private final WebClientConfig clientConfig;
-
-        public SslContextFactory(WebClientConfig clientConfig) {
-            this.clientConfig = clientConfig;
-        }
-
-        public SslContext createSslContext() throws UnrecoverableKeyException, NoSuchAlgorithmException,
-            CertificateException, KeyStoreException, IOException {
-            return this.createSslContext(createKeyManager());
-        }
-
-        private SslContext createSslContext(KeyManagerFactory keyManager)
-            throws NoSuchAlgorithmException, CertificateException, KeyStoreException, IOException {
-            if (this.clientConfig.isTrustStoreUsed()) {
-                return createSslContextRejectingUntrustedPeers(this.clientConfig.trustStore(),
-                    this.clientConfig.trustStorePassword(), keyManager);
-            } else {
-                // Trust anyone
-                return SslContextBuilder.forClient() //
-                    .keyManager(keyManager) //
-                    .trustManager(InsecureTrustManagerFactory.INSTANCE) //
-                    .build();
-            }
-        }
-
-        private SslContext createSslContextRejectingUntrustedPeers(String trustStorePath, String trustStorePass,
-            KeyManagerFactory keyManager)
-            throws NoSuchAlgorithmException, CertificateException, IOException, KeyStoreException {
-
-            final KeyStore trustStore = getTrustStore(trustStorePath, trustStorePass);
-            List<Certificate> certificateList = Collections.list(trustStore.aliases()).stream() //
-                .filter(alias -> isCertificateEntry(trustStore, alias)) //
-                .map(alias -> getCertificate(trustStore, alias)) //
-                .collect(Collectors.toList());
-            final X509Certificate[] certificates = certificateList.toArray(new X509Certificate[certificateList.size()]);
-
-            return SslContextBuilder.forClient() //
-                .keyManager(keyManager) //
-                .trustManager(certificates) //
-                .build();
-        }
-
-        private boolean isCertificateEntry(KeyStore trustStore, String alias) {
-            try {
-                return trustStore.isCertificateEntry(alias);
-            } catch (KeyStoreException e) {
-                logger.error("Error reading truststore {}", e.getMessage());
-                return false;
-            }
-        }
-
-        private Certificate getCertificate(KeyStore trustStore, String alias) {
-            try {
-                return trustStore.getCertificate(alias);
-            } catch (KeyStoreException e) {
-                logger.error("Error reading truststore {}", e.getMessage());
-                return null;
-            }
-        }
-
-        private KeyManagerFactory createKeyManager() throws NoSuchAlgorithmException, CertificateException, IOException,
-            UnrecoverableKeyException, KeyStoreException {
-            final KeyManagerFactory keyManager = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
-            final KeyStore keyStore = KeyStore.getInstance(this.clientConfig.keyStoreType());
-            final String keyStoreFile = this.clientConfig.keyStore();
-            final String keyStorePassword = this.clientConfig.keyStorePassword();
-            final String keyPassword = this.clientConfig.keyPassword();
-            try (final InputStream inputStream = new FileInputStream(keyStoreFile)) {
-                keyStore.load(inputStream, keyStorePassword.toCharArray());
-            }
-            keyManager.init(keyStore, keyPassword.toCharArray());
-            return keyManager;
-        }
-
-        private synchronized KeyStore getTrustStore(String trustStorePath, String trustStorePass)
-            throws NoSuchAlgorithmException, CertificateException, IOException, KeyStoreException {
-
-            KeyStore store = KeyStore.getInstance(KeyStore.getDefaultType());
-            store.load(new FileInputStream(ResourceUtils.getFile(trustStorePath)), trustStorePass.toCharArray());
-            return store;
-        }
+    public AsyncRestClient createRestClientUseHttpProxy(String baseUrl, String callKind) {
+        return createRestClient(baseUrl, true, new CallMetrics(callKind));
     }
 
-    public class CachingSslContextFactory extends SslContextFactory {
-        private SslContext cachedContext = null;
-
-        public CachingSslContextFactory(WebClientConfig clientConfig) {
-            super(clientConfig);
-        }
-
-        @Override
-        public SslContext createSslContext() throws UnrecoverableKeyException, NoSuchAlgorithmException,
-            CertificateException, KeyStoreException, IOException {
-            if (this.cachedContext == null) {
-                this.cachedContext = super.createSslContext();
-            }
-            return this.cachedContext;
+    private AsyncRestClient createRestClient(String baseUrl, boolean useHttpProxy, @Nullable CallMetrics callMetrics) {
+        return new AsyncRestClient(baseUrl, this.sslContextProvider, useHttpProxy ? httpProxyConfig : null,
+            connectionProvider, circuitBreakers, concurrencyLimiters, callMetrics, dnsResolver);
+    }
 
-        }
+    private static ConnectionProvider createConnectionProvider(String name, ConnectionPoolConfig config) {
+        return ConnectionProvider.builder(name) //
+            .maxConnections(config.maxConnectionsPerHost()) //
+            .pendingAcquireMaxCount(config.pendingAcquireMaxCount()) //
+            .pendingAcquireTimeout(config.pendingAcquireTimeout()) //
+            .maxIdleTime(config.maxIdleTime()) //
+            .evictInBackground(config.evictionInterval()) //
+            .metrics(config.isMetricsEnabled()) //
+            .build();
     }
 }
@@ -0,0 +1,287 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.clients;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.HostsFileEntries;
+import io.netty.resolver.HostsFileParser;
+import io.netty.resolver.InetNameResolver;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.NoopDnsCache;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.oransc.enrichment.configuration.WebClientConfig.DnsConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non blocking resolution of the host names of callback URLs, shared by the
+ * REST clients. Resolved addresses and failed resolutions are cached with
+ * separate time to live. Concurrent resolutions of the same name share one
+ * DNS query. The names of entities can be resolved in advance, when the
+ * entities are registered, so that the first callback does not wait for DNS.
+ */
+public class CachingDnsResolver {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String LOOKUPS_METRIC = "ecs.callbacks.dns.lookups";
+    public static final String CACHE_SIZE_METRIC = "ecs.callbacks.dns.cache.size";
+
+    /**
+     * The result of one resolution, which expires when its time to live has
+     * passed after the resolution is completed.
+     */
+    private class CacheEntry {
+        final Mono<List<InetAddress>> addresses;
+        volatile long expiresAtMillis = Long.MAX_VALUE;
+        volatile boolean isFailed = false;
+
+        CacheEntry(Mono<List<InetAddress>> lookup) {
+            this.addresses = lookup //
+                .doOnNext(result -> expireAfter(config.positiveTtl().toMillis())) //
+                .doOnError(throwable -> {
+                    isFailed = true;
+                    expireAfter(config.negativeTtl().toMillis());
+                }) //
+                .cache();
+        }
+
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= expiresAtMillis;
+        }
+
+        private void expireAfter(long ttlMillis) {
+            expiresAtMillis = System.currentTimeMillis() + ttlMillis;
+        }
+    }
+
+    /**
+     * A name resolver for the connections of one event loop, which uses the
+     * shared cache.
+     */
+    private class CachedNameResolver extends InetNameResolver {
+        CachedNameResolver(EventExecutor executor) {
+            super(executor);
+        }
+
+        @Override
+        protected void doResolve(String inetHost, Promise<InetAddress> promise) {
+            resolve(inetHost).subscribe(addresses -> promise.trySuccess(addresses.get(0)), promise::tryFailure);
+        }
+
+        @Override
+        protected void doResolveAll(String inetHost, Promise<List<InetAddress>> promise) {
+            resolve(inetHost).subscribe(promise::trySuccess, promise::tryFailure);
+        }
+    }
+
+    private final DnsConfig config;
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final Map<String, List<InetAddress>> hostsFileEntries;
+    private final Counter hits;
+    private final Counter negativeHits;
+    private final Counter misses;
+    private final AddressResolverGroup<InetSocketAddress> addressResolverGroup =
+        new AddressResolverGroup<InetSocketAddress>() {
+            @Override
+            protected AddressResolver<InetSocketAddress> newResolver(EventExecutor executor) {
+                return new CachedNameResolver(executor).asAddressResolver();
+            }
+        };
+    private DnsNameResolver dnsResolver = null;
+
+    public CachingDnsResolver(DnsConfig config) {
+        this.config = config;
+        this.hostsFileEntries = parseHostsFile(config.hostsFile());
+        this.hits = lookupsCounter("hit");
+        this.negativeHits = lookupsCounter("negative_hit");
+        this.misses = lookupsCounter("miss");
+        Gauge.builder(CACHE_SIZE_METRIC, cache, Map::size) //
+            .description("Number of cached host names") //
+            .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * @return the resolver to use for the connections of a REST client
+     */
+    public AddressResolverGroup<InetSocketAddress> getAddressResolverGroup() {
+        return addressResolverGroup;
+    }
+
+    /**
+     * Resolves a host name, the result is cached.
+     *
+     * @return the addresses of the host
+     */
+    public Mono<List<InetAddress>> resolve(String host) {
+        InetAddress ipAddress = NetUtil.createInetAddressFromIpAddressString(host);
+        if (ipAddress != null) {
+            return Mono.just(List.of(ipAddress));
+        }
+        final String name = host.toLowerCase(Locale.ENGLISH);
+        final long now = System.currentTimeMillis();
+        CacheEntry entry = cache.get(name);
+        if (entry == null || entry.isExpired(now)) {
+            makeRoom(name, now);
+            // A missing or expired entry is replaced atomically, so that concurrent misses
+            // share the lookup of the first
+            CacheEntry[] created = {null};
+            entry = cache.compute(name, (key, current) -> {
+                if (current != null && !current.isExpired(now)) {
+                    return current;
+                }
+                created[0] = new CacheEntry(lookup(key));
+                return created[0];
+            });
+            if (entry == created[0]) {
+                misses.increment();
+                return entry.addresses;
+            }
+        }
+        (entry.isFailed ? negativeHits : hits).increment();
+        return entry.addresses;
+    }
+
+    /**
+     * Removes the expired entries when the cache is full. If that is not enough,
+     * an arbitrary entry is removed.
+     */
+    private void makeRoom(String name, long nowMillis) {
+        if (cache.size() < config.maxCacheSize() || cache.containsKey(name)) {
+            return;
+        }
+        cache.values().removeIf(e -> e.isExpired(nowMillis));
+        if (cache.size() >= config.maxCacheSize()) {
+            cache.keySet().stream().findAny().ifPresent(cache::remove);
+        }
+    }
+
+    /**
+     * Resolves the host of an URL in the background, if it is not already
+     * cached.
+     */
+    public void preResolve(@Nullable String url) {
+        String host = url == null ? null : hostOf(url);
+        if (host == null || host.isEmpty()) {
+            return;
+        }
+        CacheEntry entry = cache.get(host.toLowerCase(Locale.ENGLISH));
+        if (entry == null || entry.isExpired(System.currentTimeMillis())) {
+            resolve(host).subscribe(addresses -> logger.debug("Resolved {} to {}", host, addresses),
+                throwable -> logger.debug("Could not resolve {}: {}", host, throwable.getMessage()));
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private Mono<List<InetAddress>> lookup(String name) {
+        List<InetAddress> hostsFileAddresses = hostsFileEntries.get(name);
+        if (hostsFileAddresses != null) {
+            return Mono.just(hostsFileAddresses);
+        }
+        return Mono.create(sink -> {
+            Future<List<InetAddress>> future = getDnsResolver().resolveAll(name);
+            future.addListener(f -> {
+                if (f.isSuccess()) {
+                    sink.success(future.getNow());
+                } else {
+                    sink.error(f.cause());
+                }
+            });
+        });
+    }
+
+    private synchronized DnsNameResolver getDnsResolver() {
+        if (this.dnsResolver == null) {
+            NioEventLoopGroup eventLoop = new NioEventLoopGroup(1, new DefaultThreadFactory("ecs-dns", true));
+            this.dnsResolver = new DnsNameResolverBuilder(eventLoop.next()) //
+                .channelType(NioDatagramChannel.class) //
+                .queryTimeoutMillis(config.queryTimeout().toMillis()) //
+                .resolveCache(NoopDnsCache.INSTANCE) // The results are cached by this class
+                .build();
+        }
+        return this.dnsResolver;
+    }
+
+    private Counter lookupsCounter(String result) {
+        return Counter.builder(LOOKUPS_METRIC) //
+            .description("Number of host name resolutions, answered from the cache (hit) or not (miss)") //
+            .tag("result", result) //
+            .register(Metrics.globalRegistry);
+    }
+
+    private static String hostOf(String url) {
+        try {
+            return new URI(url).getHost();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, List<InetAddress>> parseHostsFile(String path) {
+        Map<String, List<InetAddress>> result = new HashMap<>();
+        if (path.isEmpty()) {
+            return result;
+        }
+        try {
+            HostsFileEntries entries = HostsFileParser.parse(new File(path));
+            entries.inet4Entries().forEach((name, address) -> addEntry(result, name, address));
+            entries.inet6Entries().forEach((name, address) -> addEntry(result, name, address));
+        } catch (IOException e) {
+            logger.error("Could not read hosts file {}: {}", path, e.getMessage());
+        }
+        return result;
+    }
+
+    private static void addEntry(Map<String, List<InetAddress>> entries, String name, InetAddress address) {
+        entries.computeIfAbsent(name.toLowerCase(Locale.ENGLISH), n -> new ArrayList<>()).add(address);
+    }
+}
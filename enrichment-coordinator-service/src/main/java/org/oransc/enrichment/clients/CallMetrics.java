@@ -0,0 +1,149 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.clients;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Metrics of the calls of one kind (for instance job start callbacks) to each
+ * destination (host): the latency, the number of responses of each status
+ * class and the number of ongoing calls. The metrics are available from the
+ * actuator endpoint "metrics".
+ */
+public class CallMetrics {
+    public static final String LATENCY_METRIC = "ecs.callbacks.latency";
+    public static final String RESPONSES_METRIC = "ecs.callbacks.responses";
+    public static final String IN_FLIGHT_METRIC = "ecs.callbacks.in.flight";
+
+    // The kinds of callbacks
+    public static final String HEALTH_CHECK = "health_check";
+    public static final String JOB_START = "job_start";
+    public static final String JOB_STOP = "job_stop";
+    public static final String STATUS_NOTIFY = "status_notify";
+    public static final String TYPE_NOTIFY = "type_notify";
+
+    // Used as status of calls that got no response
+    private static final String NO_RESPONSE = "error";
+
+    private class DestinationMetrics {
+        private final String destination;
+        private final Timer latency;
+        private final AtomicInteger inFlightCalls = new AtomicInteger();
+        private final Map<String, Counter> responses = new ConcurrentHashMap<>();
+
+        DestinationMetrics(String destination) {
+            this.destination = destination;
+            this.latency = Timer.builder(LATENCY_METRIC) //
+                .description("Latency of the calls to the destination") //
+                .tag("kind", kind) //
+                .tag("destination", destination) //
+                .publishPercentileHistogram() //
+                .publishPercentiles(0.5, 0.95, 0.99) //
+                .register(Metrics.globalRegistry);
+            Gauge.builder(IN_FLIGHT_METRIC, inFlightCalls, AtomicInteger::get) //
+                .description("Number of ongoing calls to the destination") //
+                .tag("kind", kind) //
+                .tag("destination", destination) //
+                .register(Metrics.globalRegistry);
+        }
+
+        void onCompleted(long startNanos, String status) {
+            inFlightCalls.decrementAndGet();
+            latency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            responses.computeIfAbsent(status, this::createResponseCounter).increment();
+        }
+
+        private Counter createResponseCounter(String status) {
+            return Counter.builder(RESPONSES_METRIC) //
+                .description("Number of responses from the destination for each status class") //
+                .tag("kind", kind) //
+                .tag("destination", destination) //
+                .tag("status", status) //
+                .register(Metrics.globalRegistry);
+        }
+    }
+
+    private final String kind;
+    private final Map<String, DestinationMetrics> destinations = new ConcurrentHashMap<>();
+
+    /**
+     * @param kind the kind of the calls, used as tag of the metrics
+     */
+    public CallMetrics(String kind) {
+        this.kind = kind;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the number of calls to a destination that are ongoing
+     */
+    public int getInFlightCalls(String destination) {
+        DestinationMetrics metrics = destinations.get(destination);
+        return metrics == null ? 0 : metrics.inFlightCalls.get();
+    }
+
+    /**
+     * The returned Mono records the metrics of one call each time it is
+     * subscribed to.
+     */
+    <T> Mono<ResponseEntity<T>> record(String destination, Mono<ResponseEntity<T>> call) {
+        return Mono.defer(() -> {
+            DestinationMetrics metrics = destinations.computeIfAbsent(destination, DestinationMetrics::new);
+            final long startNanos = System.nanoTime();
+            metrics.inFlightCalls.incrementAndGet();
+            return call //
+                .doOnSuccess(entity -> metrics.onCompleted(startNanos, statusOf(entity))) //
+                .doOnError(throwable -> metrics.onCompleted(startNanos, statusOf(throwable))) //
+                .doOnCancel(metrics.inFlightCalls::decrementAndGet);
+        });
+    }
+
+    private static String statusOf(ResponseEntity<?> entity) {
+        return entity == null ? NO_RESPONSE : statusClass(entity.getStatusCodeValue());
+    }
+
+    private static String statusOf(Throwable throwable) {
+        if (throwable instanceof WebClientResponseException) {
+            return statusClass(((WebClientResponseException) throwable).getRawStatusCode());
+        }
+        return NO_RESPONSE;
+    }
+
+    private static String statusClass(int statusCode) {
+        return (statusCode / 100) + "xx";
+    }
+}
@@ -0,0 +1,203 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.clients;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.oransc.enrichment.configuration.WebClientConfig.CircuitBreakerConfig;
+import org.oransc.enrichment.exceptions.ServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * Circuit breakers and bulkheads for the destinations (hosts) of the REST
+ * clients. Calls to a destination are rejected while its breaker is open,
+ * which happens after a number of consecutive failures. When the breaker has
+ * been open for a while, a limited number of calls are let through to probe the
+ * destination (half open). The number of concurrent calls to a destination is
+ * always limited.
+ *
+ * The breakers are shared by clients that have their own concurrency limits
+ * (see {@link ConcurrencyLimiters}). The bulkhead is made large enough for the
+ * sum of these limits, so that calls are queued by the limiters instead of
+ * being rejected by the bulkhead.
+ */
+public class CircuitBreakers {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public class CircuitBreaker {
+        private final String destination;
+        private State state = State.CLOSED;
+        private int consecutiveFailures = 0;
+        private long openedAtMillis = 0;
+        private int inFlightCalls = 0;
+        private int halfOpenCalls = 0;
+
+        CircuitBreaker(String destination) {
+            this.destination = destination;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        public synchronized State getState() {
+            if (state == State.OPEN && isOpenDurationElapsed()) {
+                return State.HALF_OPEN;
+            }
+            return state;
+        }
+
+        public synchronized int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public synchronized int getInFlightCalls() {
+            return inFlightCalls;
+        }
+
+        /**
+         * Takes a permit for a call, which must be returned by one of onSuccess,
+         * onError or onCancel.
+         *
+         * @throws ServiceException if the call is not permitted
+         */
+        synchronized void acquire() throws ServiceException {
+            if (state == State.OPEN) {
+                if (!isOpenDurationElapsed()) {
+                    throw new ServiceException("Circuit breaker is open for " + destination,
+                        HttpStatus.SERVICE_UNAVAILABLE);
+                }
+                state = State.HALF_OPEN;
+                halfOpenCalls = 0;
+            }
+            if (state == State.HALF_OPEN && halfOpenCalls >= config.halfOpenMaxCalls()) {
+                throw new ServiceException("Circuit breaker is half open for " + destination,
+                    HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            if (inFlightCalls >= getMaxConcurrentCalls()) {
+                throw new ServiceException("Too many concurrent calls to " + destination,
+                    HttpStatus.TOO_MANY_REQUESTS);
+            }
+            ++inFlightCalls;
+            if (state == State.HALF_OPEN) {
+                ++halfOpenCalls;
+            }
+        }
+
+        synchronized void onSuccess() {
+            --inFlightCalls;
+            consecutiveFailures = 0;
+            if (state != State.CLOSED) {
+                logger.info("Circuit breaker closed for {}", destination);
+                state = State.CLOSED;
+            }
+        }
+
+        void onError(Throwable throwable) {
+            if (isDestinationFailure(throwable)) {
+                onFailure();
+            } else {
+                onSuccess();
+            }
+        }
+
+        synchronized void onCancel() {
+            --inFlightCalls;
+            if (state == State.HALF_OPEN) {
+                --halfOpenCalls;
+            }
+        }
+
+        private synchronized void onFailure() {
+            --inFlightCalls;
+            ++consecutiveFailures;
+            if (state == State.HALF_OPEN
+                || (state == State.CLOSED && consecutiveFailures >= config.failureThreshold())) {
+                logger.warn("Circuit breaker opened for {}, consecutive failures: {}", destination,
+                    consecutiveFailures);
+                state = State.OPEN;
+                openedAtMillis = System.currentTimeMillis();
+            }
+        }
+
+        private boolean isOpenDurationElapsed() {
+            return System.currentTimeMillis() - openedAtMillis >= config.openDuration().toMillis();
+        }
+    }
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final CircuitBreakerConfig config;
+    // Sum of the max concurrency limits of the clients sharing the breakers
+    private final AtomicInteger limitedConcurrentCalls = new AtomicInteger();
+
+    public CircuitBreakers(CircuitBreakerConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Makes room in the bulkheads for the calls of clients with the given max
+     * concurrency limit per destination.
+     */
+    public void addConcurrencyLimit(int maxLimit) {
+        limitedConcurrentCalls.addAndGet(maxLimit);
+    }
+
+    /**
+     * @return the max number of concurrent calls to one destination
+     */
+    public int getMaxConcurrentCalls() {
+        return Math.max(config.maxConcurrentCallsPerHost(), limitedConcurrentCalls.get());
+    }
+
+    public CircuitBreaker get(String destination) {
+        return breakers.computeIfAbsent(destination, CircuitBreaker::new);
+    }
+
+    public Collection<CircuitBreaker> getAll() {
+        return breakers.values();
+    }
+
+    public void clear() {
+        breakers.clear();
+    }
+
+    /**
+     * Responses from the destination with status 4xx are not failures, the
+     * destination is then alive.
+     */
+    private static boolean isDestinationFailure(Throwable throwable) {
+        if (throwable instanceof WebClientResponseException) {
+            return ((WebClientResponseException) throwable).getStatusCode().is5xxServerError();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,248 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.clients;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.oransc.enrichment.configuration.WebClientConfig.ConcurrencyLimitConfig;
+import org.oransc.enrichment.exceptions.ServiceException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Adaptive limits of the number of concurrent calls from one REST client to
+ * each of its destinations (hosts). Calls exceeding the limit wait until an
+ * ongoing call to the same destination is completed. When too many calls are
+ * waiting, more calls are rejected.
+ *
+ * The limit is adapted to the observed behavior of the destination (AIMD).
+ * While the calls are fast, the limit is increased by one for each limit number
+ * of completed calls. When a call fails or is much slower than the lowest
+ * observed latency, the limit is decreased multiplicatively.
+ */
+public class ConcurrencyLimiters {
+    public static final String LIMIT_METRIC = "ecs.callbacks.concurrency.limit";
+
+    // Variations of the latency below this are not significant
+    private static final long MIN_LATENCY_FLOOR_NANOS = 1_000_000;
+
+    private enum Outcome {
+        SUCCESS, OVERLOAD, IGNORED
+    }
+
+    public class ConcurrencyLimiter {
+        private final String destination;
+        private final Queue<Call<?>> waitingCalls = new ArrayDeque<>();
+        private double limit = config.initialLimit();
+        private int inFlightCalls = 0;
+        private long minLatencyNanos = Long.MAX_VALUE;
+        private long lastDecreaseNanos = Long.MIN_VALUE;
+
+        ConcurrencyLimiter(String destination) {
+            this.destination = destination;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        public synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        public synchronized int getInFlightCalls() {
+            return inFlightCalls;
+        }
+
+        public synchronized int getNoOfWaitingCalls() {
+            return waitingCalls.size();
+        }
+
+        /**
+         * The returned Mono subscribes to the call when it is permitted by the limit.
+         * It fails with a ServiceException if too many calls are waiting.
+         */
+        <T> Mono<T> run(Mono<T> call) {
+            return Mono.create(sink -> {
+                Call<T> c = new Call<>(this, call, sink);
+                sink.onCancel(c::cancel);
+                boolean isPermitted;
+                synchronized (this) {
+                    isPermitted = waitingCalls.isEmpty() && inFlightCalls < getLimit();
+                    if (isPermitted) {
+                        ++inFlightCalls;
+                    } else if (waitingCalls.size() >= config.maxWaitingCalls()) {
+                        sink.error(new ServiceException("Too many calls waiting for " + destination,
+                            HttpStatus.TOO_MANY_REQUESTS));
+                        return;
+                    } else {
+                        waitingCalls.add(c);
+                    }
+                }
+                if (isPermitted) {
+                    c.start();
+                }
+            });
+        }
+
+        private void onCallCompleted(long startNanos, Outcome outcome) {
+            List<Call<?>> startableCalls = new ArrayList<>();
+            synchronized (this) {
+                updateLimit(startNanos, System.nanoTime() - startNanos, outcome);
+                --inFlightCalls;
+                while (inFlightCalls < getLimit() && !waitingCalls.isEmpty()) {
+                    Call<?> c = waitingCalls.poll();
+                    if (!c.isCancelled()) {
+                        ++inFlightCalls;
+                        startableCalls.add(c);
+                    }
+                }
+            }
+            startableCalls.forEach(Call::start);
+        }
+
+        private void updateLimit(long startNanos, long latencyNanos, Outcome outcome) {
+            if (outcome == Outcome.IGNORED) {
+                return;
+            }
+            // The lowest latency slowly drifts upwards so that a lasting change of the
+            // latency of the destination eventually is accepted
+            minLatencyNanos = Math.min(latencyNanos, minLatencyNanos + minLatencyNanos / 100);
+            long baselineNanos = Math.max(minLatencyNanos, MIN_LATENCY_FLOOR_NANOS);
+            if (outcome == Outcome.OVERLOAD || latencyNanos > config.latencyTolerance() * baselineNanos) {
+                // Decrease at most once for the calls that were ongoing at the same time
+                if (startNanos > lastDecreaseNanos) {
+                    limit = Math.max(config.minLimit(), limit * config.backoffRatio());
+                    lastDecreaseNanos = System.nanoTime();
+                }
+            } else if (inFlightCalls * 2 >= limit) {
+                // Only increase a limit that is used
+                limit = Math.min(config.maxLimit(), limit + 1 / limit);
+            }
+        }
+    }
+
+    private static class Call<T> {
+        private final ConcurrencyLimiter limiter;
+        private final Mono<T> mono;
+        private final MonoSink<T> sink;
+        private Disposable subscription = null;
+        private boolean isCancelled = false;
+
+        Call(ConcurrencyLimiter limiter, Mono<T> mono, MonoSink<T> sink) {
+            this.limiter = limiter;
+            this.mono = mono;
+            this.sink = sink;
+        }
+
+        synchronized boolean isCancelled() {
+            return isCancelled;
+        }
+
+        void cancel() {
+            Disposable s;
+            synchronized (this) {
+                isCancelled = true;
+                s = subscription;
+            }
+            if (s != null) {
+                s.dispose();
+            }
+        }
+
+        void start() {
+            final long startNanos = System.nanoTime();
+            Disposable s = mono //
+                .doOnSuccess(value -> limiter.onCallCompleted(startNanos, Outcome.SUCCESS)) //
+                .doOnError(throwable -> limiter.onCallCompleted(startNanos, outcomeOf(throwable))) //
+                .doOnCancel(() -> limiter.onCallCompleted(startNanos, Outcome.IGNORED)) //
+                .subscribe(sink::success, sink::error, sink::success);
+            synchronized (this) {
+                if (isCancelled) {
+                    s.dispose();
+                } else {
+                    subscription = s;
+                }
+            }
+        }
+    }
+
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final String clientName;
+    private final ConcurrencyLimitConfig config;
+
+    /**
+     * @param clientName the name of the REST client, used as tag of the metrics
+     */
+    public ConcurrencyLimiters(String clientName, ConcurrencyLimitConfig config) {
+        this.clientName = clientName;
+        this.config = config;
+    }
+
+    public ConcurrencyLimiter get(String destination) {
+        return limiters.computeIfAbsent(destination, this::createLimiter);
+    }
+
+    public Collection<ConcurrencyLimiter> getAll() {
+        return limiters.values();
+    }
+
+    private ConcurrencyLimiter createLimiter(String destination) {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(destination);
+        Gauge.builder(LIMIT_METRIC, limiter, ConcurrencyLimiter::getLimit) //
+            .description("Max number of concurrent calls to the destination") //
+            .tag("client", clientName) //
+            .tag("destination", destination) //
+            .register(Metrics.globalRegistry);
+        return limiter;
+    }
+
+    /**
+     * Failures and too many requests indicates that the destination is
+     * overloaded. Other responses with status 4xx are handled as successful
+     * calls. Calls rejected by a circuit breaker tell nothing about the
+     * destination.
+     */
+    private static Outcome outcomeOf(Throwable throwable) {
+        if (throwable instanceof ServiceException) {
+            return Outcome.IGNORED;
+        }
+        if (throwable instanceof WebClientResponseException) {
+            HttpStatus status = ((WebClientResponseException) throwable).getStatusCode();
+            return status.is4xxClientError() && status != HttpStatus.TOO_MANY_REQUESTS ? Outcome.SUCCESS
+                : Outcome.OVERLOAD;
+        }
+        return Outcome.OVERLOAD;
+    }
+}
@@ -0,0 +1,230 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.clients;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.oransc.enrichment.configuration.WebClientConfig.RetryBudgetConfig;
+import org.oransc.enrichment.exceptions.ServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Retries of failed calls, shared by all callbacks. The number of retries to
+ * each destination (host) is limited to a ratio of the number of requests to
+ * the destination during a sliding time window, plus a small reserve. When the
+ * budget of a destination is spent, failed calls are not retried. This avoids
+ * that a failing destination gets a multiple of its normal load.
+ *
+ * The retries are delayed with an exponential and jittered backoff, so that
+ * calls failing at the same time are not retried at the same time.
+ */
+public class RetryBudgets {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String RETRIES_METRIC = "ecs.callbacks.retries";
+    public static final String REMAINING_METRIC = "ecs.callbacks.retries.remaining";
+
+    private static final int NO_OF_BUCKETS = 10;
+
+    public class RetryBudget {
+        private final String destination;
+        private final long[] requests = new long[NO_OF_BUCKETS];
+        private final long[] retries = new long[NO_OF_BUCKETS];
+        private long currentBucket = currentBucket();
+        private final Counter performedRetries;
+        private final Counter rejectedRetries;
+
+        RetryBudget(String destination) {
+            this.destination = destination;
+            this.performedRetries = retriesCounter(destination, "performed");
+            this.rejectedRetries = retriesCounter(destination, "rejected");
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        /**
+         * @return the number of retries that can be done now
+         */
+        public synchronized double getRemainingRetries() {
+            advance();
+            return Math.max(0, allowedRetries() - sum(retries));
+        }
+
+        synchronized void onRequest() {
+            advance();
+            ++requests[index(currentBucket)];
+        }
+
+        /**
+         * Withdraws one retry from the budget.
+         *
+         * @return false if the budget is spent
+         */
+        boolean tryRetry() {
+            boolean isPermitted;
+            synchronized (this) {
+                advance();
+                isPermitted = sum(retries) + 1 <= allowedRetries();
+                if (isPermitted) {
+                    ++retries[index(currentBucket)];
+                }
+            }
+            if (isPermitted) {
+                performedRetries.increment();
+            } else {
+                logger.debug("Retry budget spent for {}", destination);
+                rejectedRetries.increment();
+            }
+            return isPermitted;
+        }
+
+        private double allowedRetries() {
+            double windowSeconds = config.window().toMillis() / 1000.0;
+            return config.minRetriesPerSecond() * windowSeconds + config.retryRatio() * sum(requests);
+        }
+
+        /**
+         * Clears the buckets that have fallen out of the window.
+         */
+        private void advance() {
+            long bucket = currentBucket();
+            long noOfExpired = Math.min(bucket - currentBucket, NO_OF_BUCKETS);
+            for (long i = 1; i <= noOfExpired; ++i) {
+                requests[index(currentBucket + i)] = 0;
+                retries[index(currentBucket + i)] = 0;
+            }
+            currentBucket = Math.max(bucket, currentBucket);
+        }
+    }
+
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+    private final RetryBudgetConfig config;
+
+    public RetryBudgets(RetryBudgetConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Makes a call that is retried when it fails, as long as the budget of the
+     * destination is not spent.
+     *
+     * @param url the URL that the call is sent to, which determines the budget
+     *        used
+     * @param call the call, which is subscribed to once for each attempt
+     * @param maxRetries max number of retries of the call
+     */
+    public <T> Mono<T> withRetries(String url, Mono<T> call, long maxRetries) {
+        return Mono.defer(() -> {
+            RetryBudget budget = get(AsyncRestClient.destinationOf("", url));
+            budget.onRequest();
+            return call.retryWhen(retrySpec(budget, maxRetries));
+        });
+    }
+
+    public RetryBudget get(String destination) {
+        return budgets.computeIfAbsent(destination, this::createBudget);
+    }
+
+    public Collection<RetryBudget> getAll() {
+        return budgets.values();
+    }
+
+    /**
+     * The filter is evaluated before the max number of retries is checked, so a
+     * retry is withdrawn from the budget only for the failures that are retried.
+     * The failure after the last retry passes the filter and is rejected as
+     * exhausted by the spec.
+     */
+    private Retry retrySpec(RetryBudget budget, long maxRetries) {
+        AtomicLong noOfFailures = new AtomicLong();
+        return Retry.backoff(maxRetries, config.minBackoff()) //
+            .maxBackoff(config.maxBackoff()) //
+            .jitter(config.jitter()) //
+            .filter(throwable -> isRetryable(throwable)
+                && (noOfFailures.incrementAndGet() > maxRetries || budget.tryRetry()));
+    }
+
+    /**
+     * Calls rejected by a circuit breaker, a bulkhead or a concurrency limit would
+     * be rejected again, and a request rejected by the destination (4xx) would get
+     * the same response. Too many requests (429) is retried after the backoff.
+     */
+    private static boolean isRetryable(Throwable throwable) {
+        if (throwable instanceof ServiceException) {
+            return false;
+        }
+        if (throwable instanceof WebClientResponseException) {
+            HttpStatus status = ((WebClientResponseException) throwable).getStatusCode();
+            return !status.is4xxClientError() || status == HttpStatus.TOO_MANY_REQUESTS;
+        }
+        return true;
+    }
+
+    private RetryBudget createBudget(String destination) {
+        RetryBudget budget = new RetryBudget(destination);
+        Gauge.builder(REMAINING_METRIC, budget, RetryBudget::getRemainingRetries) //
+            .description("Number of retries that can be done to the destination") //
+            .tag("destination", destination) //
+            .register(Metrics.globalRegistry);
+        return budget;
+    }
+
+    private static Counter retriesCounter(String destination, String outcome) {
+        return Counter.builder(RETRIES_METRIC) //
+            .description("Number of retries of failed calls, performed or rejected because the budget was spent") //
+            .tag("destination", destination) //
+            .tag("outcome", outcome) //
+            .register(Metrics.globalRegistry);
+    }
+
+    private long currentBucket() {
+        long bucketNanos = Math.max(1, config.window().toNanos() / NO_OF_BUCKETS);
+        return System.nanoTime() / bucketNanos;
+    }
+
+    private static int index(long bucket) {
+        return (int) Math.floorMod(bucket, (long) NO_OF_BUCKETS);
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,255 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.clients;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandshakeCompletionEvent;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.net.ssl.KeyManagerFactory;
+
+import org.oransc.enrichment.configuration.WebClientConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ResourceUtils;
+
+import reactor.netty.NettyPipeline;
+
+/**
+ * Provides the SSL context of the REST clients. The key store and trust store
+ * files are checked regularly and the context is replaced when any of them is
+ * modified, so that certificates can be rotated without restart. The context
+ * caches the TLS sessions, so that new connections to a host can resume a
+ * session instead of making a full handshake.
+ */
+public class SslContextProvider {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String HANDSHAKES_METRIC = "ecs.callbacks.tls.handshakes";
+    public static final String RELOADS_METRIC = "ecs.callbacks.tls.reloads";
+
+    private static final String HANDSHAKE_RECORDER_NAME = "ecs.handshakeRecorder";
+
+    private final WebClientConfig clientConfig;
+    private final String clientName;
+    private final Counter reloads;
+    private SslContext sslContext = null;
+    private long keyStoreModified = 0;
+    private long trustStoreModified = 0;
+    private long lastCheckMillis = 0;
+
+    /**
+     * Records the time from when a connection is established until its TLS
+     * handshake is completed.
+     */
+    private class HandshakeRecorder extends ChannelInboundHandlerAdapter {
+        private long startNanos = System.nanoTime();
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            startNanos = System.nanoTime();
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof SslHandshakeCompletionEvent) {
+                boolean isSuccess = ((SslHandshakeCompletionEvent) evt).isSuccess();
+                handshakeTimer(isSuccess ? "success" : "failure") //
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                ctx.pipeline().remove(this);
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+    }
+
+    /**
+     * @param clientName the name of the REST clients, used as tag of the metrics
+     */
+    public SslContextProvider(WebClientConfig clientConfig, String clientName) {
+        this.clientConfig = clientConfig;
+        this.clientName = clientName;
+        this.reloads = Counter.builder(RELOADS_METRIC) //
+            .description("Number of times that the SSL context was loaded because the key or trust store changed") //
+            .tag("client", clientName) //
+            .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * @return the current SSL context, reloaded if the key store or the trust
+     *         store is modified. Null if no context could be created.
+     */
+    public synchronized SslContext getSslContext() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheckMillis < clientConfig.sslReloadCheckInterval().toMillis()) {
+            return sslContext;
+        }
+        lastCheckMillis = now;
+        long keyStoreStamp = lastModified(clientConfig.keyStore());
+        long trustStoreStamp = clientConfig.isTrustStoreUsed() ? lastModified(clientConfig.trustStore()) : 0;
+        if (sslContext == null || keyStoreStamp != keyStoreModified || trustStoreStamp != trustStoreModified) {
+            try {
+                SslContext newContext = createSslContext(createKeyManager());
+                if (sslContext != null) {
+                    logger.info("SSL context reloaded for {}", clientName);
+                }
+                sslContext = newContext;
+                keyStoreModified = keyStoreStamp;
+                trustStoreModified = trustStoreStamp;
+                reloads.increment();
+            } catch (Exception e) {
+                String exceptionString = e.toString();
+                logger.error("Could not init SSL context, reason: {}", exceptionString);
+            }
+        }
+        return sslContext;
+    }
+
+    /**
+     * Adds a handler that records the TLS handshake of a connection in the
+     * metrics.
+     */
+    void addHandshakeRecorder(ChannelPipeline pipeline) {
+        if (pipeline.get(NettyPipeline.ReactiveBridge) != null) {
+            pipeline.addBefore(NettyPipeline.ReactiveBridge, HANDSHAKE_RECORDER_NAME, new HandshakeRecorder());
+        } else {
+            pipeline.addLast(HANDSHAKE_RECORDER_NAME, new HandshakeRecorder());
+        }
+    }
+
+    private Timer handshakeTimer(String outcome) {
+        return Timer.builder(HANDSHAKES_METRIC) //
+            .description("TLS handshakes of new connections") //
+            .tag("client", clientName) //
+            .tag("outcome", outcome) //
+            .register(Metrics.globalRegistry);
+    }
+
+    private static long lastModified(String path) {
+        try {
+            File file = ResourceUtils.getFile(path);
+            return file.lastModified();
+        } catch (FileNotFoundException e) {
+            return 0;
+        }
+    }
+
+    private SslContext createSslContext(KeyManagerFactory keyManager)
+        throws NoSuchAlgorithmException, CertificateException, KeyStoreException, IOException {
+        SslContextBuilder builder;
+        if (this.clientConfig.isTrustStoreUsed()) {
+            builder = sslContextRejectingUntrustedPeers(this.clientConfig.trustStore(),
+                this.clientConfig.trustStorePassword(), keyManager);
+        } else {
+            // Trust anyone
+            builder = SslContextBuilder.forClient() //
+                .keyManager(keyManager) //
+                .trustManager(InsecureTrustManagerFactory.INSTANCE);
+        }
+        return builder //
+            .sessionCacheSize(this.clientConfig.sslSessionCacheSize()) //
+            .sessionTimeout(this.clientConfig.sslSessionTimeout().getSeconds()) //
+            .build();
+    }
+
+    private SslContextBuilder sslContextRejectingUntrustedPeers(String trustStorePath, String trustStorePass,
+        KeyManagerFactory keyManager)
+        throws NoSuchAlgorithmException, CertificateException, IOException, KeyStoreException {
+
+        final KeyStore trustStore = getTrustStore(trustStorePath, trustStorePass);
+        List<Certificate> certificateList = Collections.list(trustStore.aliases()).stream() //
+            .filter(alias -> isCertificateEntry(trustStore, alias)) //
+            .map(alias -> getCertificate(trustStore, alias)) //
+            .collect(Collectors.toList());
+        final X509Certificate[] certificates = certificateList.toArray(new X509Certificate[certificateList.size()]);
+
+        return SslContextBuilder.forClient() //
+            .keyManager(keyManager) //
+            .trustManager(certificates);
+    }
+
+    private boolean isCertificateEntry(KeyStore trustStore, String alias) {
+        try {
+            return trustStore.isCertificateEntry(alias);
+        } catch (KeyStoreException e) {
+            logger.error("Error reading truststore {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private Certificate getCertificate(KeyStore trustStore, String alias) {
+        try {
+            return trustStore.getCertificate(alias);
+        } catch (KeyStoreException e) {
+            logger.error("Error reading truststore {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private KeyManagerFactory createKeyManager() throws NoSuchAlgorithmException, CertificateException, IOException,
+        UnrecoverableKeyException, KeyStoreException {
+        final KeyManagerFactory keyManager = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        final KeyStore keyStore = KeyStore.getInstance(this.clientConfig.keyStoreType());
+        final String keyStoreFile = this.clientConfig.keyStore();
+        final String keyStorePassword = this.clientConfig.keyStorePassword();
+        final String keyPassword = this.clientConfig.keyPassword();
+        try (final InputStream inputStream = new FileInputStream(keyStoreFile)) {
+            keyStore.load(inputStream, keyStorePassword.toCharArray());
+        }
+        keyManager.init(keyStore, keyPassword.toCharArray());
+        return keyManager;
+    }
+
+    private KeyStore getTrustStore(String trustStorePath, String trustStorePass)
+        throws NoSuchAlgorithmException, CertificateException, IOException, KeyStoreException {
+
+        KeyStore store = KeyStore.getInstance(KeyStore.getDefaultType());
+        try (final InputStream inputStream = new FileInputStream(ResourceUtils.getFile(trustStorePath))) {
+            store.load(inputStream, trustStorePass.toCharArray());
+        }
+        return store;
+    }
+}
@@ -20,9 +20,18 @@
 
 package org.oransc.enrichment.configuration;
 
+import java.time.Duration;
+
 import lombok.Getter;
 
+import org.oransc.enrichment.configuration.WebClientConfig.CircuitBreakerConfig;
+import org.oransc.enrichment.configuration.WebClientConfig.ConcurrencyLimitConfig;
+import org.oransc.enrichment.configuration.WebClientConfig.ConnectionPoolConfig;
+import org.oransc.enrichment.configuration.WebClientConfig.DnsConfig;
 import org.oransc.enrichment.configuration.WebClientConfig.HttpProxyConfig;
+import org.oransc.enrichment.configuration.WebClientConfig.RetryBudgetConfig;
+import org.oransc.enrichment.datastore.DataStore;
+import org.oransc.enrichment.datastore.Journal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -39,6 +48,56 @@ public class ApplicationConfig {
     @Value("${app.vardata-directory}")
     private String vardataDirectory;
 
+    @Getter
+    @Value("${app.database.backend:JOURNAL}")
+    private DataStore.Backend databaseBackend = DataStore.Backend.JOURNAL;
+
+    @Getter
+    @Value("${app.database.restore-parallelism:0}")
+    private int databaseRestoreParallelism = 0;
+
+    @Getter
+    @Value("${app.database.fsync-policy:NONE}")
+    private Journal.FsyncPolicy databaseFsyncPolicy = Journal.FsyncPolicy.NONE;
+
+    @Value("${app.database.fsync-interval-millis:1000}")
+    private long databaseFsyncIntervalMillis = 1000;
+
+    @Getter
+    @Value("${app.database.ack-mode:COMMIT}")
+    private Journal.AckMode databaseAckMode = Journal.AckMode.COMMIT;
+
+    @Getter
+    @Value("${app.job-index.target-url:true}")
+    private boolean jobIndexTargetUrl = true;
+
+    @Getter
+    @Value("${app.job-index.last-updated:true}")
+    private boolean jobIndexLastUpdated = true;
+
+    @Getter
+    @Value("${app.producer-callbacks.bulk-chunk-size:500}")
+    private int producerBulkCallbackChunkSize = 500;
+
+    @Value("${app.producer-supervision.check-interval-millis:300000}")
+    private long producerCheckIntervalMillis = 300000;
+
+    @Value("${app.producer-supervision.max-check-interval-millis:900000}")
+    private long producerMaxCheckIntervalMillis = 900000;
+
+    @Value("${app.producer-supervision.unhealthy-check-interval-millis:30000}")
+    private long producerUnhealthyCheckIntervalMillis = 30000;
+
+    @Getter
+    @Value("${app.producer-supervision.jitter:0.1}")
+    private double producerCheckJitter = 0.1;
+
+    @Value("${app.producer-supervision.tick-millis:1000}")
+    private long producerSupervisionTickMillis = 1000;
+
+    @Value("${app.producer-supervision.heartbeat-lease-millis:30000}")
+    private long producerHeartbeatLeaseMillis = 30000;
+
     @Value("${server.ssl.key-store-type}")
     private String sslKeyStoreType = "";
 
@@ -60,14 +119,131 @@ public class ApplicationConfig {
     @Value("${app.webclient.trust-store}")
     private String sslTrustStore = "";
 
+    @Value("${app.webclient.ssl.reload-check-interval-millis:60000}")
+    private long sslReloadCheckIntervalMillis = 60000;
+
+    @Value("${app.webclient.ssl.session-cache-size:1000}")
+    private long sslSessionCacheSize = 1000;
+
+    @Value("${app.webclient.ssl.session-timeout-seconds:3600}")
+    private long sslSessionTimeoutSeconds = 3600;
+
     @Value("${app.webclient.http.proxy-host:\"\"}")
     private String httpProxyHost = "";
 
     @Value("${app.webclient.http.proxy-port:0}")
     private int httpProxyPort = 0;
 
+    @Value("${app.webclient.connection-pool.max-connections-per-host:100}")
+    private int poolMaxConnectionsPerHost = 100;
+
+    @Value("${app.webclient.connection-pool.pending-acquire-max-count:1000}")
+    private int poolPendingAcquireMaxCount = 1000;
+
+    @Value("${app.webclient.connection-pool.pending-acquire-timeout-millis:10000}")
+    private long poolPendingAcquireTimeoutMillis = 10000;
+
+    @Value("${app.webclient.connection-pool.max-idle-time-millis:30000}")
+    private long poolMaxIdleTimeMillis = 30000;
+
+    @Value("${app.webclient.connection-pool.eviction-interval-millis:10000}")
+    private long poolEvictionIntervalMillis = 10000;
+
+    @Value("${app.webclient.connection-pool.metrics-enabled:true}")
+    private boolean poolMetricsEnabled = true;
+
+    @Value("${app.webclient.circuit-breaker.failure-threshold:5}")
+    private int circuitBreakerFailureThreshold = 5;
+
+    @Value("${app.webclient.circuit-breaker.open-duration-millis:30000}")
+    private long circuitBreakerOpenDurationMillis = 30000;
+
+    @Value("${app.webclient.circuit-breaker.half-open-max-calls:1}")
+    private int circuitBreakerHalfOpenMaxCalls = 1;
+
+    @Value("${app.webclient.circuit-breaker.max-concurrent-calls-per-host:100}")
+    private int circuitBreakerMaxConcurrentCallsPerHost = 100;
+
+    @Value("${app.webclient.concurrency-limit.initial-limit:10}")
+    private int concurrencyInitialLimit = 10;
+
+    @Value("${app.webclient.concurrency-limit.min-limit:1}")
+    private int concurrencyMinLimit = 1;
+
+    @Value("${app.webclient.concurrency-limit.max-limit:100}")
+    private int concurrencyMaxLimit = 100;
+
+    @Value("${app.webclient.concurrency-limit.latency-tolerance:2.0}")
+    private double concurrencyLatencyTolerance = 2.0;
+
+    @Value("${app.webclient.concurrency-limit.backoff-ratio:0.9}")
+    private double concurrencyBackoffRatio = 0.9;
+
+    @Value("${app.webclient.concurrency-limit.max-waiting-calls:1000}")
+    private int concurrencyMaxWaitingCalls = 1000;
+
+    @Value("${app.webclient.concurrency-limit.max-fan-out:100}")
+    private int concurrencyMaxFanOut = 100;
+
+    @Value("${app.webclient.retry-budget.retry-ratio:0.2}")
+    private double retryBudgetRetryRatio = 0.2;
+
+    @Value("${app.webclient.retry-budget.min-retries-per-second:1}")
+    private double retryBudgetMinRetriesPerSecond = 1;
+
+    @Value("${app.webclient.retry-budget.window-millis:10000}")
+    private long retryBudgetWindowMillis = 10000;
+
+    @Value("${app.webclient.retry-budget.min-backoff-millis:1000}")
+    private long retryMinBackoffMillis = 1000;
+
+    @Value("${app.webclient.retry-budget.max-backoff-millis:30000}")
+    private long retryMaxBackoffMillis = 30000;
+
+    @Value("${app.webclient.retry-budget.jitter:0.5}")
+    private double retryJitter = 0.5;
+
+    @Value("${app.webclient.dns.positive-ttl-seconds:300}")
+    private long dnsPositiveTtlSeconds = 300;
+
+    @Value("${app.webclient.dns.negative-ttl-seconds:30}")
+    private long dnsNegativeTtlSeconds = 30;
+
+    @Value("${app.webclient.dns.max-cache-size:10000}")
+    private int dnsMaxCacheSize = 10000;
+
+    @Value("${app.webclient.dns.query-timeout-millis:5000}")
+    private long dnsQueryTimeoutMillis = 5000;
+
+    @Value("${app.webclient.dns.hosts-file:}")
+    private String dnsHostsFile = "";
+
     private WebClientConfig webClientConfig = null;
 
+    public Duration getDatabaseFsyncInterval() {
+        return Duration.ofMillis(databaseFsyncIntervalMillis);
+    }
+
+    public Duration getProducerCheckInterval() {
+        return Duration.ofMillis(producerCheckIntervalMillis);
+    }
+
+    public Duration getProducerMaxCheckInterval() {
+        return Duration.ofMillis(producerMaxCheckIntervalMillis);
+    }
+
+    public Duration getProducerUnhealthyCheckInterval() {
+        return Duration.ofMillis(producerUnhealthyCheckIntervalMillis);
+    }
+
+    public Duration getProducerSupervisionTick() {
+        return Duration.ofMillis(producerSupervisionTickMillis);
+    }
+
+    public Duration getProducerHeartbeatLease() {
+        return Duration.ofMillis(producerHeartbeatLeaseMillis);
+    }
+
     public WebClientConfig getWebClientConfig() {
         if (this.webClientConfig == null) {
             if (this.httpProxyPort == 0) {
@@ -79,6 +255,44 @@ public class ApplicationConfig {
                 .httpProxyHost(this.httpProxyHost) //
                 .httpProxyPort(this.httpProxyPort) //
                 .build();
+            ConnectionPoolConfig connectionPoolConfig = ImmutableConnectionPoolConfig.builder() //
+                .maxConnectionsPerHost(this.poolMaxConnectionsPerHost) //
+                .pendingAcquireMaxCount(this.poolPendingAcquireMaxCount) //
+                .pendingAcquireTimeout(Duration.ofMillis(this.poolPendingAcquireTimeoutMillis)) //
+                .maxIdleTime(Duration.ofMillis(this.poolMaxIdleTimeMillis)) //
+                .evictionInterval(Duration.ofMillis(this.poolEvictionIntervalMillis)) //
+                .isMetricsEnabled(this.poolMetricsEnabled) //
+                .build();
+            CircuitBreakerConfig circuitBreakerConfig = ImmutableCircuitBreakerConfig.builder() //
+                .failureThreshold(this.circuitBreakerFailureThreshold) //
+                .openDuration(Duration.ofMillis(this.circuitBreakerOpenDurationMillis)) //
+                .halfOpenMaxCalls(this.circuitBreakerHalfOpenMaxCalls) //
+                .maxConcurrentCallsPerHost(this.circuitBreakerMaxConcurrentCallsPerHost) //
+                .build();
+            ConcurrencyLimitConfig concurrencyLimitConfig = ImmutableConcurrencyLimitConfig.builder() //
+                .initialLimit(this.concurrencyInitialLimit) //
+                .minLimit(this.concurrencyMinLimit) //
+                .maxLimit(this.concurrencyMaxLimit) //
+                .latencyTolerance(this.concurrencyLatencyTolerance) //
+                .backoffRatio(this.concurrencyBackoffRatio) //
+                .maxWaitingCalls(this.concurrencyMaxWaitingCalls) //
+                .maxFanOut(this.concurrencyMaxFanOut) //
+                .build();
+            RetryBudgetConfig retryBudgetConfig = ImmutableRetryBudgetConfig.builder() //
+                .retryRatio(this.retryBudgetRetryRatio) //
+                .minRetriesPerSecond(this.retryBudgetMinRetriesPerSecond) //
+                .window(Duration.ofMillis(this.retryBudgetWindowMillis)) //
+                .minBackoff(Duration.ofMillis(this.retryMinBackoffMillis)) //
+                .maxBackoff(Duration.ofMillis(this.retryMaxBackoffMillis)) //
+                .jitter(this.retryJitter) //
+                .build();
+            DnsConfig dnsConfig = ImmutableDnsConfig.builder() //
+                .positiveTtl(Duration.ofSeconds(this.dnsPositiveTtlSeconds)) //
+                .negativeTtl(Duration.ofSeconds(this.dnsNegativeTtlSeconds)) //
+                .maxCacheSize(this.dnsMaxCacheSize) //
+                .queryTimeout(Duration.ofMillis(this.dnsQueryTimeoutMillis)) //
+                .hostsFile(this.dnsHostsFile) //
+                .build();
             this.webClientConfig = ImmutableWebClientConfig.builder() //
                 .keyStoreType(this.sslKeyStoreType) //
                 .keyStorePassword(this.sslKeyStorePassword) //
@@ -87,7 +301,15 @@ public class ApplicationConfig {
                 .isTrustStoreUsed(this.sslTrustStoreUsed) //
                 .trustStore(this.sslTrustStore) //
                 .trustStorePassword(this.sslTrustStorePassword) //
+                .sslReloadCheckInterval(Duration.ofMillis(this.sslReloadCheckIntervalMillis)) //
+                .sslSessionCacheSize(this.sslSessionCacheSize) //
+                .sslSessionTimeout(Duration.ofSeconds(this.sslSessionTimeoutSeconds)) //
                 .httpProxyConfig(httpProxyConfig) //
+                .connectionPoolConfig(connectionPoolConfig) //
+                .circuitBreakerConfig(circuitBreakerConfig) //
+                .concurrencyLimitConfig(concurrencyLimitConfig) //
+                .retryBudgetConfig(retryBudgetConfig) //
+                .dnsConfig(dnsConfig) //
                 .build();
         }
         return this.webClientConfig;
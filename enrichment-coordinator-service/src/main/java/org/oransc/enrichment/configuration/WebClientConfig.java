@@ -20,6 +20,8 @@
 
 package org.oransc.enrichment.configuration;
 
+import java.time.Duration;
+
 import org.immutables.value.Value;
 
 @Value.Immutable
@@ -42,6 +44,28 @@ public interface WebClientConfig {
 
     public String trustStore();
 
+    /**
+     * How often the key store and trust store files are checked for
+     * modifications. A modified store replaces the SSL context of the clients.
+     */
+    @Value.Default
+    public default Duration sslReloadCheckInterval() {
+        return Duration.ofMinutes(1);
+    }
+
+    /**
+     * Max number of cached TLS sessions, which can be resumed by new connections.
+     */
+    @Value.Default
+    public default long sslSessionCacheSize() {
+        return 1000;
+    }
+
+    @Value.Default
+    public default Duration sslSessionTimeout() {
+        return Duration.ofHours(1);
+    }
+
     @Value.Immutable
     public interface HttpProxyConfig {
         public String httpProxyHost();
@@ -51,4 +75,254 @@ public interface WebClientConfig {
 
     public HttpProxyConfig httpProxyConfig();
 
+    /**
+     * The pool of connections shared by the requests of a REST client.
+     */
+    @Value.Immutable
+    public interface ConnectionPoolConfig {
+        /**
+         * Max number of connections to each remote host.
+         */
+        @Value.Default
+        public default int maxConnectionsPerHost() {
+            return 100;
+        }
+
+        /**
+         * Max number of requests waiting for a connection to a host, -1 means no
+         * limit.
+         */
+        @Value.Default
+        public default int pendingAcquireMaxCount() {
+            return 1000;
+        }
+
+        @Value.Default
+        public default Duration pendingAcquireTimeout() {
+            return Duration.ofSeconds(10);
+        }
+
+        /**
+         * Connections unused for this long are closed.
+         */
+        @Value.Default
+        public default Duration maxIdleTime() {
+            return Duration.ofSeconds(30);
+        }
+
+        @Value.Default
+        public default Duration evictionInterval() {
+            return Duration.ofSeconds(10);
+        }
+
+        /**
+         * If the pool metrics are exported to Micrometer (see the actuator endpoint
+         * "metrics").
+         */
+        @Value.Default
+        public default boolean isMetricsEnabled() {
+            return true;
+        }
+    }
+
+    @Value.Default
+    public default ConnectionPoolConfig connectionPoolConfig() {
+        return ImmutableConnectionPoolConfig.builder().build();
+    }
+
+    /**
+     * The circuit breaker and bulkhead of each destination (host) of the REST
+     * clients.
+     */
+    @Value.Immutable
+    public interface CircuitBreakerConfig {
+        /**
+         * Number of consecutive failed calls that opens the breaker.
+         */
+        @Value.Default
+        public default int failureThreshold() {
+            return 5;
+        }
+
+        /**
+         * Time that the breaker stays open before calls are let through again.
+         */
+        @Value.Default
+        public default Duration openDuration() {
+            return Duration.ofSeconds(30);
+        }
+
+        /**
+         * Max number of concurrent probing calls when the breaker is half open.
+         */
+        @Value.Default
+        public default int halfOpenMaxCalls() {
+            return 1;
+        }
+
+        @Value.Default
+        public default int maxConcurrentCallsPerHost() {
+            return 100;
+        }
+    }
+
+    @Value.Default
+    public default CircuitBreakerConfig circuitBreakerConfig() {
+        return ImmutableCircuitBreakerConfig.builder().build();
+    }
+
+    /**
+     * The adaptive limit of concurrent calls from a REST client to each
+     * destination (host). The limit is increased by one for each limit number of
+     * fast calls and is decreased multiplicatively when calls fail or when the
+     * latency exceeds the tolerated ratio of the lowest observed latency (AIMD).
+     */
+    @Value.Immutable
+    public interface ConcurrencyLimitConfig {
+        @Value.Default
+        public default int initialLimit() {
+            return 10;
+        }
+
+        @Value.Default
+        public default int minLimit() {
+            return 1;
+        }
+
+        @Value.Default
+        public default int maxLimit() {
+            return 100;
+        }
+
+        /**
+         * Calls slower than this times the lowest observed latency decreases the
+         * limit.
+         */
+        @Value.Default
+        public default double latencyTolerance() {
+            return 2.0;
+        }
+
+        /**
+         * The factor that the limit is multiplied with when it is decreased.
+         */
+        @Value.Default
+        public default double backoffRatio() {
+            return 0.9;
+        }
+
+        /**
+         * The max number of calls to one destination waiting for the limit. More
+         * calls are rejected.
+         */
+        @Value.Default
+        public default int maxWaitingCalls() {
+            return 1000;
+        }
+
+        /**
+         * The max number of concurrent calls of one kind of callback, to all
+         * destinations, when notifying many destinations.
+         */
+        @Value.Default
+        public default int maxFanOut() {
+            return 100;
+        }
+    }
+
+    @Value.Default
+    public default ConcurrencyLimitConfig concurrencyLimitConfig() {
+        return ImmutableConcurrencyLimitConfig.builder().build();
+    }
+
+    /**
+     * The budget for retries of failed calls to each destination (host). Within
+     * the window, the number of retries is limited to retryRatio times the number
+     * of requests plus minRetriesPerSecond times the length of the window.
+     */
+    @Value.Immutable
+    public interface RetryBudgetConfig {
+        @Value.Default
+        public default double retryRatio() {
+            return 0.2;
+        }
+
+        @Value.Default
+        public default double minRetriesPerSecond() {
+            return 1;
+        }
+
+        @Value.Default
+        public default Duration window() {
+            return Duration.ofSeconds(10);
+        }
+
+        /**
+         * The delay before the first retry, doubled for each retry.
+         */
+        @Value.Default
+        public default Duration minBackoff() {
+            return Duration.ofSeconds(1);
+        }
+
+        @Value.Default
+        public default Duration maxBackoff() {
+            return Duration.ofSeconds(30);
+        }
+
+        /**
+         * The random variation of each delay, as a ratio of the delay.
+         */
+        @Value.Default
+        public default double jitter() {
+            return 0.5;
+        }
+    }
+
+    @Value.Default
+    public default RetryBudgetConfig retryBudgetConfig() {
+        return ImmutableRetryBudgetConfig.builder().build();
+    }
+
+    /**
+     * The resolution of host names of the callback URLs, which is cached. Failed
+     * resolutions are cached for a shorter time than successful ones.
+     */
+    @Value.Immutable
+    public interface DnsConfig {
+        @Value.Default
+        public default Duration positiveTtl() {
+            return Duration.ofMinutes(5);
+        }
+
+        @Value.Default
+        public default Duration negativeTtl() {
+            return Duration.ofSeconds(30);
+        }
+
+        @Value.Default
+        public default int maxCacheSize() {
+            return 10000;
+        }
+
+        @Value.Default
+        public default Duration queryTimeout() {
+            return Duration.ofSeconds(5);
+        }
+
+        /**
+         * A file in hosts file format with names that are resolved without DNS,
+         * empty if not used.
+         */
+        @Value.Default
+        public default String hostsFile() {
+            return "";
+        }
+    }
+
+    @Value.Default
+    public default DnsConfig dnsConfig() {
+        return ImmutableDnsConfig.builder().build();
+    }
+
 }
@@ -0,0 +1,163 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.controllers;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Response for a listing of identifiers. The identifiers are written to the
+ * response while they are read, either as a JSON array or, if the client
+ * accepts application/x-ndjson, as one JSON string per line.
+ *
+ * A page of the listing is selected by a cursor; the identifiers after a given
+ * identifier, in lexicographic order. The last identifier of a page is the
+ * cursor for the next one.
+ */
+public class IdListing {
+    private static Gson gson = new GsonBuilder().create();
+
+    public static final String LIMIT_PARAM = "limit";
+    public static final String LIMIT_PARAM_DESCRIPTION =
+        "the maximum number of identifiers to return. When given, the identifiers are sorted.";
+
+    public static final String AFTER_PARAM = "after";
+    public static final String AFTER_PARAM_DESCRIPTION =
+        "selects the identifiers after the given one (cursor), typically the last identifier of the previous page";
+
+    private IdListing() {
+    }
+
+    /**
+     * @param ids the identifiers to list, consumed when the response is written
+     * @param after only identifiers greater than this are listed, or null
+     * @param limit the maximum number of identifiers, or null for all. When given,
+     *        the identifiers are sorted, which requires memory for limit
+     *        identifiers.
+     * @param accept the Accept header of the request, or null
+     * @return the response
+     */
+    public static ResponseEntity<StreamingResponseBody> create(Stream<String> ids, String after, Integer limit,
+        String accept) {
+        if (limit != null && limit < 1) {
+            return toStreaming(ErrorResponse.create("Invalid limit: " + limit, HttpStatus.BAD_REQUEST));
+        }
+        Stream<String> selected = after == null ? ids : ids.filter(id -> id.compareTo(after) > 0);
+        if (limit != null) {
+            selected = firstInOrder(selected, limit);
+        }
+        return respond(selected, accept);
+    }
+
+    /**
+     * Same as {@link #create(Stream, String, Integer, String)}, but for
+     * identifiers that are already sorted and start after the cursor. A page then
+     * costs no more than the identifiers in it.
+     *
+     * @param sortedIds the identifiers after the cursor, in lexicographic order
+     */
+    public static ResponseEntity<StreamingResponseBody> createSorted(Stream<String> sortedIds, Integer limit,
+        String accept) {
+        if (limit != null && limit < 1) {
+            return toStreaming(ErrorResponse.create("Invalid limit: " + limit, HttpStatus.BAD_REQUEST));
+        }
+        return respond(limit == null ? sortedIds : sortedIds.limit(limit), accept);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> respond(Stream<String> listing, String accept) {
+        final boolean isNdJson = isNdJsonAccepted(accept);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(isNdJson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON);
+        StreamingResponseBody body = out -> {
+            try (Stream<String> s = listing) {
+                write(s.iterator(), isNdJson, out);
+            }
+        };
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Converts an error response created by {@link ErrorResponse} so that it can
+     * be returned by a method that lists identifiers.
+     */
+    public static ResponseEntity<StreamingResponseBody> toStreaming(ResponseEntity<Object> response) {
+        byte[] bytes = String.valueOf(response.getBody()).getBytes(StandardCharsets.UTF_8);
+        return new ResponseEntity<>(out -> out.write(bytes), response.getHeaders(), response.getStatusCode());
+    }
+
+    private static boolean isNdJsonAccepted(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        return MediaType.parseMediaTypes(accept).stream()
+            .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    }
+
+    // Selects the smallest identifiers, at most limit of them are kept in memory
+    private static Stream<String> firstInOrder(Stream<String> ids, int limit) {
+        TreeSet<String> first = new TreeSet<>();
+        ids.forEach(id -> {
+            if (first.size() < limit) {
+                first.add(id);
+            } else if (id.compareTo(first.last()) < 0 && first.add(id)) {
+                first.pollLast();
+            }
+        });
+        return first.stream();
+    }
+
+    private static void write(Iterator<String> ids, boolean isNdJson, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        if (!isNdJson) {
+            writer.write('[');
+        }
+        boolean isFirst = true;
+        while (ids.hasNext()) {
+            if (!isNdJson && !isFirst) {
+                writer.write(',');
+            }
+            writer.write(gson.toJson(ids.next()));
+            if (isNdJson) {
+                writer.write('\n');
+            }
+            isFirst = false;
+        }
+        if (!isNdJson) {
+            writer.write(']');
+        }
+        writer.flush();
+    }
+}
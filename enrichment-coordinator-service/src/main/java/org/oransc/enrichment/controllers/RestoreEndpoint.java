@@ -0,0 +1,60 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.oransc.enrichment.datastore.RestoreProgress;
+import org.oransc.enrichment.repository.InfoJobs;
+import org.oransc.enrichment.repository.InfoTypeSubscriptions;
+import org.oransc.enrichment.repository.InfoTypes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for the progress and timing of the restore of the
+ * repositories from the database, made at startup.
+ */
+@Component
+@Endpoint(id = "restore")
+public class RestoreEndpoint {
+
+    @Autowired
+    private InfoJobs infoJobs;
+
+    @Autowired
+    private InfoTypes infoTypes;
+
+    @Autowired
+    private InfoTypeSubscriptions infoTypeSubscriptions;
+
+    @ReadOperation
+    public Map<String, RestoreProgress> restoreProgress() {
+        Map<String, RestoreProgress> result = new LinkedHashMap<>();
+        result.put("infoTypes", infoTypes.getRestoreProgress());
+        result.put("infoJobs", infoJobs.getRestoreProgress());
+        result.put("infoTypeSubscriptions", infoTypeSubscriptions.getRestoreProgress());
+        return result;
+    }
+}
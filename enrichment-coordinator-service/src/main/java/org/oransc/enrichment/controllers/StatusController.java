@@ -24,13 +24,18 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.gson.annotations.SerializedName;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.immutables.gson.Gson;
+import org.oransc.enrichment.clients.CircuitBreakers;
 import org.oransc.enrichment.repository.InfoJobs;
 import org.oransc.enrichment.repository.InfoProducers;
 import org.oransc.enrichment.repository.InfoTypes;
@@ -58,6 +63,9 @@ public class StatusController {
     @Autowired
     private InfoProducers infoProducers;
 
+    @Autowired
+    private CircuitBreakers circuitBreakers;
+
     @Gson.TypeAdapters
     @Schema(name = "service_status_info")
     public static class StatusInfo {
@@ -81,14 +89,51 @@ public class StatusController {
         @JsonProperty(value = "no_of_jobs", required = true)
         public final int noOfJobs;
 
+        @Schema(name = "no_of_disabled_jobs", description = "Number of Information Jobs not enabled in any producer")
+        @SerializedName("no_of_disabled_jobs")
+        @JsonProperty(value = "no_of_disabled_jobs", required = true)
+        public final int noOfDisabledJobs;
+
         public StatusInfo(String status, InfoProducers producers, InfoTypes types, InfoJobs jobs) {
             this.status = status;
             this.noOfJobs = jobs.size();
+            this.noOfDisabledJobs = producers.getNoOfJobsEnabledNowhere();
             this.noOfProducers = producers.size();
             this.noOfTypes = types.size();
         }
     }
 
+    @Gson.TypeAdapters
+    @Schema(name = "circuit_breaker_info")
+    public static class CircuitBreakerInfo {
+        @Schema(name = "destination", description = "the called host and port")
+        @SerializedName("destination")
+        @JsonProperty(value = "destination", required = true)
+        public final String destination;
+
+        @Schema(name = "state", description = "CLOSED, OPEN (calls are rejected) or HALF_OPEN (calls are probing)")
+        @SerializedName("state")
+        @JsonProperty(value = "state", required = true)
+        public final CircuitBreakers.State state;
+
+        @Schema(name = "consecutive_failures", description = "Number of consecutive failed calls")
+        @SerializedName("consecutive_failures")
+        @JsonProperty(value = "consecutive_failures", required = true)
+        public final int consecutiveFailures;
+
+        @Schema(name = "in_flight_calls", description = "Number of ongoing calls")
+        @SerializedName("in_flight_calls")
+        @JsonProperty(value = "in_flight_calls", required = true)
+        public final int inFlightCalls;
+
+        public CircuitBreakerInfo(CircuitBreakers.CircuitBreaker breaker) {
+            this.destination = breaker.getDestination();
+            this.state = breaker.getState();
+            this.consecutiveFailures = breaker.getConsecutiveFailures();
+            this.inFlightCalls = breaker.getInFlightCalls();
+        }
+    }
+
     @GetMapping(path = "/status", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Returns status and statistics of this service")
     @ApiResponses(
@@ -103,4 +148,20 @@ public class StatusController {
         return Mono.just(new ResponseEntity<>(info, HttpStatus.OK));
     }
 
+    @GetMapping(path = "/status/circuit-breakers", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Returns the circuit breaker state of each called destination")
+    @ApiResponses(
+        value = { //
+            @ApiResponse(
+                responseCode = "200",
+                description = "Circuit breaker states", //
+                content = @Content(
+                    array = @ArraySchema(schema = @Schema(implementation = CircuitBreakerInfo.class)))) //
+        })
+    public Mono<ResponseEntity<Object>> getCircuitBreakers() {
+        List<CircuitBreakerInfo> result = new ArrayList<>();
+        this.circuitBreakers.getAll().forEach(breaker -> result.add(new CircuitBreakerInfo(breaker)));
+        return Mono.just(new ResponseEntity<>(result, HttpStatus.OK));
+    }
+
 }
@@ -28,6 +28,9 @@ import java.util.Collection;
 
 import org.oransc.enrichment.clients.AsyncRestClient;
 import org.oransc.enrichment.clients.AsyncRestClientFactory;
+import org.oransc.enrichment.clients.CachingDnsResolver;
+import org.oransc.enrichment.clients.CallMetrics;
+import org.oransc.enrichment.clients.CircuitBreakers;
 import org.oransc.enrichment.configuration.ApplicationConfig;
 import org.oransc.enrichment.repository.InfoJob;
 import org.oransc.enrichment.repository.InfoJobs;
@@ -54,21 +57,37 @@ public class A1eCallbacks {
     private final AsyncRestClient restClient;
     private final InfoJobs eiJobs;
     private final InfoProducers eiProducers;
+    private final int maxFanOut;
 
     @Autowired
-    public A1eCallbacks(ApplicationConfig config, InfoJobs eiJobs, InfoProducers eiProducers) {
-        AsyncRestClientFactory restClientFactory = new AsyncRestClientFactory(config.getWebClientConfig());
-        this.restClient = restClientFactory.createRestClientUseHttpProxy("");
+    public A1eCallbacks(ApplicationConfig config, InfoJobs eiJobs, InfoProducers eiProducers,
+        CircuitBreakers circuitBreakers, CachingDnsResolver dnsResolver) {
+        AsyncRestClientFactory restClientFactory =
+            new AsyncRestClientFactory(config.getWebClientConfig(), "a1e-callbacks", circuitBreakers, dnsResolver);
+        this.restClient = restClientFactory.createRestClientUseHttpProxy("", CallMetrics.STATUS_NOTIFY);
         this.eiJobs = eiJobs;
         this.eiProducers = eiProducers;
+        this.maxFanOut = config.getWebClientConfig().concurrencyLimitConfig().maxFanOut();
     }
 
     public Flux<String> notifyJobStatus(Collection<InfoType> eiTypes) {
-        return Flux.fromIterable(eiTypes) //
-            .flatMap(eiType -> Flux.fromIterable(this.eiJobs.getJobsForType(eiType))) //
+        return notifyJobStatus(Flux.fromIterable(eiTypes) //
+            .flatMap(eiType -> Flux.fromIterable(this.eiJobs.getJobsForType(eiType))));
+    }
+
+    /**
+     * Notifies the owners of the given jobs, for the jobs which status is changed
+     * since last notified.
+     */
+    public Flux<String> notifyJobStatusOfJobs(Collection<InfoJob> jobs) {
+        return notifyJobStatus(Flux.fromIterable(jobs));
+    }
+
+    private Flux<String> notifyJobStatus(Flux<InfoJob> jobs) {
+        return jobs //
             .filter(eiJob -> !eiJob.getJobStatusUrl().isEmpty()) //
             .filter(eiJob -> this.eiProducers.isJobEnabled(eiJob) != eiJob.isLastStatusReportedEnabled())
-            .flatMap(this::noifyStatusToJobOwner);
+            .flatMap(this::noifyStatusToJobOwner, maxFanOut);
     }
 
     private Mono<String> noifyStatusToJobOwner(InfoJob job) {
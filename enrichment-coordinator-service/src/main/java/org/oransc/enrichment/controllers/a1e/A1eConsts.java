@@ -35,6 +35,13 @@ public class A1eConsts {
     public static final String EI_TYPE_ID_PARAM = "eiTypeId";
     public static final String EI_TYPE_ID_PARAM_DESCRIPTION = "selects EI jobs of matching EI type";
 
+    public static final String JOB_RESULT_URI_PARAM = "jobResultUri";
+    public static final String JOB_RESULT_URI_PARAM_DESCRIPTION = "selects EI jobs with matching job result URI";
+
+    public static final String UPDATED_SINCE_PARAM = "updatedSince";
+    public static final String UPDATED_SINCE_PARAM_DESCRIPTION =
+        "selects EI jobs created or modified at or after the given time (ISO-8601), for instance 2021-09-01T12:00:00Z";
+
     private A1eConsts() {
     }
 }
@@ -36,12 +36,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.stream.Stream;
 
 import org.json.JSONObject;
 import org.oransc.enrichment.configuration.ApplicationConfig;
 import org.oransc.enrichment.controllers.ErrorResponse;
+import org.oransc.enrichment.controllers.IdListing;
 import org.oransc.enrichment.controllers.VoidResponse;
 import org.oransc.enrichment.controllers.r1producer.ProducerCallbacks;
 import org.oransc.enrichment.exceptions.ServiceException;
@@ -53,6 +55,7 @@ import org.oransc.enrichment.repository.InfoTypes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -61,9 +64,11 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import reactor.core.publisher.Mono;
 
 @SuppressWarnings("java:S3457") // No need to call "toString()" method as formatting and string ..
@@ -91,7 +96,7 @@ public class A1eController {
 
     private static Gson gson = new GsonBuilder().create();
 
-    @GetMapping(path = "/eitypes", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(path = "/eitypes", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     @Operation(summary = "EI type identifiers", description = "")
     @ApiResponses(
         value = { //
@@ -99,15 +104,25 @@ public class A1eController {
                 responseCode = "200",
                 description = "EI type identifiers", //
                 content = @Content(array = @ArraySchema(schema = @Schema(implementation = String.class)))), //
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid query parameter", //
+                content = @Content(schema = @Schema(implementation = ErrorResponse.ErrorInfo.class))) //
         })
-    public ResponseEntity<Object> getEiTypeIdentifiers( //
-    ) {
-        List<String> result = new ArrayList<>();
-        for (InfoType eiType : this.eiTypes.getAllInfoTypes()) {
-            result.add(eiType.getId());
-        }
-
-        return new ResponseEntity<>(gson.toJson(result), HttpStatus.OK);
+    public ResponseEntity<StreamingResponseBody> getEiTypeIdentifiers( //
+        @Parameter(
+            name = IdListing.LIMIT_PARAM,
+            required = false, //
+            description = IdListing.LIMIT_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.LIMIT_PARAM, required = false) Integer limit,
+        @Parameter(
+            name = IdListing.AFTER_PARAM,
+            required = false, //
+            description = IdListing.AFTER_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.AFTER_PARAM, required = false) String after,
+        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        Stream<String> typeIds = this.eiTypes.getAllInfoTypes().stream().map(InfoType::getId);
+        return IdListing.create(typeIds, after, limit, accept);
     }
 
     @GetMapping(path = "/eitypes/{eiTypeId}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -134,7 +149,7 @@ public class A1eController {
         }
     }
 
-    @GetMapping(path = "/eijobs", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(path = "/eijobs", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     @Operation(summary = "EI job identifiers", description = "query for EI job identifiers")
     @ApiResponses(
         value = { //
@@ -142,12 +157,16 @@ public class A1eController {
                 responseCode = "200",
                 description = "EI job identifiers", //
                 content = @Content(array = @ArraySchema(schema = @Schema(implementation = String.class)))),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid query parameter", //
+                content = @Content(schema = @Schema(implementation = ErrorResponse.ErrorInfo.class))), //
             @ApiResponse(
                 responseCode = "404",
                 description = "Enrichment Information type is not found", //
                 content = @Content(schema = @Schema(implementation = ErrorResponse.ErrorInfo.class))) //
         })
-    public ResponseEntity<Object> getEiJobIds( //
+    public ResponseEntity<StreamingResponseBody> getEiJobIds( //
         @Parameter(
             name = A1eConsts.EI_TYPE_ID_PARAM,
             required = false, //
@@ -157,26 +176,41 @@ public class A1eController {
             name = A1eConsts.OWNER_PARAM,
             required = false, //
             description = A1eConsts.OWNER_PARAM_DESCRIPTION) //
-        @RequestParam(name = A1eConsts.OWNER_PARAM, required = false) String owner) {
+        @RequestParam(name = A1eConsts.OWNER_PARAM, required = false) String owner,
+        @Parameter(
+            name = A1eConsts.JOB_RESULT_URI_PARAM,
+            required = false, //
+            description = A1eConsts.JOB_RESULT_URI_PARAM_DESCRIPTION) //
+        @RequestParam(name = A1eConsts.JOB_RESULT_URI_PARAM, required = false) String jobResultUri,
+        @Parameter(
+            name = A1eConsts.UPDATED_SINCE_PARAM,
+            required = false, //
+            description = A1eConsts.UPDATED_SINCE_PARAM_DESCRIPTION) //
+        @RequestParam(name = A1eConsts.UPDATED_SINCE_PARAM, required = false) String updatedSince,
+        @Parameter(
+            name = IdListing.LIMIT_PARAM,
+            required = false, //
+            description = IdListing.LIMIT_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.LIMIT_PARAM, required = false) Integer limit,
+        @Parameter(
+            name = IdListing.AFTER_PARAM,
+            required = false, //
+            description = IdListing.AFTER_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.AFTER_PARAM, required = false) String after,
+        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        Instant updatedSinceTime;
         try {
-            List<String> result = new ArrayList<>();
-            if (owner != null) {
-                for (InfoJob job : this.eiJobs.getJobsForOwner(owner)) {
-                    if (eiTypeId == null || job.getTypeId().equals(eiTypeId)) {
-                        result.add(job.getId());
-                    }
-                }
-            } else if (eiTypeId != null) {
-                this.eiJobs.getJobsForType(eiTypeId).forEach(job -> result.add(job.getId()));
-            } else {
-                this.eiJobs.getJobs().forEach(job -> result.add(job.getId()));
-            }
-            return new ResponseEntity<>(gson.toJson(result), HttpStatus.OK);
-        } catch (
-
-        Exception e) {
-            return ErrorResponse.create(e, HttpStatus.NOT_FOUND);
+            updatedSinceTime = updatedSince == null ? null : Instant.parse(updatedSince);
+        } catch (DateTimeParseException e) {
+            return IdListing.toStreaming(
+                ErrorResponse.create("Invalid time: " + e.getMessage(), HttpStatus.BAD_REQUEST));
+        }
+        if (eiTypeId == null && owner == null && jobResultUri == null && updatedSinceTime == null) {
+            return IdListing.createSorted(this.eiJobs.streamJobIds(after), limit, accept);
         }
+        Stream<String> jobIds =
+            this.eiJobs.streamJobs(eiTypeId, owner, jobResultUri, updatedSinceTime).map(InfoJob::getId);
+        return IdListing.create(jobIds, after, limit, accept);
     }
 
     @GetMapping(path = "/eijobs/{eiJobId}", produces = MediaType.APPLICATION_JSON_VALUE) //
@@ -286,8 +320,10 @@ public class A1eController {
         final boolean isNewJob = this.eiJobs.get(eiJobId) == null;
 
         return validatePutEiJob(eiJobId, eiJobObject) //
-            .flatMap(this::startEiJob) //
-            .doOnNext(newEiJob -> this.eiJobs.put(newEiJob)) //
+            .doOnNext(this.eiJobs::prepareForPut) //
+            .flatMap(job -> startEiJob(job) //
+                .doOnNext(newEiJob -> this.eiJobs.put(newEiJob)) //
+                .doFinally(signal -> this.eiJobs.finishPut(job, this.infoProducers))) //
             .flatMap(newEiJob -> Mono.just(new ResponseEntity<>(isNewJob ? HttpStatus.CREATED : HttpStatus.OK)))
             .onErrorResume(throwable -> Mono.just(ErrorResponse.create(throwable, HttpStatus.NOT_FOUND)));
     }
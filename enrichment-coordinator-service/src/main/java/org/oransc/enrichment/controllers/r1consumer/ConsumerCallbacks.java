@@ -25,6 +25,9 @@ import com.google.gson.GsonBuilder;
 
 import org.oransc.enrichment.clients.AsyncRestClient;
 import org.oransc.enrichment.clients.AsyncRestClientFactory;
+import org.oransc.enrichment.clients.CachingDnsResolver;
+import org.oransc.enrichment.clients.CallMetrics;
+import org.oransc.enrichment.clients.CircuitBreakers;
 import org.oransc.enrichment.configuration.ApplicationConfig;
 import org.oransc.enrichment.repository.InfoType;
 import org.oransc.enrichment.repository.InfoTypeSubscriptions;
@@ -46,9 +49,11 @@ public class ConsumerCallbacks implements InfoTypeSubscriptions.ConsumerCallback
     public static final String API_VERSION = "version_1";
 
     public ConsumerCallbacks(@Autowired ApplicationConfig config,
-        @Autowired InfoTypeSubscriptions infoTypeSubscriptions) {
-        AsyncRestClientFactory restClientFactory = new AsyncRestClientFactory(config.getWebClientConfig());
-        this.restClient = restClientFactory.createRestClientNoHttpProxy("");
+        @Autowired InfoTypeSubscriptions infoTypeSubscriptions, @Autowired CircuitBreakers circuitBreakers,
+        @Autowired CachingDnsResolver dnsResolver) {
+        AsyncRestClientFactory restClientFactory =
+            new AsyncRestClientFactory(config.getWebClientConfig(), "consumer-callbacks", circuitBreakers, dnsResolver);
+        this.restClient = restClientFactory.createRestClientNoHttpProxy("", CallMetrics.TYPE_NOTIFY);
         infoTypeSubscriptions.registerCallbackhandler(this, API_VERSION);
     }
 
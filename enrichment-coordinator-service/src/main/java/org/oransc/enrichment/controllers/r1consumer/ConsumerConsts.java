@@ -39,6 +39,14 @@ public class ConsumerConsts {
     public static final String INFO_TYPE_ID_PARAM_DESCRIPTION =
         "selects subscription jobs of matching information type";
 
+    public static final String JOB_RESULT_URI_PARAM = "jobResultUri";
+    public static final String JOB_RESULT_URI_PARAM_DESCRIPTION =
+        "selects subscription jobs with matching job result URI";
+
+    public static final String UPDATED_SINCE_PARAM = "updatedSince";
+    public static final String UPDATED_SINCE_PARAM_DESCRIPTION =
+        "selects subscription jobs created or modified at or after the given time (ISO-8601), for instance 2021-09-01T12:00:00Z";
+
     public static final String PERFORM_TYPE_CHECK_PARAM = "typeCheck";
     public static final String PERFORM_TYPE_CHECK_PARAM_DESCRIPTION =
         "when true, a validation of that the type exists and that the job matches the type schema.";
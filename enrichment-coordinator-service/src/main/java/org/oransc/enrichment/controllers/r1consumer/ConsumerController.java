@@ -36,12 +36,15 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.json.JSONObject;
 import org.oransc.enrichment.controllers.ErrorResponse;
+import org.oransc.enrichment.controllers.IdListing;
 import org.oransc.enrichment.controllers.VoidResponse;
 import org.oransc.enrichment.controllers.r1producer.ProducerCallbacks;
 import org.oransc.enrichment.exceptions.ServiceException;
@@ -55,6 +58,7 @@ import org.oransc.enrichment.repository.InfoTypes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -63,9 +67,11 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import reactor.core.publisher.Mono;
 
 @SuppressWarnings("java:S3457") // No need to call "toString()" method as formatting and string ..
@@ -92,7 +98,7 @@ public class ConsumerController {
         this.producerCallbacks = producerCallbacks;
     }
 
-    @GetMapping(path = "/info-types", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(path = "/info-types", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     @Operation(summary = "Information type identifiers", description = "")
     @ApiResponses(
         value = { //
@@ -100,15 +106,25 @@ public class ConsumerController {
                 responseCode = "200",
                 description = "Information type identifiers", //
                 content = @Content(array = @ArraySchema(schema = @Schema(implementation = String.class)))), //
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid query parameter", //
+                content = @Content(schema = @Schema(implementation = ErrorResponse.ErrorInfo.class))) //
         })
-    public ResponseEntity<Object> getinfoTypeIdentifiers( //
-    ) {
-        List<String> result = new ArrayList<>();
-        for (InfoType infoType : this.infoTypes.getAllInfoTypes()) {
-            result.add(infoType.getId());
-        }
-
-        return new ResponseEntity<>(gson.toJson(result), HttpStatus.OK);
+    public ResponseEntity<StreamingResponseBody> getinfoTypeIdentifiers( //
+        @Parameter(
+            name = IdListing.LIMIT_PARAM,
+            required = false, //
+            description = IdListing.LIMIT_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.LIMIT_PARAM, required = false) Integer limit,
+        @Parameter(
+            name = IdListing.AFTER_PARAM,
+            required = false, //
+            description = IdListing.AFTER_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.AFTER_PARAM, required = false) String after,
+        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        Stream<String> typeIds = this.infoTypes.getAllInfoTypes().stream().map(InfoType::getId);
+        return IdListing.create(typeIds, after, limit, accept);
     }
 
     @GetMapping(path = "/info-types/{infoTypeId}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -135,7 +151,7 @@ public class ConsumerController {
         }
     }
 
-    @GetMapping(path = "/info-jobs", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(path = "/info-jobs", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     @Operation(summary = "Information Job identifiers", description = "query for information job identifiers")
     @ApiResponses(
         value = { //
@@ -143,12 +159,16 @@ public class ConsumerController {
                 responseCode = "200",
                 description = "Information information job identifiers", //
                 content = @Content(array = @ArraySchema(schema = @Schema(implementation = String.class)))),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid query parameter", //
+                content = @Content(schema = @Schema(implementation = ErrorResponse.ErrorInfo.class))), //
             @ApiResponse(
                 responseCode = "404",
                 description = "Information type is not found", //
                 content = @Content(schema = @Schema(implementation = ErrorResponse.ErrorInfo.class))) //
         })
-    public ResponseEntity<Object> getJobIds( //
+    public ResponseEntity<StreamingResponseBody> getJobIds( //
         @Parameter(
             name = ConsumerConsts.INFO_TYPE_ID_PARAM,
             required = false, //
@@ -158,26 +178,41 @@ public class ConsumerController {
             name = ConsumerConsts.OWNER_PARAM,
             required = false, //
             description = ConsumerConsts.OWNER_PARAM_DESCRIPTION) //
-        @RequestParam(name = ConsumerConsts.OWNER_PARAM, required = false) String owner) {
+        @RequestParam(name = ConsumerConsts.OWNER_PARAM, required = false) String owner,
+        @Parameter(
+            name = ConsumerConsts.JOB_RESULT_URI_PARAM,
+            required = false, //
+            description = ConsumerConsts.JOB_RESULT_URI_PARAM_DESCRIPTION) //
+        @RequestParam(name = ConsumerConsts.JOB_RESULT_URI_PARAM, required = false) String jobResultUri,
+        @Parameter(
+            name = ConsumerConsts.UPDATED_SINCE_PARAM,
+            required = false, //
+            description = ConsumerConsts.UPDATED_SINCE_PARAM_DESCRIPTION) //
+        @RequestParam(name = ConsumerConsts.UPDATED_SINCE_PARAM, required = false) String updatedSince,
+        @Parameter(
+            name = IdListing.LIMIT_PARAM,
+            required = false, //
+            description = IdListing.LIMIT_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.LIMIT_PARAM, required = false) Integer limit,
+        @Parameter(
+            name = IdListing.AFTER_PARAM,
+            required = false, //
+            description = IdListing.AFTER_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.AFTER_PARAM, required = false) String after,
+        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        Instant updatedSinceTime;
         try {
-            List<String> result = new ArrayList<>();
-            if (owner != null) {
-                for (InfoJob job : this.infoJobs.getJobsForOwner(owner)) {
-                    if (infoTypeId == null || job.getTypeId().equals(infoTypeId)) {
-                        result.add(job.getId());
-                    }
-                }
-            } else if (infoTypeId != null) {
-                this.infoJobs.getJobsForType(infoTypeId).forEach(job -> result.add(job.getId()));
-            } else {
-                this.infoJobs.getJobs().forEach(job -> result.add(job.getId()));
-            }
-            return new ResponseEntity<>(gson.toJson(result), HttpStatus.OK);
-        } catch (
-
-        Exception e) {
-            return ErrorResponse.create(e, HttpStatus.NOT_FOUND);
+            updatedSinceTime = updatedSince == null ? null : Instant.parse(updatedSince);
+        } catch (DateTimeParseException e) {
+            return IdListing.toStreaming(
+                ErrorResponse.create("Invalid time: " + e.getMessage(), HttpStatus.BAD_REQUEST));
         }
+        if (infoTypeId == null && owner == null && jobResultUri == null && updatedSinceTime == null) {
+            return IdListing.createSorted(this.infoJobs.streamJobIds(after), limit, accept);
+        }
+        Stream<String> jobIds =
+            this.infoJobs.streamJobs(infoTypeId, owner, jobResultUri, updatedSinceTime).map(InfoJob::getId);
+        return IdListing.create(jobIds, after, limit, accept);
     }
 
     @GetMapping(path = "/info-jobs/{infoJobId}", produces = MediaType.APPLICATION_JSON_VALUE) //
@@ -299,13 +334,17 @@ public class ConsumerController {
         final boolean isNewJob = this.infoJobs.get(jobId) == null;
 
         return validatePutInfoJob(jobId, informationJobObject, performTypeCheck) //
-            .flatMap(this::startInfoSubscriptionJob) //
-            .doOnNext(this.infoJobs::put) //
+            .doOnNext(this.infoJobs::prepareForPut) //
+            .flatMap(job -> startInfoSubscriptionJob(job) //
+                .doOnNext(this.infoJobs::put) //
+                .doFinally(signal -> this.infoJobs.finishPut(job, this.infoProducers))) //
             .flatMap(newEiJob -> Mono.just(new ResponseEntity<>(isNewJob ? HttpStatus.CREATED : HttpStatus.OK)))
             .onErrorResume(throwable -> Mono.just(ErrorResponse.create(throwable, HttpStatus.NOT_FOUND)));
     }
 
-    @GetMapping(path = "/info-type-subscription", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(
+        path = "/info-type-subscription",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     @Operation(
         summary = "Information type subscription identifiers",
         description = "query for information type subscription identifiers")
@@ -314,27 +353,35 @@ public class ConsumerController {
             @ApiResponse(
                 responseCode = "200",
                 description = "Information type subscription identifiers", //
-                content = @Content(array = @ArraySchema(schema = @Schema(implementation = String.class)))),})
-    public ResponseEntity<Object> getInfoTypeSubscriptions( //
+                content = @Content(array = @ArraySchema(schema = @Schema(implementation = String.class)))), //
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid query parameter", //
+                content = @Content(schema = @Schema(implementation = ErrorResponse.ErrorInfo.class))) //
+        })
+    public ResponseEntity<StreamingResponseBody> getInfoTypeSubscriptions( //
 
         @Parameter(
             name = ConsumerConsts.OWNER_PARAM,
             required = false, //
             description = ConsumerConsts.OWNER_PARAM_DESCRIPTION) //
-        @RequestParam(name = ConsumerConsts.OWNER_PARAM, required = false) String owner) {
-        try {
-            List<String> result = new ArrayList<>();
-            if (owner != null) {
-                this.infoTypeSubscriptions.getSubscriptionsForOwner(owner)
-                    .forEach(subscription -> result.add(subscription.getId()));
-            } else {
-                this.infoTypeSubscriptions.getAllSubscriptions()
-                    .forEach(subscription -> result.add(subscription.getId()));
-            }
-            return new ResponseEntity<>(gson.toJson(result), HttpStatus.OK);
-        } catch (Exception e) {
-            return ErrorResponse.create(e, HttpStatus.NOT_FOUND);
-        }
+        @RequestParam(name = ConsumerConsts.OWNER_PARAM, required = false) String owner,
+        @Parameter(
+            name = IdListing.LIMIT_PARAM,
+            required = false, //
+            description = IdListing.LIMIT_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.LIMIT_PARAM, required = false) Integer limit,
+        @Parameter(
+            name = IdListing.AFTER_PARAM,
+            required = false, //
+            description = IdListing.AFTER_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.AFTER_PARAM, required = false) String after,
+        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        Collection<InfoTypeSubscriptions.SubscriptionInfo> subscriptions = owner != null
+            ? this.infoTypeSubscriptions.getSubscriptionsForOwner(owner)
+            : this.infoTypeSubscriptions.getAllSubscriptions();
+        Stream<String> subscriptionIds = subscriptions.stream().map(InfoTypeSubscriptions.SubscriptionInfo::getId);
+        return IdListing.create(subscriptionIds, after, limit, accept);
     }
 
     @GetMapping(path = "/info-type-subscription/{subscriptionId}", produces = MediaType.APPLICATION_JSON_VALUE) //
@@ -22,13 +22,31 @@ package org.oransc.enrichment.controllers.r1producer;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.invoke.MethodHandles;
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.oransc.enrichment.clients.AsyncRestClient;
 import org.oransc.enrichment.clients.AsyncRestClientFactory;
+import org.oransc.enrichment.clients.CachingDnsResolver;
+import org.oransc.enrichment.clients.CallMetrics;
+import org.oransc.enrichment.clients.CircuitBreakers;
+import org.oransc.enrichment.clients.RetryBudgets;
 import org.oransc.enrichment.configuration.ApplicationConfig;
 import org.oransc.enrichment.repository.InfoJob;
 import org.oransc.enrichment.repository.InfoJobs;
@@ -37,9 +55,10 @@ import org.oransc.enrichment.repository.InfoProducers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
+import reactor.core.publisher.Sinks;
 
 /**
  * Callbacks to the Producer
@@ -50,27 +69,213 @@ public class ProducerCallbacks {
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
     private static Gson gson = new GsonBuilder().create();
 
-    private final AsyncRestClient restClient;
+    /**
+     * A job start request that is in flight to a producer.
+     */
+    private static class PendingStart {
+        final InfoJob job;
+        private final Sinks.One<String> result = Sinks.one();
+        private Disposable call = null;
+        private boolean isCancelled = false;
+
+        PendingStart(InfoJob job) {
+            this.job = job;
+        }
+
+        Mono<String> response() {
+            return result.asMono();
+        }
+
+        void setCall(Disposable call) {
+            synchronized (this) {
+                if (!isCancelled) {
+                    this.call = call;
+                    return;
+                }
+            }
+            call.dispose();
+        }
+
+        void emitValue(String value) {
+            result.tryEmitValue(value);
+        }
+
+        void emitError(Throwable throwable) {
+            result.tryEmitError(throwable);
+        }
+
+        void emitEmpty() {
+            result.tryEmitEmpty();
+        }
+
+        void cancel() {
+            cancelCall();
+            emitEmpty();
+        }
+
+        /**
+         * Cancels the request and emits the result of a later request instead.
+         */
+        void supersede(PendingStart later) {
+            cancelCall();
+            later.response().subscribe(this::emitValue, this::emitError, this::emitEmpty);
+        }
 
-    public ProducerCallbacks(ApplicationConfig config) {
-        AsyncRestClientFactory restClientFactory = new AsyncRestClientFactory(config.getWebClientConfig());
-        this.restClient = restClientFactory.createRestClientNoHttpProxy("");
+        private void cancelCall() {
+            Disposable c;
+            synchronized (this) {
+                isCancelled = true;
+                c = this.call;
+            }
+            if (c != null) {
+                c.dispose();
+            }
+        }
+    }
+
+    /**
+     * A bulk request, starting a chunk of jobs, that is in flight to a producer.
+     * The request is shared by all jobs in the chunk, so a job that is cancelled
+     * only drops its part of the result.
+     */
+    private static class PendingBulkStart {
+        private final Set<String> jobIds = new HashSet<>();
+
+        PendingBulkStart(List<InfoJob> jobs) {
+            jobs.forEach(job -> jobIds.add(job.getId()));
+        }
+
+        synchronized void cancel(String jobId) {
+            jobIds.remove(jobId);
+        }
+
+        /**
+         * Applies the result to the jobs that are not cancelled. A job that is
+         * cancelled after this is stopped after the result is applied.
+         */
+        synchronized <T> T complete(List<InfoJob> jobs, Function<List<InfoJob>, T> result) {
+            List<InfoJob> remaining = new ArrayList<>(jobs.size());
+            for (InfoJob job : jobs) {
+                if (jobIds.contains(job.getId())) {
+                    remaining.add(job);
+                }
+            }
+            jobIds.clear();
+            return result.apply(remaining);
+        }
+    }
+
+    /**
+     * Identifies the start of a job in one producer. The producer is compared by
+     * identity, a producer that is registered again is a new producer.
+     */
+    private static class PendingStartKey {
+        final InfoProducer producer;
+        final String jobId;
+
+        PendingStartKey(InfoProducer producer, String jobId) {
+            this.producer = producer;
+            this.jobId = jobId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof PendingStartKey && ((PendingStartKey) other).producer == producer
+                && ((PendingStartKey) other).jobId.equals(jobId);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(producer) * 31 + jobId.hashCode();
+        }
+    }
+
+    private static class EncodedJob {
+        final InfoJob job;
+        final byte[] body;
+
+        EncodedJob(InfoJob job, byte[] body) {
+            this.job = job;
+            this.body = body;
+        }
+    }
+
+    private final AsyncRestClient healthCheckClient;
+    private final AsyncRestClient jobStartClient;
+    private final AsyncRestClient jobStopClient;
+    private final RetryBudgets retryBudgets;
+    private final int bulkChunkSize;
+    private final Map<String, EncodedJob> encodedJobs = new ConcurrentHashMap<>();
+    private final Map<PendingStartKey, PendingStart> pendingStarts = new ConcurrentHashMap<>();
+    private final Map<PendingStartKey, PendingBulkStart> pendingBulkStarts = new ConcurrentHashMap<>();
+
+    public ProducerCallbacks(ApplicationConfig config, CircuitBreakers circuitBreakers, RetryBudgets retryBudgets,
+        CachingDnsResolver dnsResolver) {
+        AsyncRestClientFactory restClientFactory =
+            new AsyncRestClientFactory(config.getWebClientConfig(), "producer-callbacks", circuitBreakers, dnsResolver);
+        this.healthCheckClient = restClientFactory.createRestClientNoHttpProxy("", CallMetrics.HEALTH_CHECK);
+        this.jobStartClient = restClientFactory.createRestClientNoHttpProxy("", CallMetrics.JOB_START);
+        this.jobStopClient = restClientFactory.createRestClientNoHttpProxy("", CallMetrics.JOB_STOP);
+        this.retryBudgets = retryBudgets;
+        this.bulkChunkSize = Math.max(1, config.getProducerBulkCallbackChunkSize());
     }
 
     public Mono<String> healthCheck(InfoProducer producer) {
-        return restClient.get(producer.getProducerSupervisionCallbackUrl());
+        return healthCheckClient.get(producer.getProducerSupervisionCallbackUrl());
     }
 
     public void stopInfoJob(InfoJob infoJob, InfoProducers infoProducers) {
         for (InfoProducer producer : getProducersForJob(infoJob, infoProducers)) {
-            String url = producer.getJobCallbackUrl() + "/" + infoJob.getId();
-            producer.setJobDisabled(infoJob);
-            restClient.delete(url) //
-                .subscribe(response -> logger.debug("Producer job deleted OK {}", producer.getId()), //
-                    throwable -> logger.warn("Producer job delete failed {} {}", producer.getId(),
-                        throwable.getMessage()),
-                    null);
+            stopInfoJob(producer, infoJob);
+        }
+    }
+
+    /**
+     * Stop several jobs in all producers that supports the job types. Producers
+     * supporting bulk callbacks are notified with one request per chunk of jobs.
+     */
+    public void stopInfoJobs(Collection<InfoJob> infoJobs, InfoProducers infoProducers) {
+        Map<InfoProducer, List<InfoJob>> jobsPerProducer = new IdentityHashMap<>();
+        for (InfoJob infoJob : infoJobs) {
+            for (InfoProducer producer : getProducersForJob(infoJob, infoProducers)) {
+                jobsPerProducer.computeIfAbsent(producer, p -> new ArrayList<>()).add(infoJob);
+            }
+        }
+        jobsPerProducer.forEach((producer, jobs) -> {
+            if (producer.isBulkCallbackSupported()) {
+                stopInfoJobsBulk(producer, jobs);
+            } else {
+                jobs.forEach(job -> stopInfoJob(producer, job));
+            }
+        });
+    }
+
+    private void stopInfoJob(InfoProducer producer, InfoJob infoJob) {
+        cancelPendingStart(producer, infoJob);
+        String url = producer.getJobCallbackUrl() + "/" + infoJob.getId();
+        producer.setJobRemoved(infoJob);
+        jobStopClient.delete(url) //
+            .subscribe(response -> logger.debug("Producer job deleted OK {}", producer.getId()), //
+                throwable -> logger.warn("Producer job delete failed {} {}", producer.getId(),
+                    throwable.getMessage()),
+                null);
+    }
+
+    private void stopInfoJobsBulk(InfoProducer producer, List<InfoJob> infoJobs) {
+        for (InfoJob infoJob : infoJobs) {
+            cancelPendingStart(producer, infoJob);
+            producer.setJobRemoved(infoJob);
         }
+        Flux.fromIterable(infoJobs) //
+            .buffer(bulkChunkSize) //
+            .concatMap(chunk -> postBulkRequest(producer, new ArrayList<>(), chunk) //
+                .map(responseBody -> parseRejectedJobIds(producer, responseBody)) //
+                .doOnNext(rejectedIds -> logRejectedJobs(producer, "delete", rejectedIds)) //
+                .onErrorResume(throwable -> {
+                    logger.warn("Producer jobs delete failed {} {}", producer.getId(), throwable.getMessage());
+                    return Mono.empty();
+                })) //
+            .subscribe();
     }
 
     /**
@@ -80,9 +285,8 @@ public class ProducerCallbacks {
      * @return the number of producers that returned OK
      */
     public Mono<Integer> startInfoSubscriptionJob(InfoJob infoJob, InfoProducers infoProducers) {
-        Retry retrySpec = Retry.fixedDelay(1, Duration.ofSeconds(1));
         return Flux.fromIterable(getProducersForJob(infoJob, infoProducers)) //
-            .flatMap(infoProducer -> startInfoJob(infoProducer, infoJob, retrySpec)) //
+            .flatMap(infoProducer -> startInfoJob(infoProducer, infoJob, 1)) //
             .collectList() //
             .flatMap(okResponses -> Mono.just(Integer.valueOf(okResponses.size()))); //
     }
@@ -94,20 +298,204 @@ public class ProducerCallbacks {
      * @param infoJobs
      */
     public Flux<String> startInfoJobs(InfoProducer producer, InfoJobs infoJobs) {
-        final int maxNoOfParalellRequests = 10;
-        Retry retrySpec = Retry.backoff(3, Duration.ofSeconds(1));
+        Flux<InfoJob> jobs = Flux.fromIterable(producer.getInfoTypes()) //
+            .flatMap(type -> Flux.fromIterable(infoJobs.getJobsForType(type)));
+        return startInfoJobs(producer, jobs, 3);
+    }
 
-        return Flux.fromIterable(producer.getInfoTypes()) //
-            .flatMap(type -> Flux.fromIterable(infoJobs.getJobsForType(type))) //
-            .flatMap(job -> startInfoJob(producer, job, retrySpec), maxNoOfParalellRequests);
+    /**
+     * Start jobs in one producer. If the producer supports bulk callbacks, the
+     * jobs are started with one request per chunk of jobs. The number of
+     * concurrent requests is adapted to the producer by the REST client.
+     *
+     * @param maxRetries max number of retries of each failed request, the
+     *        retries are limited by the retry budget of the producer
+     * @return one element for each job that was started OK
+     */
+    public Flux<String> startInfoJobs(InfoProducer producer, Flux<InfoJob> infoJobs, long maxRetries) {
+        if (!producer.isBulkCallbackSupported()) {
+            return infoJobs.flatMap(job -> startInfoJob(producer, job, maxRetries));
+        }
+        return infoJobs.buffer(bulkChunkSize) //
+            .concatMap(chunk -> startInfoJobsBulk(producer, chunk, maxRetries));
+    }
+
+    private Flux<String> startInfoJobsBulk(InfoProducer producer, List<InfoJob> infoJobs, long maxRetries) {
+        final PendingBulkStart pending = new PendingBulkStart(infoJobs);
+        for (InfoJob infoJob : infoJobs) {
+            producer.setJobPending(infoJob);
+            pendingBulkStarts.put(new PendingStartKey(producer, infoJob.getId()), pending);
+        }
+        Mono<String> request = postBulkRequest(producer, infoJobs, new ArrayList<>());
+        return retryBudgets.withRetries(producer.getJobBulkCallbackUrl(), request, maxRetries) //
+            .map(responseBody -> parseRejectedJobIds(producer, responseBody)) //
+            .onErrorResume(throwable -> {
+                pending.complete(infoJobs, jobs -> {
+                    jobs.forEach(producer::setJobDisabled);
+                    return jobs;
+                });
+                logger.warn("Job subscriptions failed id: {} url: {}, reason: {}", producer.getId(),
+                    producer.getJobBulkCallbackUrl(), throwable.toString());
+                return Mono.empty();
+            }) //
+            .doOnNext(rejectedIds -> logRejectedJobs(producer, "start", rejectedIds)) //
+            .flatMapMany(rejectedIds -> Flux
+                .fromIterable(pending.complete(infoJobs, jobs -> setJobsEnabled(producer, jobs, rejectedIds)))) //
+            .doFinally(signal -> infoJobs.forEach(
+                infoJob -> pendingBulkStarts.remove(new PendingStartKey(producer, infoJob.getId()), pending)));
+    }
+
+    /**
+     * Sends one bulk request to a producer
+     *
+     * @return the response body
+     */
+    private Mono<String> postBulkRequest(InfoProducer producer, List<InfoJob> startedJobs,
+        List<InfoJob> stoppedJobs) {
+        byte[] body = encodeBulkRequest(startedJobs, stoppedJobs);
+        AsyncRestClient restClient = stoppedJobs.isEmpty() ? jobStartClient : jobStopClient;
+        return restClient.post(producer.getJobBulkCallbackUrl(), body);
+    }
+
+    /**
+     * @return the identities of the jobs that the producer rejected. The request
+     *         was accepted, so a response that can not be parsed rejects no jobs.
+     */
+    private static Set<String> parseRejectedJobIds(InfoProducer producer, String responseBody) {
+        ProducerJobBulkResponse response;
+        try {
+            response = gson.fromJson(responseBody, ProducerJobBulkResponse.class);
+        } catch (JsonParseException e) {
+            logger.warn("Invalid bulk response from producer {}: {}", producer.getId(), e.getMessage());
+            return new HashSet<>();
+        }
+        if (response == null || response.rejectedJobIds == null) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(response.rejectedJobIds);
+    }
+
+    /**
+     * Removes the encoded request body of a job. Called when the job is modified
+     * or removed.
+     */
+    public void evictEncodedJob(String jobId) {
+        this.encodedJobs.remove(jobId);
+    }
+
+    /**
+     * @return the body of the job start request (a producer_info_job_request),
+     *         encoded once for each revision of the job
+     */
+    private byte[] encodedJobInfo(InfoJob infoJob) {
+        EncodedJob cached = this.encodedJobs.get(infoJob.getId());
+        if (cached != null && cached.job == infoJob) {
+            return cached.body;
+        }
+        byte[] body = toJsonBytes(new ProducerJobInfo(infoJob));
+        this.encodedJobs.put(infoJob.getId(), new EncodedJob(infoJob, body));
+        return body;
+    }
+
+    /**
+     * Assembles a producer_info_job_bulk_request from the encoded job start
+     * requests. The stopped jobs are removed and are not cached.
+     */
+    private byte[] encodeBulkRequest(List<InfoJob> startedJobs, List<InfoJob> stoppedJobs) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(asciiBytes("{\"" + ProducerJobBulkRequest.STARTED_JOBS + "\":["));
+        writeJsonArrayElements(out, startedJobs, this::encodedJobInfo);
+        out.writeBytes(asciiBytes("],\"" + ProducerJobBulkRequest.STOPPED_JOBS + "\":["));
+        writeJsonArrayElements(out, stoppedJobs, job -> toJsonBytes(new ProducerJobInfo(job)));
+        out.writeBytes(asciiBytes("]}"));
+        return out.toByteArray();
+    }
+
+    private static void writeJsonArrayElements(ByteArrayOutputStream out, List<InfoJob> infoJobs,
+        Function<InfoJob, byte[]> encoder) {
+        boolean isFirst = true;
+        for (InfoJob infoJob : infoJobs) {
+            if (!isFirst) {
+                out.write(',');
+            }
+            out.writeBytes(encoder.apply(infoJob));
+            isFirst = false;
+        }
     }
 
-    public Mono<String> startInfoJob(InfoProducer producer, InfoJob infoJob, Retry retrySpec) {
-        ProducerJobInfo request = new ProducerJobInfo(infoJob);
-        String body = gson.toJson(request);
+    private static byte[] asciiBytes(String str) {
+        return str.getBytes(StandardCharsets.US_ASCII);
+    }
 
-        return restClient.post(producer.getJobCallbackUrl(), body) //
-            .retryWhen(retrySpec) //
+    private static byte[] toJsonBytes(Object obj) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            gson.toJson(obj, writer);
+        } catch (IOException e) {
+            // Cannot happen, the bytes are written to memory
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the identities of the enabled jobs
+     */
+    private static List<String> setJobsEnabled(InfoProducer producer, List<InfoJob> infoJobs,
+        Set<String> rejectedIds) {
+        List<String> enabledIds = new ArrayList<>(infoJobs.size());
+        for (InfoJob infoJob : infoJobs) {
+            if (rejectedIds.contains(infoJob.getId())) {
+                producer.setJobDisabled(infoJob);
+            } else {
+                producer.setJobEnabled(infoJob);
+                enabledIds.add(infoJob.getId());
+            }
+        }
+        return enabledIds;
+    }
+
+    private static void logRejectedJobs(InfoProducer producer, String operation, Set<String> rejectedIds) {
+        if (!rejectedIds.isEmpty()) {
+            logger.warn("Producer {} rejected to {} jobs: {}", producer.getId(), operation, rejectedIds);
+        }
+    }
+
+    /**
+     * Start a job in one producer. Concurrent starts of the same job in the same
+     * producer share one request. A start of a later version of the job
+     * supersedes (cancels) a pending start of an earlier version, the result of
+     * the later start is then emitted to all.
+     */
+    public Mono<String> startInfoJob(InfoProducer producer, InfoJob infoJob, long maxRetries) {
+        return Mono.defer(() -> {
+            producer.setJobPending(infoJob);
+            final PendingStartKey key = new PendingStartKey(producer, infoJob.getId());
+            final PendingStart pending;
+            PendingStart previous;
+            synchronized (pendingStarts) {
+                previous = pendingStarts.get(key);
+                if (previous != null && !isLaterVersion(infoJob, previous.job)) {
+                    return previous.response();
+                }
+                pending = new PendingStart(infoJob);
+                pendingStarts.put(key, pending);
+            }
+            if (previous != null) {
+                logger.debug("Job start superseded, job: {}, producer: {}", infoJob.getId(), producer.getId());
+                previous.supersede(pending);
+            }
+            pending.setCall(postStartInfoJob(producer, infoJob, maxRetries) //
+                .doFinally(signal -> pendingStarts.remove(key, pending)) //
+                .subscribe(pending::emitValue, pending::emitError, pending::emitEmpty));
+            return pending.response();
+        });
+    }
+
+    private Mono<String> postStartInfoJob(InfoProducer producer, InfoJob infoJob, long maxRetries) {
+        byte[] body = encodedJobInfo(infoJob);
+        Mono<String> request = jobStartClient.post(producer.getJobCallbackUrl(), body);
+        return retryBudgets.withRetries(producer.getJobCallbackUrl(), request, maxRetries) //
             .doOnNext(resp -> logger.debug("Job subscription {} started OK {}", infoJob.getId(), producer.getId())) //
             .onErrorResume(throwable -> {
                 producer.setJobDisabled(infoJob);
@@ -118,6 +506,22 @@ public class ProducerCallbacks {
             .doOnNext(resp -> producer.setJobEnabled(infoJob));
     }
 
+    private void cancelPendingStart(InfoProducer producer, InfoJob infoJob) {
+        PendingStartKey key = new PendingStartKey(producer, infoJob.getId());
+        PendingStart pending = pendingStarts.remove(key);
+        if (pending != null) {
+            pending.cancel();
+        }
+        PendingBulkStart pendingBulk = pendingBulkStarts.remove(key);
+        if (pendingBulk != null) {
+            pendingBulk.cancel(infoJob.getId());
+        }
+    }
+
+    private static boolean isLaterVersion(InfoJob job, InfoJob other) {
+        return job.getRevision() > other.getRevision();
+    }
+
     private Collection<InfoProducer> getProducersForJob(InfoJob infoJob, InfoProducers infoProducers) {
         return infoProducers.getProducersForType(infoJob.getTypeId());
     }
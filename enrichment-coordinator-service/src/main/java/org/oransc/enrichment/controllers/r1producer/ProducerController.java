@@ -36,9 +36,10 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.oransc.enrichment.controllers.ErrorResponse;
+import org.oransc.enrichment.controllers.IdListing;
 import org.oransc.enrichment.controllers.VoidResponse;
 import org.oransc.enrichment.exceptions.ServiceException;
 import org.oransc.enrichment.repository.InfoJob;
@@ -48,7 +49,9 @@ import org.oransc.enrichment.repository.InfoProducers;
 import org.oransc.enrichment.repository.InfoType;
 import org.oransc.enrichment.repository.InfoTypeSubscriptions;
 import org.oransc.enrichment.repository.InfoTypes;
+import org.oransc.enrichment.repository.ProducerLeases;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -57,8 +60,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @SuppressWarnings("squid:S2629") // Invoke method(s) only conditionally
 @RestController("Producer registry")
@@ -79,23 +84,38 @@ public class ProducerController {
     @Autowired
     private InfoTypeSubscriptions typeSubscriptions;
 
-    @GetMapping(path = ProducerConsts.API_ROOT + "/info-types", produces = MediaType.APPLICATION_JSON_VALUE) //
+    @Autowired
+    private ProducerLeases producerLeases;
+
+    @GetMapping(
+        path = ProducerConsts.API_ROOT + "/info-types",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE}) //
     @Operation(summary = "Info Type identifiers", description = "") //
     @ApiResponses(
         value = { //
             @ApiResponse(
                 responseCode = "200",
                 description = "Info Type identifiers", //
-                content = @Content(array = @ArraySchema(schema = @Schema(implementation = String.class)))) //
+                content = @Content(array = @ArraySchema(schema = @Schema(implementation = String.class)))), //
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid query parameter", //
+                content = @Content(schema = @Schema(implementation = ErrorResponse.ErrorInfo.class))) //
         })
-    public ResponseEntity<Object> getInfoTypdentifiers( //
-    ) {
-        List<String> result = new ArrayList<>();
-        for (InfoType infoType : this.infoTypes.getAllInfoTypes()) {
-            result.add(infoType.getId());
-        }
-
-        return new ResponseEntity<>(gson.toJson(result), HttpStatus.OK);
+    public ResponseEntity<StreamingResponseBody> getInfoTypdentifiers( //
+        @Parameter(
+            name = IdListing.LIMIT_PARAM,
+            required = false, //
+            description = IdListing.LIMIT_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.LIMIT_PARAM, required = false) Integer limit,
+        @Parameter(
+            name = IdListing.AFTER_PARAM,
+            required = false, //
+            description = IdListing.AFTER_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.AFTER_PARAM, required = false) String after,
+        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        Stream<String> typeIds = this.infoTypes.getAllInfoTypes().stream().map(InfoType::getId);
+        return IdListing.create(typeIds, after, limit, accept);
     }
 
     @GetMapping(
@@ -191,34 +211,47 @@ public class ProducerController {
             return ErrorResponse.create("The type has active producers: " + firstProducerId, HttpStatus.NOT_ACCEPTABLE);
         }
         this.infoTypes.remove(type);
-        infoJobs.getJobsForType(type).forEach(job -> infoJobs.remove(job, infoProducers)); // Delete jobs for the type
+        infoJobs.remove(infoJobs.getJobsForType(type), infoProducers); // Delete jobs for the type
         this.typeSubscriptions.notifyTypeRemoved(type);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
-    @GetMapping(path = ProducerConsts.API_ROOT + "/info-producers", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(
+        path = ProducerConsts.API_ROOT + "/info-producers",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     @Operation(summary = "Information producer identifiers", description = "")
     @ApiResponses(
         value = { //
             @ApiResponse(
                 responseCode = "200",
                 description = "Information producer identifiers", //
-                content = @Content(array = @ArraySchema(schema = @Schema(implementation = String.class)))) //
+                content = @Content(array = @ArraySchema(schema = @Schema(implementation = String.class)))), //
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid query parameter", //
+                content = @Content(schema = @Schema(implementation = ErrorResponse.ErrorInfo.class))) //
         })
-    public ResponseEntity<Object> getInfoProducerIdentifiers( //
+    public ResponseEntity<StreamingResponseBody> getInfoProducerIdentifiers( //
         @Parameter(
             name = "info_type_id",
             required = false,
             description = "If given, only the producers for the EI Data type is returned.") //
-        @RequestParam(name = "info_type_id", required = false) String typeId //
-    ) {
-        List<String> result = new ArrayList<>();
-        for (InfoProducer infoProducer : typeId == null ? this.infoProducers.getAllProducers()
-            : this.infoProducers.getProducersForType(typeId)) {
-            result.add(infoProducer.getId());
-        }
-
-        return new ResponseEntity<>(gson.toJson(result), HttpStatus.OK);
+        @RequestParam(name = "info_type_id", required = false) String typeId,
+        @Parameter(
+            name = IdListing.LIMIT_PARAM,
+            required = false, //
+            description = IdListing.LIMIT_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.LIMIT_PARAM, required = false) Integer limit,
+        @Parameter(
+            name = IdListing.AFTER_PARAM,
+            required = false, //
+            description = IdListing.AFTER_PARAM_DESCRIPTION) //
+        @RequestParam(name = IdListing.AFTER_PARAM, required = false) String after,
+        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        Collection<InfoProducer> producers =
+            typeId == null ? this.infoProducers.getAllProducers() : this.infoProducers.getProducersForType(typeId);
+        Stream<String> producerIds = producers.stream().map(InfoProducer::getId);
+        return IdListing.create(producerIds, after, limit, accept);
     }
 
     @GetMapping(
@@ -313,6 +346,43 @@ public class ProducerController {
         return new ProducerStatusInfo(opState);
     }
 
+    @PutMapping(
+        path = ProducerConsts.API_ROOT + "/info-producers/{infoProducerId}/heartbeat",
+        produces = MediaType.APPLICATION_JSON_VALUE) //
+    @Operation(
+        summary = "Information producer heartbeat",
+        description = "Renews the lease of the producer. A producer that sends heartbeats is not called back for "
+            + "supervision. Instead it is deregistered if no heartbeat is received before the lease expires.") //
+    @ApiResponses(
+        value = { //
+            @ApiResponse(
+                responseCode = "200",
+                description = "Lease renewed", //
+                content = @Content(schema = @Schema(implementation = ProducerHeartbeatInfo.class))), //
+            @ApiResponse(
+                responseCode = "404",
+                description = "Information producer is not found", //
+                content = @Content(schema = @Schema(implementation = ErrorResponse.ErrorInfo.class))) //
+        })
+    public ResponseEntity<Object> putInfoProducerHeartbeat( //
+        @PathVariable("infoProducerId") String infoProducerId) {
+        try {
+            InfoProducer producer = this.infoProducers.getProducer(infoProducerId);
+            this.producerLeases.renew(producer, System.currentTimeMillis());
+            if (this.infoProducers.get(infoProducerId) != producer) {
+                // Deregistered meanwhile, the lease may be renewed after it was cancelled
+                this.producerLeases.cancel(producer);
+                throw new ServiceException("Could not find Information Producer: " + infoProducerId);
+            }
+            producer.setAliveStatus(true);
+            ProducerHeartbeatInfo lease =
+                new ProducerHeartbeatInfo(this.producerLeases.getLeaseDuration().toMillis());
+            return new ResponseEntity<>(gson.toJson(lease), HttpStatus.OK);
+        } catch (Exception e) {
+            return ErrorResponse.create(e, HttpStatus.NOT_FOUND);
+        }
+    }
+
     @PutMapping(
         path = ProducerConsts.API_ROOT + "/info-producers/{infoProducerId}", //
         produces = MediaType.APPLICATION_JSON_VALUE)
@@ -338,6 +408,9 @@ public class ProducerController {
         try {
             validateUri(registrationInfo.jobCallbackUrl);
             validateUri(registrationInfo.producerSupervisionCallbackUrl);
+            if (registrationInfo.jobBulkCallbackUrl != null && !registrationInfo.jobBulkCallbackUrl.isEmpty()) {
+                validateUri(registrationInfo.jobBulkCallbackUrl);
+            }
             InfoProducer previousDefinition = this.infoProducers.get(infoProducerId);
             this.infoProducers.registerProducer(toProducerRegistrationInfo(infoProducerId, registrationInfo));
             return new ResponseEntity<>(previousDefinition == null ? HttpStatus.CREATED : HttpStatus.OK);
@@ -391,7 +464,8 @@ public class ProducerController {
         for (InfoType type : p.getInfoTypes()) {
             types.add(type.getId());
         }
-        return new ProducerRegistrationInfo(types, p.getJobCallbackUrl(), p.getProducerSupervisionCallbackUrl());
+        return new ProducerRegistrationInfo(types, p.getJobCallbackUrl(), p.getProducerSupervisionCallbackUrl(),
+            p.getJobBulkCallbackUrl());
     }
 
     private ProducerInfoTypeInfo toInfoTypeInfo(InfoType t) {
@@ -410,6 +484,7 @@ public class ProducerController {
             .id(infoProducerId) //
             .jobCallbackUrl(info.jobCallbackUrl) //
             .producerSupervisionCallbackUrl(info.producerSupervisionCallbackUrl) //
+            .jobBulkCallbackUrl(info.jobBulkCallbackUrl) //
             .supportedTypes(supportedTypes) //
             .build();
     }
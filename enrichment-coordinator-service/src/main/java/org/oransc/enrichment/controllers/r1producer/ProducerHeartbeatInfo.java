@@ -0,0 +1,47 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.controllers.r1producer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.gson.annotations.SerializedName;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import org.immutables.gson.Gson;
+
+@Gson.TypeAdapters
+@Schema(name = "producer_heartbeat", description = "The lease of an Info Producer that sends heartbeats")
+public class ProducerHeartbeatInfo {
+
+    private static final String LEASE_DURATION_DESCRIPTION =
+        "The time in milliseconds that the lease is valid. The producer is deregistered if no heartbeat is received "
+            + "within this time.";
+
+    @Schema(name = "lease_duration_millis", description = LEASE_DURATION_DESCRIPTION, required = true)
+    @SerializedName("lease_duration_millis")
+    @JsonProperty(value = "lease_duration_millis", required = true)
+    public final long leaseDurationMillis;
+
+    public ProducerHeartbeatInfo(long leaseDurationMillis) {
+        this.leaseDurationMillis = leaseDurationMillis;
+    }
+
+}
@@ -0,0 +1,59 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.controllers.r1producer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.gson.annotations.SerializedName;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.immutables.gson.Gson;
+
+@Gson.TypeAdapters
+@Schema(
+    name = "producer_info_job_bulk_request",
+    description = "The body of the Information Producer callback for creation and deletion of several Information Jobs")
+public class ProducerJobBulkRequest {
+    public static final String STARTED_JOBS = "started_info_jobs";
+    public static final String STOPPED_JOBS = "stopped_info_jobs";
+
+    @Schema(name = STARTED_JOBS, description = "Information Jobs to create or modify")
+    @SerializedName(STARTED_JOBS)
+    @JsonProperty(STARTED_JOBS)
+    public Collection<ProducerJobInfo> startedJobs = new ArrayList<>();
+
+    @Schema(name = STOPPED_JOBS, description = "Information Jobs to delete")
+    @SerializedName(STOPPED_JOBS)
+    @JsonProperty(STOPPED_JOBS)
+    public Collection<ProducerJobInfo> stoppedJobs = new ArrayList<>();
+
+    public ProducerJobBulkRequest(Collection<ProducerJobInfo> startedJobs, Collection<ProducerJobInfo> stoppedJobs) {
+        this.startedJobs = startedJobs;
+        this.stoppedJobs = stoppedJobs;
+    }
+
+    public ProducerJobBulkRequest() {
+    }
+
+}
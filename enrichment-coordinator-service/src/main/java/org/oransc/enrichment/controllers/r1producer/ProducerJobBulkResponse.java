@@ -0,0 +1,53 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.controllers.r1producer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.gson.annotations.SerializedName;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.immutables.gson.Gson;
+
+@Gson.TypeAdapters
+@Schema(
+    name = "producer_info_job_bulk_response",
+    description = "The response of the Information Producer bulk callback. An empty body means that all jobs are OK.")
+public class ProducerJobBulkResponse {
+
+    @Schema(
+        name = "rejected_info_job_ids",
+        description = "Identities of the Information Jobs that the producer could not create, modify or delete")
+    @SerializedName("rejected_info_job_ids")
+    @JsonProperty("rejected_info_job_ids")
+    public Collection<String> rejectedJobIds = new ArrayList<>();
+
+    public ProducerJobBulkResponse(Collection<String> rejectedJobIds) {
+        this.rejectedJobIds = rejectedJobIds;
+    }
+
+    public ProducerJobBulkResponse() {
+    }
+
+}
@@ -51,11 +51,27 @@ public class ProducerRegistrationInfo {
     @JsonProperty(value = "info_producer_supervision_callback_url", required = true)
     public String producerSupervisionCallbackUrl = "";
 
+    @Schema(
+        name = "info_job_bulk_callback_url",
+        description = "callback for starting and stopping several Information Jobs in one request. "
+            + "If given, this is used instead of the info_job_callback_url when many jobs are started or stopped "
+            + "at the same time, for instance when the producer is registered.",
+        required = false)
+    @SerializedName("info_job_bulk_callback_url")
+    @JsonProperty(value = "info_job_bulk_callback_url", required = false)
+    public String jobBulkCallbackUrl = "";
+
     public ProducerRegistrationInfo(Collection<String> types, String jobCallbackUrl,
         String producerSupervisionCallbackUrl) {
+        this(types, jobCallbackUrl, producerSupervisionCallbackUrl, "");
+    }
+
+    public ProducerRegistrationInfo(Collection<String> types, String jobCallbackUrl,
+        String producerSupervisionCallbackUrl, String jobBulkCallbackUrl) {
         this.supportedTypeIds = types;
         this.jobCallbackUrl = jobCallbackUrl;
         this.producerSupervisionCallbackUrl = producerSupervisionCallbackUrl;
+        this.jobBulkCallbackUrl = jobBulkCallbackUrl;
     }
 
     public ProducerRegistrationInfo() {
@@ -0,0 +1,142 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.datastore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import org.oransc.enrichment.configuration.ApplicationConfig;
+
+/**
+ * Persistent storage of the records of a repository. A record is a key and a
+ * value, the value is opaque to the store.
+ */
+public interface DataStore {
+
+    /**
+     * The available implementations.
+     */
+    public enum Backend {
+        /** An embedded key/value store based on an append only journal */
+        JOURNAL,
+        /** One file per record, the format used by earlier versions */
+        FILES
+    }
+
+    /**
+     * Reads all stored records. Shall be invoked once, before the store is
+     * modified.
+     *
+     * @return the records, in the order they were first written
+     * @throws IOException
+     */
+    Map<String, byte[]> restore() throws IOException;
+
+    /**
+     * Reads all stored records and parses them.
+     *
+     * @param parser creates an object from the key and the value of a record
+     * @return the parsed records
+     * @throws IOException
+     */
+    <T> List<T> restore(BiFunction<String, byte[], T> parser) throws IOException;
+
+    /**
+     * Reads all stored records and parses them.
+     *
+     * @param parser creates an object from the value of a record
+     * @return the parsed records
+     * @throws IOException
+     */
+    default <T> List<T> restore(Function<byte[], T> parser) throws IOException {
+        return restore((key, value) -> parser.apply(value));
+    }
+
+    RestoreProgress getRestoreProgress();
+
+    void put(String key, byte[] value) throws IOException;
+
+    /**
+     * Stores a number of records. Returns when all records are stored.
+     */
+    void putAll(Map<String, byte[]> records) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Removes all records.
+     */
+    void clear() throws IOException;
+
+    /**
+     * Waits until all modifications made so far are stored.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Creates the data store configured for a repository. Records stored in the
+     * legacy format (one file per record) are migrated to the embedded key/value
+     * store when it is restored.
+     *
+     * @param config the application configuration
+     * @param name the name of the repository
+     * @param stateProvider provides the live records when the store is compacted
+     * @param converter converts the value of a migrated record
+     * @return a data store
+     */
+    public static DataStore create(ApplicationConfig config, String name, Journal.StateProvider stateProvider,
+        UnaryOperator<byte[]> converter) {
+        FileStore legacyStore = new FileStore(Path.of(config.getVardataDirectory(), "database", name));
+        if (config.getDatabaseBackend() == Backend.FILES) {
+            return legacyStore;
+        }
+        Journal journal =
+            new Journal(Path.of(config.getVardataDirectory(), "database", "journal", name), stateProvider);
+        journal.setRestoreParallelism(config.getDatabaseRestoreParallelism());
+        journal.setDurability(config.getDatabaseFsyncPolicy(), config.getDatabaseFsyncInterval(),
+            config.getDatabaseAckMode());
+        journal.setMigrationSource(legacyStore, converter);
+        return journal;
+    }
+
+    /**
+     * Moves all records from one store to another. The records are removed from
+     * the source when they are stored in the destination.
+     *
+     * @param converter converts the value of each moved record
+     * @return the moved records, converted
+     */
+    public static Map<String, byte[]> migrate(DataStore from, DataStore to, UnaryOperator<byte[]> converter)
+        throws IOException {
+        Map<String, byte[]> records = from.restore();
+        records.replaceAll((key, value) -> converter.apply(value));
+        if (!records.isEmpty()) {
+            to.putAll(records);
+            from.clear();
+        }
+        return records;
+    }
+}
@@ -0,0 +1,128 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.datastore;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * A data store where each record is stored in a file, named by the key of the
+ * record. This is the format used by earlier versions.
+ */
+public class FileStore implements DataStore {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final Path directory;
+    private final RestoreProgress progress = new RestoreProgress();
+
+    public FileStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Map<String, byte[]> restore() throws IOException {
+        try {
+            Map<String, byte[]> records = readAll();
+            progress.done(true);
+            return records;
+        } catch (IOException e) {
+            progress.done(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> List<T> restore(BiFunction<String, byte[], T> parser) throws IOException {
+        try {
+            Map<String, byte[]> records = readAll();
+            List<T> result = new ArrayList<>();
+            for (Map.Entry<String, byte[]> entry : records.entrySet()) {
+                result.add(parser.apply(entry.getKey(), entry.getValue()));
+                progress.recordParsed();
+            }
+            progress.done(true);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            progress.done(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public RestoreProgress getRestoreProgress() {
+        return this.progress;
+    }
+
+    @Override
+    public void put(String key, byte[] value) throws IOException {
+        Files.createDirectories(directory);
+        Files.write(directory.resolve(key), value);
+    }
+
+    @Override
+    public void putAll(Map<String, byte[]> records) throws IOException {
+        for (Map.Entry<String, byte[]> entry : records.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(directory.resolve(key));
+    }
+
+    @Override
+    public synchronized void clear() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+        logger.debug("Removed {}", directory);
+    }
+
+    private synchronized Map<String, byte[]> readAll() throws IOException {
+        Map<String, byte[]> records = new LinkedHashMap<>();
+        File[] files = directory.toFile().listFiles();
+        progress.start(files == null ? 0 : files.length);
+        if (files != null) {
+            for (File file : files) {
+                records.put(file.getName(), Files.readAllBytes(file.toPath()));
+                progress.fileRead();
+            }
+        }
+        progress.startParsing(records.size());
+        return records;
+    }
+
+    @Override
+    public void flush() {
+        // Each record is written when it is stored
+    }
+}
@@ -0,0 +1,863 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.datastore;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * A segmented, append only journal of key/value records.
+ *
+ * Each modification is appended as one record to the current segment file.
+ * When enough segments have been written, the live records are compacted into
+ * a snapshot and the segments covered by the snapshot are removed. The snapshot
+ * is written in the background while the writer appends to the segments after
+ * it. At restart, the latest snapshot is read followed by the segments written
+ * after it.
+ *
+ * Modifications are queued and written by a background writer, which writes
+ * all queued records in one batch (group commit). When the records are synced
+ * to disk is given by the {@link FsyncPolicy}. The {@link AckMode} tells if a
+ * modification returns when it is queued or when it is committed.
+ */
+public class Journal implements DataStore {
+
+    /**
+     * When written records are synced to the disk.
+     */
+    public enum FsyncPolicy {
+        /** Never, left to the operating system */
+        NONE,
+        /** After each written batch of records */
+        BATCH,
+        /** At most once per fsync interval */
+        INTERVAL
+    }
+
+    /**
+     * When a modification returns to the caller.
+     */
+    public enum AckMode {
+        /** When the record is queued for writing */
+        ENQUEUE,
+        /** When the record is written, and synced according to the fsync policy */
+        COMMIT
+    }
+
+    /**
+     * Provides the live records when the journal is compacted. The owner of the
+     * journal must update its own state before a modification is appended to the
+     * journal.
+     */
+    public interface StateProvider {
+        void forEach(BiConsumer<String, byte[]> consumer);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final long DEFAULT_MAX_SEGMENT_SIZE = 16L * 1024 * 1024;
+    public static final int DEFAULT_SEGMENTS_PER_SNAPSHOT = 8;
+    public static final int DEFAULT_RESTORE_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final Pattern FILE_NUMBER_PATTERN = Pattern.compile("\\d{16}");
+    private static final int SNAPSHOT_MAGIC = 0x45435331; // "ECS1"
+    private static final String JOURNAL_TAG = "journal";
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private static final ScheduledExecutorService writerExecutor = createWriterExecutor();
+    private static final ExecutorService compactionExecutor = createCompactionExecutor();
+
+    private final Path directory;
+    private final StateProvider stateProvider;
+    private final long maxSegmentSize;
+    private final int segmentsPerSnapshot;
+
+    private final RestoreProgress progress = new RestoreProgress();
+    private int restoreParallelism = DEFAULT_RESTORE_PARALLELISM;
+    private DataStore migrationSource = null;
+    private UnaryOperator<byte[]> migrationConverter = UnaryOperator.identity();
+
+    private FileChannel segment = null;
+    private long segmentNo = 0;
+    private long snapshotSegmentNo = 0;
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    // Changed when the files are removed or read again, a running compaction is then abandoned
+    private long generation = 0;
+
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.NONE;
+    private Duration fsyncInterval = Duration.ofSeconds(1);
+    private volatile AckMode ackMode = AckMode.COMMIT;
+
+    private final Queue<PendingRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicBoolean isWriterScheduled = new AtomicBoolean(false);
+    private final List<PendingRecord> awaitingSync = new ArrayList<>();
+    private boolean isSyncScheduled = false;
+    private long lastSyncNanos = System.nanoTime();
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+
+    private static class PendingRecord {
+        final ByteBuffer data;
+        final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+        PendingRecord(ByteBuffer data) {
+            this.data = data;
+        }
+    }
+
+    public Journal(Path directory, StateProvider stateProvider) {
+        this(directory, stateProvider, DEFAULT_MAX_SEGMENT_SIZE, DEFAULT_SEGMENTS_PER_SNAPSHOT);
+    }
+
+    public Journal(Path directory, StateProvider stateProvider, long maxSegmentSize, int segmentsPerSnapshot) {
+        this.directory = directory;
+        this.stateProvider = stateProvider;
+        this.maxSegmentSize = maxSegmentSize;
+        this.segmentsPerSnapshot = segmentsPerSnapshot;
+
+        final String name = directory.getFileName().toString();
+        Gauge.builder("ecs.journal.queue.depth", queueDepth, AtomicInteger::get) //
+            .description("Number of records waiting to be written") //
+            .tag(JOURNAL_TAG, name) //
+            .register(Metrics.globalRegistry);
+        this.flushTimer = Timer.builder("ecs.journal.flush") //
+            .description("Time to write and sync a batch of records") //
+            .tag(JOURNAL_TAG, name) //
+            .register(Metrics.globalRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("ecs.journal.batch.size") //
+            .description("Number of records written in one batch") //
+            .tag(JOURNAL_TAG, name) //
+            .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Reads the latest snapshot and all segments written after it.
+     *
+     * @return the live records, in the order they were first written
+     * @throws IOException
+     */
+    @Override
+    public Map<String, byte[]> restore() throws IOException {
+        try {
+            Map<String, byte[]> records = readAllAndMigrate();
+            progress.done(true);
+            return records;
+        } catch (IOException | RuntimeException e) {
+            progress.done(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the latest snapshot and all segments written after it and parses the
+     * live records. The files are read and the records are parsed in parallel.
+     *
+     * @param parser creates an object from the key and the value of a record
+     * @return the parsed live records
+     * @throws IOException
+     */
+    @Override
+    public <T> List<T> restore(BiFunction<String, byte[], T> parser) throws IOException {
+        try {
+            Map<String, byte[]> records = readAllAndMigrate();
+            List<T> result = runInPool(() -> records.entrySet().parallelStream() //
+                .map(entry -> {
+                    T parsed = parser.apply(entry.getKey(), entry.getValue());
+                    progress.recordParsed();
+                    return parsed;
+                }) //
+                .collect(Collectors.toList()));
+            progress.done(true);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            progress.done(false);
+            throw e;
+        }
+    }
+
+    public void setRestoreParallelism(int restoreParallelism) {
+        this.restoreParallelism = restoreParallelism > 0 ? restoreParallelism : DEFAULT_RESTORE_PARALLELISM;
+    }
+
+    /**
+     * Sets a store, which records are moved into this journal when it is
+     * restored.
+     *
+     * @param converter converts the value of each moved record
+     */
+    public void setMigrationSource(DataStore migrationSource, UnaryOperator<byte[]> converter) {
+        this.migrationSource = migrationSource;
+        this.migrationConverter = converter;
+    }
+
+    @Override
+    public RestoreProgress getRestoreProgress() {
+        return this.progress;
+    }
+
+    /**
+     * Sets when records are synced to disk and when modifications return.
+     */
+    public synchronized void setDurability(FsyncPolicy fsyncPolicy, Duration fsyncInterval, AckMode ackMode) {
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncInterval = fsyncInterval;
+        this.ackMode = ackMode;
+    }
+
+    @Override
+    public void put(String key, byte[] value) throws IOException {
+        acknowledge(enqueue(encode(PUT, key, value)));
+    }
+
+    @Override
+    public void putAll(Map<String, byte[]> records) throws IOException {
+        for (Map.Entry<String, byte[]> entry : records.entrySet()) {
+            enqueue(encode(PUT, entry.getKey(), entry.getValue()));
+        }
+        flush();
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        acknowledge(enqueue(encode(DELETE, key, new byte[0])));
+    }
+
+    /**
+     * Waits until all modifications made so far are committed, and until a
+     * compaction started by them is done.
+     */
+    @Override
+    public void flush() throws IOException {
+        awaitCommit(enqueue(null));
+        CompletableFuture<Void> running;
+        synchronized (this) {
+            running = this.compaction;
+        }
+        awaitCommit(running.exceptionally(e -> null));
+    }
+
+    /**
+     * Removes all records, including the files. Queued records are discarded.
+     */
+    @Override
+    public synchronized void clear() throws IOException {
+        for (PendingRecord rec = pollQueue(); rec != null; rec = pollQueue()) {
+            rec.committed.complete(null);
+        }
+        closeSegment();
+        ++this.generation;
+        FileSystemUtils.deleteRecursively(directory);
+        Files.createDirectories(directory);
+        this.snapshotSegmentNo = 0;
+        openSegment(0);
+    }
+
+    /**
+     * Writes a snapshot of the live records and removes the segments covered by
+     * it. Waits until the snapshot is written.
+     */
+    public void compact() throws IOException {
+        CompletableFuture<Void> running;
+        synchronized (this) {
+            running = this.compaction;
+        }
+        awaitCommit(running.exceptionally(e -> null));
+        CompletableFuture<Void> done;
+        synchronized (this) {
+            ensureOpen();
+            done = startCompaction();
+        }
+        awaitCommit(done);
+    }
+
+    /**
+     * Starts writing a snapshot, unless one is already being written. The writer
+     * continues with a new segment, which is not covered by the snapshot.
+     */
+    private CompletableFuture<Void> startCompaction() throws IOException {
+        if (!this.compaction.isDone()) {
+            return this.compaction;
+        }
+        final long newSnapshotNo = this.segmentNo + 1;
+        final long startGeneration = this.generation;
+        openSegment(newSnapshotNo);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        this.compaction = done;
+        compactionExecutor.execute(() -> {
+            try {
+                writeSnapshot(newSnapshotNo, startGeneration);
+                done.complete(null);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not compact journal {}: {}", directory, e.getMessage());
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Writes the live records to a snapshot, without holding the lock of the
+     * journal, and then replaces the files covered by it.
+     */
+    private void writeSnapshot(long newSnapshotNo, long startGeneration) throws IOException {
+        Path tmpFile = directory.resolve(SNAPSHOT_PREFIX + fileNumber(newSnapshotNo) + TMP_SUFFIX);
+        try {
+            try (FileChannel out = FileChannel.open(tmpFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(out, ByteBuffer.allocate(4).putInt(SNAPSHOT_MAGIC).flip());
+                IOException[] error = {null};
+                stateProvider.forEach((key, value) -> {
+                    try {
+                        if (error[0] == null) {
+                            writeFully(out, encode(PUT, key, value));
+                        }
+                    } catch (IOException e) {
+                        error[0] = e;
+                    }
+                });
+                if (error[0] != null) {
+                    throw error[0];
+                }
+                out.force(true);
+            }
+            replaceCoveredFiles(tmpFile, newSnapshotNo, startGeneration);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    private synchronized void replaceCoveredFiles(Path tmpFile, long newSnapshotNo, long startGeneration)
+        throws IOException {
+        if (startGeneration != this.generation) {
+            logger.debug("Abandoned compaction of journal {}, the files are replaced", directory);
+            return;
+        }
+        Files.move(tmpFile, snapshotFile(newSnapshotNo), StandardCopyOption.ATOMIC_MOVE);
+
+        this.snapshotSegmentNo = newSnapshotNo;
+        for (long no : listFileNumbers(SEGMENT_PREFIX)) {
+            if (no < newSnapshotNo) {
+                Files.deleteIfExists(segmentFile(no));
+            }
+        }
+        for (long no : listFileNumbers(SNAPSHOT_PREFIX)) {
+            if (no < newSnapshotNo) {
+                Files.deleteIfExists(snapshotFile(no));
+            }
+        }
+        logger.debug("Compacted journal {}, snapshot {}", directory, newSnapshotNo);
+    }
+
+    /**
+     * Queues a record for the writer. A record without data is only used to wait
+     * for the records queued before it.
+     */
+    private CompletableFuture<Void> enqueue(ByteBuffer data) {
+        PendingRecord rec = new PendingRecord(data);
+        queueDepth.incrementAndGet();
+        queue.add(rec);
+        scheduleWriter();
+        return rec.committed;
+    }
+
+    private PendingRecord pollQueue() {
+        PendingRecord rec = queue.poll();
+        if (rec != null) {
+            queueDepth.decrementAndGet();
+        }
+        return rec;
+    }
+
+    private void acknowledge(CompletableFuture<Void> committed) throws IOException {
+        if (this.ackMode == AckMode.COMMIT) {
+            awaitCommit(committed);
+        }
+    }
+
+    private void awaitCommit(CompletableFuture<Void> committed) throws IOException {
+        try {
+            committed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing to " + directory, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void scheduleWriter() {
+        if (isWriterScheduled.compareAndSet(false, true)) {
+            writerExecutor.execute(this::writeQueuedRecords);
+        }
+    }
+
+    private void writeQueuedRecords() {
+        try {
+            while (writeBatch()) {
+                // Write until the queue is empty
+            }
+        } finally {
+            isWriterScheduled.set(false);
+            if (!queue.isEmpty()) {
+                scheduleWriter();
+            }
+        }
+    }
+
+    /**
+     * @return false if there was nothing to write
+     */
+    private synchronized boolean writeBatch() {
+        List<PendingRecord> batch = new ArrayList<>();
+        for (PendingRecord rec = pollQueue(); rec != null; rec = pollQueue()) {
+            batch.add(rec);
+            if (batch.size() >= MAX_BATCH_SIZE) {
+                break;
+            }
+        }
+        if (batch.isEmpty()) {
+            return false;
+        }
+        batchSizeSummary.record(batch.size());
+        final long startTime = System.nanoTime();
+        try {
+            ensureOpen();
+            writeFully(this.segment, batch.stream() //
+                .filter(rec -> rec.data != null) //
+                .map(rec -> rec.data) //
+                .toArray(ByteBuffer[]::new));
+            sync(batch);
+            if (this.segment.size() >= this.maxSegmentSize) {
+                boolean isCompactionDue = this.segmentNo + 1 - this.snapshotSegmentNo >= this.segmentsPerSnapshot;
+                if (isCompactionDue && this.compaction.isDone()) {
+                    startCompaction(); // The writer continues in the segment after the snapshot
+                } else {
+                    openSegment(this.segmentNo + 1);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not write to journal {}: {}", directory, e.getMessage());
+            batch.forEach(rec -> rec.committed.completeExceptionally(e));
+        }
+        flushTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    private void sync(List<PendingRecord> written) throws IOException {
+        if (this.fsyncPolicy == FsyncPolicy.NONE) {
+            written.forEach(rec -> rec.committed.complete(null));
+        } else if (this.fsyncPolicy == FsyncPolicy.BATCH) {
+            this.segment.force(false);
+            written.forEach(rec -> rec.committed.complete(null));
+        } else {
+            this.awaitingSync.addAll(written);
+            long sinceLastSync = System.nanoTime() - this.lastSyncNanos;
+            if (sinceLastSync >= this.fsyncInterval.toNanos()) {
+                syncAwaiting();
+            } else if (!this.isSyncScheduled) {
+                this.isSyncScheduled = true;
+                writerExecutor.schedule(this::scheduledSync, this.fsyncInterval.toNanos() - sinceLastSync,
+                    TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private synchronized void scheduledSync() {
+        this.isSyncScheduled = false;
+        try {
+            syncAwaiting();
+        } catch (IOException e) {
+            logger.warn("Could not sync journal {}: {}", directory, e.getMessage());
+            this.awaitingSync.forEach(rec -> rec.committed.completeExceptionally(e));
+            this.awaitingSync.clear();
+        }
+    }
+
+    private void syncAwaiting() throws IOException {
+        if (this.segment != null && !this.awaitingSync.isEmpty()) {
+            this.segment.force(false);
+        }
+        this.lastSyncNanos = System.nanoTime();
+        this.awaitingSync.forEach(rec -> rec.committed.complete(null));
+        this.awaitingSync.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.segment == null) {
+            Files.createDirectories(directory);
+            List<Long> segments = listFileNumbers(SEGMENT_PREFIX);
+            List<Long> snapshots = listFileNumbers(SNAPSHOT_PREFIX);
+            this.snapshotSegmentNo = snapshots.isEmpty() ? 0 : lastOf(snapshots);
+            openSegment(segments.isEmpty() ? snapshotSegmentNo : Math.max(snapshotSegmentNo, lastOf(segments)));
+        }
+    }
+
+    private void openSegment(long no) throws IOException {
+        closeSegment();
+        this.segment = FileChannel.open(segmentFile(no), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        this.segmentNo = no;
+    }
+
+    private void closeSegment() throws IOException {
+        if (this.segment != null) {
+            syncAwaiting();
+            this.segment.close();
+            this.segment = null;
+        }
+    }
+
+    private static ByteBuffer encode(byte type, String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int payloadSize = 1 + 4 + keyBytes.length + 4 + value.length;
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_HEADER_SIZE + payloadSize);
+        buf.putInt(payloadSize);
+        buf.putInt(0); // CRC, filled in below
+        buf.put(type);
+        buf.putInt(keyBytes.length);
+        buf.put(keyBytes);
+        buf.putInt(value.length);
+        buf.put(value);
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), RECORD_HEADER_SIZE, payloadSize);
+        buf.putInt(4, (int) crc.getValue());
+        return buf.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer[] buffers) throws IOException {
+        for (int first = 0; first < buffers.length;) {
+            channel.write(buffers, first, buffers.length - first);
+            while (first < buffers.length && !buffers[first].hasRemaining()) {
+                ++first;
+            }
+        }
+    }
+
+    private static ScheduledExecutorService createWriterExecutor() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Let the queued records be written at shutdown
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        return executor;
+    }
+
+    private static ExecutorService createCompactionExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private Map<String, byte[]> readAll() throws IOException {
+        closeSegment();
+        ++this.generation;
+        Files.createDirectories(directory);
+
+        List<Long> snapshots = listFileNumbers(SNAPSHOT_PREFIX);
+        this.snapshotSegmentNo = snapshots.isEmpty() ? 0 : lastOf(snapshots);
+        List<Path> files = new ArrayList<>();
+        if (!snapshots.isEmpty()) {
+            files.add(snapshotFile(snapshotSegmentNo));
+        }
+        List<Long> segments = listFileNumbers(SEGMENT_PREFIX);
+        for (long no : segments) {
+            if (no < snapshotSegmentNo) {
+                Files.deleteIfExists(segmentFile(no)); // Left from an interrupted compaction
+            } else {
+                files.add(segmentFile(no));
+            }
+        }
+        progress.start(files.size());
+
+        try {
+            // The files are read in parallel, the records are applied in file order
+            List<List<Record>> contents = runInPool(() -> files.parallelStream() //
+                .map(this::readFile) //
+                .collect(Collectors.toList()));
+            Map<String, byte[]> records = new LinkedHashMap<>();
+            for (List<Record> content : contents) {
+                for (Record rec : content) {
+                    rec.applyTo(records);
+                }
+            }
+            openSegment(segments.isEmpty() ? snapshotSegmentNo : Math.max(snapshotSegmentNo, lastOf(segments)));
+            logger.debug("Read {} records from {}", records.size(), directory);
+            return records;
+        } catch (IOException | RuntimeException e) {
+            progress.done(false);
+            throw e;
+        }
+    }
+
+    private Map<String, byte[]> readAllAndMigrate() throws IOException {
+        Map<String, byte[]> records;
+        synchronized (this) {
+            records = readAll();
+        }
+        // Outside the lock, the migrated records are written by the writer
+        records.putAll(migrate());
+        progress.startParsing(records.size());
+        return records;
+    }
+
+    private Map<String, byte[]> migrate() throws IOException {
+        if (this.migrationSource == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, byte[]> migrated = DataStore.migrate(this.migrationSource, this, this.migrationConverter);
+        if (!migrated.isEmpty()) {
+            logger.info("Migrated {} records into {}", migrated.size(), directory);
+        }
+        return migrated;
+    }
+
+    private static class Record {
+        final byte type;
+        final String key;
+        final byte[] value;
+
+        Record(byte type, String key, byte[] value) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+        }
+
+        void applyTo(Map<String, byte[]> records) {
+            if (type == PUT) {
+                records.put(key, value);
+            } else {
+                records.remove(key);
+            }
+        }
+    }
+
+    private List<Record> readFile(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            List<Record> records = new ArrayList<>();
+            if (file.getFileName().toString().startsWith(SNAPSHOT_PREFIX)) {
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Not a snapshot file: " + file);
+                }
+                readRecords(in, file, records);
+            } else {
+                long validLength = readRecords(in, file, records);
+                truncate(file, validLength);
+            }
+            progress.fileRead();
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the length of the file up to the last complete record
+     */
+    private static long readRecords(DataInputStream in, Path file, List<Record> records) throws IOException {
+        long position = 0;
+        while (true) {
+            byte[] payload = readRecord(in, file);
+            if (payload == null) {
+                return position;
+            }
+            position += RECORD_HEADER_SIZE + payload.length;
+            ByteBuffer buf = ByteBuffer.wrap(payload);
+            byte type = buf.get();
+            String key = new String(readBytes(buf), StandardCharsets.UTF_8);
+            byte[] value = readBytes(buf);
+            records.add(new Record(type, key, value));
+        }
+    }
+
+    private <T> T runInPool(Callable<T> task) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(this.restoreParallelism);
+        try {
+            return pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + directory, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static byte[] readRecord(DataInputStream in, Path file) throws IOException {
+        try {
+            int payloadSize = in.readInt();
+            int expectedCrc = in.readInt();
+            if (payloadSize <= 0 || payloadSize > MAX_RECORD_SIZE) {
+                logger.warn("Corrupt record found in {}, ignoring the rest of the file", file);
+                return null;
+            }
+            byte[] payload = readFully(in, payloadSize);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != expectedCrc) {
+                logger.warn("Corrupt record found in {}, ignoring the rest of the file", file);
+                return null;
+            }
+            return payload;
+        } catch (EOFException e) {
+            return null; // End of file or a partially written record
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int size) throws IOException {
+        byte[] bytes = in.readNBytes(size);
+        if (bytes.length != size) {
+            throw new EOFException();
+        }
+        return bytes;
+    }
+
+    private static byte[] readBytes(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return bytes;
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (channel.size() > length) {
+                logger.warn("Truncating journal segment {} from {} to {} bytes", file, channel.size(), length);
+                channel.truncate(length);
+            }
+        }
+    }
+
+    private List<Long> listFileNumbers(String prefix) {
+        List<Long> result = new ArrayList<>();
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (!name.startsWith(prefix) || name.endsWith(TMP_SUFFIX)) {
+                    continue;
+                }
+                if (FILE_NUMBER_PATTERN.matcher(name.substring(prefix.length())).matches()) {
+                    result.add(Long.parseLong(name.substring(prefix.length())));
+                } else {
+                    logger.warn("Ignoring unknown file in journal {}: {}", directory, name);
+                }
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static long lastOf(List<Long> numbers) {
+        return numbers.get(numbers.size() - 1);
+    }
+
+    private Path segmentFile(long no) {
+        return directory.resolve(SEGMENT_PREFIX + fileNumber(no));
+    }
+
+    private Path snapshotFile(long no) {
+        return directory.resolve(SNAPSHOT_PREFIX + fileNumber(no));
+    }
+
+    private static String fileNumber(long no) {
+        return String.format("%016d", no);
+    }
+}
@@ -0,0 +1,274 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.datastore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Encoding of the records stored in a {@link DataStore}.
+ *
+ * A record is either JSON text (the format used by earlier versions) or a
+ * compact binary record. A binary record starts with a marker byte, which
+ * never starts a JSON text, followed by the schema version of the record and
+ * its fields. Strings are length prefixed UTF-8 and free form objects (such as
+ * job data) are encoded as CBOR. Fields added in later schema versions are
+ * appended, so that a record can be read by later versions.
+ */
+public class RecordCodec<T> {
+
+    /**
+     * Defines the binary fields of a record type.
+     */
+    public interface BinaryFormat<T> {
+        /**
+         * @return the schema version written in new records
+         */
+        int getSchemaVersion();
+
+        void write(T value, Writer out);
+
+        /**
+         * @param in the fields of the record
+         * @param schemaVersion the schema version of the record
+         */
+        T read(Reader in, int schemaVersion);
+    }
+
+    private static final byte BINARY_MARKER = (byte) 0xEC;
+    private static final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private static final Gson plainGson = new Gson();
+
+    private final Gson gson;
+    private final Class<T> clazz;
+    private final BinaryFormat<T> format;
+    private final boolean isBinaryEncoded;
+
+    /**
+     * @param gson used for JSON records
+     * @param clazz the record type
+     * @param format the binary format of the record type
+     * @param isBinaryEncoded if true, records are encoded in the binary format,
+     *        otherwise as JSON. Both formats are always decoded.
+     */
+    public RecordCodec(Gson gson, Class<T> clazz, BinaryFormat<T> format, boolean isBinaryEncoded) {
+        this.gson = gson;
+        this.clazz = clazz;
+        this.format = format;
+        this.isBinaryEncoded = isBinaryEncoded;
+    }
+
+    public byte[] encode(T value) {
+        if (!isBinaryEncoded) {
+            return gson.toJson(value).getBytes(StandardCharsets.UTF_8);
+        }
+        Writer out = new Writer();
+        out.bytes.write(BINARY_MARKER);
+        out.writeVarLong(format.getSchemaVersion());
+        format.write(value, out);
+        return out.bytes.toByteArray();
+    }
+
+    public T decode(byte[] record) {
+        if (!isBinary(record)) {
+            return gson.fromJson(new String(record, StandardCharsets.UTF_8), clazz);
+        }
+        Reader in = new Reader(ByteBuffer.wrap(record, 1, record.length - 1));
+        int schemaVersion = (int) in.readVarLong();
+        return format.read(in, schemaVersion);
+    }
+
+    /**
+     * Converts a record in any format into the format used for encoding.
+     */
+    public byte[] convert(byte[] record) {
+        if (isBinary(record) == isBinaryEncoded) {
+            return record;
+        }
+        return encode(decode(record));
+    }
+
+    public static boolean isBinary(byte[] record) {
+        return record.length > 0 && record[0] == BINARY_MARKER;
+    }
+
+    /**
+     * Encodes a free form object (maps, lists and JSON primitives) as CBOR. Gson
+     * JSON elements are converted to maps and lists first.
+     */
+    public static byte[] encodeObject(Object value) {
+        if (value instanceof JsonElement) {
+            value = plainGson.fromJson((JsonElement) value, Object.class);
+        }
+        try {
+            return cborMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Object decodeObject(byte[] bytes) {
+        return decodeObject(bytes, 0, bytes.length);
+    }
+
+    private static Object decodeObject(byte[] bytes, int offset, int length) {
+        try {
+            return cborMapper.readValue(bytes, offset, length, Object.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the fields of a binary record.
+     */
+    public static class Writer {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+        public void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                bytes.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            bytes.write((int) value);
+        }
+
+        public void writeBoolean(boolean value) {
+            bytes.write(value ? 1 : 0);
+        }
+
+        public void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+            } else {
+                writeBytes(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        /**
+         * Writes a time stamp in ISO-8601 format, as produced by Instant.toString.
+         * Other strings are written as they are.
+         */
+        public void writeTimestamp(String value) {
+            try {
+                Instant instant = Instant.parse(value);
+                if (instant.toString().equals(value)) {
+                    bytes.write(1);
+                    writeVarLong(instant.getEpochSecond());
+                    writeVarLong(instant.getNano());
+                    return;
+                }
+            } catch (DateTimeParseException | NullPointerException e) {
+                // Written as a string
+            }
+            bytes.write(0);
+            writeString(value);
+        }
+
+        /**
+         * Writes a free form object (maps, lists and JSON primitives) as CBOR.
+         */
+        public void writeObject(Object value) {
+            if (value == null) {
+                writeVarLong(0);
+            } else {
+                writeBytes(encodeObject(value));
+            }
+        }
+
+        private void writeBytes(byte[] value) {
+            writeVarLong(value.length + 1L);
+            bytes.write(value, 0, value.length);
+        }
+    }
+
+    /**
+     * Reads the fields of a binary record.
+     */
+    public static class Reader {
+        private final ByteBuffer buf;
+
+        Reader(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        /**
+         * @return true if there are more fields, used for fields added in later
+         *         schema versions
+         */
+        public boolean hasMore() {
+            return buf.hasRemaining();
+        }
+
+        public long readVarLong() {
+            long value = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = buf.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        public boolean readBoolean() {
+            return buf.get() != 0;
+        }
+
+        public String readString() {
+            int length = (int) readVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+            buf.position(buf.position() + length);
+            return value;
+        }
+
+        public String readTimestamp() {
+            if (buf.get() == 0) {
+                return readString();
+            }
+            long epochSecond = readVarLong();
+            return Instant.ofEpochSecond(epochSecond, readVarLong()).toString();
+        }
+
+        public Object readObject() {
+            int length = (int) readVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            Object value = decodeObject(buf.array(), buf.arrayOffset() + buf.position(), length);
+            buf.position(buf.position() + length);
+            return value;
+        }
+    }
+}
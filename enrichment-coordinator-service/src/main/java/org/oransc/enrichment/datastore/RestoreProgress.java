@@ -0,0 +1,102 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.datastore;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and timing of restoring one repository from its database. Read by
+ * the actuator while the restore is ongoing.
+ */
+public class RestoreProgress {
+
+    public enum State {
+        NOT_STARTED, READING, PARSING, DONE, FAILED
+    }
+
+    private volatile State state = State.NOT_STARTED;
+    private final AtomicLong filesRead = new AtomicLong();
+    private volatile long noOfFiles = 0;
+    private final AtomicLong recordsParsed = new AtomicLong();
+    private volatile long noOfRecords = 0;
+    private volatile long startTime = 0;
+    private volatile long readDurationMillis = 0;
+    private volatile long durationMillis = 0;
+
+    void start(long noOfFiles) {
+        this.filesRead.set(0);
+        this.recordsParsed.set(0);
+        this.noOfRecords = 0;
+        this.noOfFiles = noOfFiles;
+        this.readDurationMillis = 0;
+        this.durationMillis = 0;
+        this.startTime = System.currentTimeMillis();
+        this.state = State.READING;
+    }
+
+    void fileRead() {
+        this.filesRead.incrementAndGet();
+    }
+
+    void startParsing(long noOfRecords) {
+        this.noOfRecords = noOfRecords;
+        this.readDurationMillis = System.currentTimeMillis() - startTime;
+        this.state = State.PARSING;
+    }
+
+    void recordParsed() {
+        this.recordsParsed.incrementAndGet();
+    }
+
+    void done(boolean success) {
+        this.durationMillis = System.currentTimeMillis() - startTime;
+        this.state = success ? State.DONE : State.FAILED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getFilesRead() {
+        return filesRead.get();
+    }
+
+    public long getNoOfFiles() {
+        return noOfFiles;
+    }
+
+    public long getRecordsParsed() {
+        return recordsParsed.get();
+    }
+
+    public long getNoOfRecords() {
+        return noOfRecords;
+    }
+
+    public long getReadDurationMillis() {
+        return readDurationMillis;
+    }
+
+    public long getDurationMillis() {
+        return state == State.READING || state == State.PARSING ? System.currentTimeMillis() - startTime
+            : durationMillis;
+    }
+}
@@ -0,0 +1,418 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.repository;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of non negative integers, organized as in Roaring bitmaps.
+ * The integers are grouped in chunks of 65536 by their 16 high bits. A chunk
+ * with few members is a sorted array of the 16 low bits, a chunk with many
+ * members is a plain bitmap. So a set of dense integers takes about one bit
+ * per integer in the range and a sparse set takes two bytes per member.
+ *
+ * The set operations are made chunk by chunk, and for two bitmap chunks, 64
+ * members at a time.
+ *
+ * Negative values are never members. This class is not thread safe.
+ */
+public class CompressedBitmap {
+    private static final int CHUNK_BITS = 16;
+    private static final int LOW_MASK = (1 << CHUNK_BITS) - 1;
+    // Chunks with more members than this are bitmaps
+    private static final int MAX_ARRAY_SIZE = 4096;
+    private static final int NO_OF_WORDS = (1 << CHUNK_BITS) / Long.SIZE;
+
+    private abstract static class Chunk {
+        abstract int cardinality();
+
+        abstract boolean contains(int low);
+
+        abstract Chunk add(int low);
+
+        abstract Chunk remove(int low);
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        abstract Chunk copy();
+
+        abstract long memoryUse();
+
+        BitmapChunk toBitmap() {
+            BitmapChunk result = new BitmapChunk();
+            forEach(0, result::set);
+            return result;
+        }
+    }
+
+    private static class ArrayChunk extends Chunk {
+        private char[] values;
+        private int size;
+
+        ArrayChunk(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        boolean contains(int low) {
+            return Arrays.binarySearch(values, 0, size, (char) low) >= 0;
+        }
+
+        @Override
+        Chunk add(int low) {
+            int index = Arrays.binarySearch(values, 0, size, (char) low);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == MAX_ARRAY_SIZE) {
+                BitmapChunk bitmap = toBitmap();
+                bitmap.set(low);
+                return bitmap;
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(MAX_ARRAY_SIZE, Math.max(4, size * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = (char) low;
+            ++size;
+            return this;
+        }
+
+        @Override
+        Chunk remove(int low) {
+            int index = Arrays.binarySearch(values, 0, size, (char) low);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                --size;
+            }
+            return this;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < size; ++i) {
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        Chunk copy() {
+            return new ArrayChunk(Arrays.copyOf(values, size), size);
+        }
+
+        @Override
+        long memoryUse() {
+            return 32L + values.length * 2L;
+        }
+    }
+
+    private static class BitmapChunk extends Chunk {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapChunk() {
+            this(new long[NO_OF_WORDS], 0);
+        }
+
+        BitmapChunk(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        void set(int low) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before | (1L << low);
+            if (before != words[low >>> 6]) {
+                ++cardinality;
+            }
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(int low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Chunk add(int low) {
+            set(low);
+            return this;
+        }
+
+        @Override
+        Chunk remove(int low) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before & ~(1L << low);
+            if (before != words[low >>> 6]) {
+                --cardinality;
+            }
+            return cardinality > MAX_ARRAY_SIZE ? this : toArray();
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int w = 0; w < NO_OF_WORDS; ++w) {
+                long word = words[w];
+                while (word != 0) {
+                    consumer.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        Chunk copy() {
+            return new BitmapChunk(words.clone(), cardinality);
+        }
+
+        @Override
+        long memoryUse() {
+            return 32L + NO_OF_WORDS * 8L;
+        }
+
+        /**
+         * @return this chunk, or an array chunk if it has few members
+         */
+        Chunk compact() {
+            cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            return cardinality > MAX_ARRAY_SIZE ? this : toArray();
+        }
+
+        private ArrayChunk toArray() {
+            char[] values = new char[cardinality];
+            int[] size = {0};
+            forEach(0, low -> values[size[0]++] = (char) low);
+            return new ArrayChunk(values, cardinality);
+        }
+    }
+
+    // The chunks, sorted by the high bits of their members
+    private char[] keys = new char[0];
+    private Chunk[] chunks = new Chunk[0];
+    private int noOfChunks = 0;
+
+    public CompressedBitmap() {
+    }
+
+    private CompressedBitmap(CompressedBitmap other) {
+        this.keys = Arrays.copyOf(other.keys, other.noOfChunks);
+        this.chunks = new Chunk[other.noOfChunks];
+        for (int i = 0; i < other.noOfChunks; ++i) {
+            this.chunks[i] = other.chunks[i].copy();
+        }
+        this.noOfChunks = other.noOfChunks;
+    }
+
+    public CompressedBitmap copy() {
+        return new CompressedBitmap(this);
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = indexOf(value >>> CHUNK_BITS);
+        return index >= 0 && chunks[index].contains(value & LOW_MASK);
+    }
+
+    /**
+     * @return true if the value was not already a member
+     */
+    public boolean add(int value) {
+        int index = indexOf(value >>> CHUNK_BITS);
+        if (index < 0) {
+            index = insertChunk(-index - 1, value >>> CHUNK_BITS, new ArrayChunk(new char[4], 0));
+        }
+        final int before = chunks[index].cardinality();
+        chunks[index] = chunks[index].add(value & LOW_MASK);
+        return chunks[index].cardinality() != before;
+    }
+
+    /**
+     * @return true if the value was a member
+     */
+    public boolean remove(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = indexOf(value >>> CHUNK_BITS);
+        if (index < 0) {
+            return false;
+        }
+        final int before = chunks[index].cardinality();
+        chunks[index] = chunks[index].remove(value & LOW_MASK);
+        final int after = chunks[index].cardinality();
+        if (after == 0) {
+            removeChunk(index);
+        }
+        return after != before;
+    }
+
+    public int cardinality() {
+        int result = 0;
+        for (int i = 0; i < noOfChunks; ++i) {
+            result += chunks[i].cardinality();
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return noOfChunks == 0;
+    }
+
+    public void clear() {
+        keys = new char[0];
+        chunks = new Chunk[0];
+        noOfChunks = 0;
+    }
+
+    /**
+     * Calls the consumer for each member, in increasing order.
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < noOfChunks; ++i) {
+            chunks[i].forEach(keys[i] << CHUNK_BITS, consumer);
+        }
+    }
+
+    /**
+     * Adds all members of another set to this set.
+     */
+    public void or(CompressedBitmap other) {
+        for (int i = 0; i < other.noOfChunks; ++i) {
+            int index = indexOf(other.keys[i]);
+            if (index < 0) {
+                insertChunk(-index - 1, other.keys[i], other.chunks[i].copy());
+            } else {
+                chunks[index] = or(chunks[index], other.chunks[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes all members of another set from this set.
+     */
+    public void andNot(CompressedBitmap other) {
+        for (int i = 0; i < other.noOfChunks; ++i) {
+            int index = indexOf(other.keys[i]);
+            if (index >= 0) {
+                chunks[index] = andNot(chunks[index], other.chunks[i]);
+                if (chunks[index].cardinality() == 0) {
+                    removeChunk(index);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the estimated number of bytes of heap used by the set
+     */
+    public long estimatedMemoryUse() {
+        long result = 32L + keys.length * 2L + chunks.length * 8L;
+        for (int i = 0; i < noOfChunks; ++i) {
+            result += chunks[i].memoryUse();
+        }
+        return result;
+    }
+
+    private static Chunk or(Chunk chunk, Chunk other) {
+        if (chunk instanceof BitmapChunk && other instanceof BitmapChunk) {
+            long[] words = ((BitmapChunk) chunk).words;
+            long[] otherWords = ((BitmapChunk) other).words;
+            for (int w = 0; w < NO_OF_WORDS; ++w) {
+                words[w] |= otherWords[w];
+            }
+            return ((BitmapChunk) chunk).compact();
+        }
+        if (chunk instanceof ArrayChunk && other instanceof BitmapChunk) {
+            Chunk result = other.copy();
+            chunk.forEach(0, result::add);
+            return result;
+        }
+        Chunk[] result = {chunk};
+        other.forEach(0, low -> result[0] = result[0].add(low));
+        return result[0];
+    }
+
+    private static Chunk andNot(Chunk chunk, Chunk other) {
+        if (chunk instanceof BitmapChunk && other instanceof BitmapChunk) {
+            long[] words = ((BitmapChunk) chunk).words;
+            long[] otherWords = ((BitmapChunk) other).words;
+            for (int w = 0; w < NO_OF_WORDS; ++w) {
+                words[w] &= ~otherWords[w];
+            }
+            return ((BitmapChunk) chunk).compact();
+        }
+        if (chunk instanceof ArrayChunk) {
+            ArrayChunk array = (ArrayChunk) chunk;
+            int size = 0;
+            for (int i = 0; i < array.size; ++i) {
+                if (!other.contains(array.values[i])) {
+                    array.values[size++] = array.values[i];
+                }
+            }
+            array.size = size;
+            return array;
+        }
+        Chunk[] result = {chunk};
+        other.forEach(0, low -> result[0] = result[0].remove(low));
+        return result[0];
+    }
+
+    private int indexOf(int key) {
+        return Arrays.binarySearch(keys, 0, noOfChunks, (char) key);
+    }
+
+    private int insertChunk(int index, int key, Chunk chunk) {
+        if (noOfChunks == keys.length) {
+            int capacity = Math.max(4, noOfChunks * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, noOfChunks - index);
+        System.arraycopy(chunks, index, chunks, index + 1, noOfChunks - index);
+        keys[index] = (char) key;
+        chunks[index] = chunk;
+        ++noOfChunks;
+        return index;
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, noOfChunks - index - 1);
+        System.arraycopy(chunks, index + 1, chunks, index, noOfChunks - index - 1);
+        chunks[--noOfChunks] = null;
+    }
+}
@@ -0,0 +1,63 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the estimated memory use of the secondary indexes of the
+ * repositories as gauges.
+ */
+@Component
+public class IndexMetrics implements MeterBinder {
+    public static final String INDEX_MEMORY_METRIC = "ecs.index.memory";
+
+    @Autowired
+    private InfoJobs infoJobs;
+
+    @Autowired
+    private InfoProducers infoProducers;
+
+    @Autowired
+    private InfoTypeSubscriptions infoTypeSubscriptions;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        register(registry, "infoJobs", infoJobs, InfoJobs::getIndexMemoryUse);
+        register(registry, "infoProducers", infoProducers, InfoProducers::getIndexMemoryUse);
+        register(registry, "infoTypeSubscriptions", infoTypeSubscriptions, InfoTypeSubscriptions::getIndexMemoryUse);
+    }
+
+    private <T> void register(MeterRegistry registry, String repository, T obj, ToDoubleFunction<T> func) {
+        Gauge.builder(INDEX_MEMORY_METRIC, obj, func) //
+            .description("Estimated heap used by the secondary indexes") //
+            .baseUnit("bytes") //
+            .tag("repository", repository) //
+            .register(registry);
+    }
+}
@@ -22,6 +22,7 @@ package org.oransc.enrichment.repository;
 
 import java.lang.invoke.MethodHandles;
 import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
 
 import lombok.Builder;
 import lombok.Getter;
@@ -32,9 +33,10 @@ import org.slf4j.LoggerFactory;
 /**
  * Represents the dynamic information about a information job
  */
-@Builder
+@Builder(toBuilder = true)
 public class InfoJob {
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final AtomicLong revisions = new AtomicLong();
 
     @Getter
     private final String id;
@@ -62,6 +64,15 @@ public class InfoJob {
     @Builder.Default
     private boolean isLastStatusReportedEnabled = true;
 
+    /**
+     * Orders the revisions of jobs, a job created later has a higher revision. A
+     * copy of a job (see toBuilder) keeps its revision. Unlike the time of the
+     * last update, this does not depend on the clock.
+     */
+    @Getter
+    @Builder.Default
+    private final long revision = revisions.incrementAndGet();
+
     public void setLastReportedStatus(boolean isEnabled) {
         this.isLastStatusReportedEnabled = isEnabled;
         logger.debug("Job status id: {}, enabled: {}", this.isLastStatusReportedEnabled, isEnabled);
@@ -24,71 +24,211 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.TypeAdapterFactory;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.lang.invoke.MethodHandles;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.ServiceLoader;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.oransc.enrichment.clients.CachingDnsResolver;
 import org.oransc.enrichment.configuration.ApplicationConfig;
 import org.oransc.enrichment.controllers.r1producer.ProducerCallbacks;
+import org.oransc.enrichment.datastore.DataStore;
+import org.oransc.enrichment.datastore.RecordCodec;
+import org.oransc.enrichment.datastore.RestoreProgress;
 import org.oransc.enrichment.exceptions.ServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.util.FileSystemUtils;
 
 /**
  * Dynamic representation of all existing Information Jobs.
+ *
+ * Reads are lock free. Modifications of one job are serialized by a lock
+ * stripe selected by the job ID, so that the indexes and the database are
+ * updated consistently with the map of all jobs.
+ *
+ * Jobs with identical job data share one instance of it, see
+ * {@link JobDefinitions}.
+ *
+ * The jobs are indexed by type, owner and the combination of type and owner.
+ * The indexes by target URL and by time of last update are optional (see
+ * {@link ApplicationConfig}), without them queries on these fields are
+ * answered by scanning.
+ *
+ * Each stored job has a dense integer handle (see {@link JobHandles}), so that
+ * sets of jobs, like the jobs enabled in each producer, can be kept as
+ * compressed bitmaps.
  */
 public class InfoJobs {
-    private Map<String, InfoJob> allEiJobs = new HashMap<>();
+    private static final int NO_OF_LOCK_STRIPES = 64;
+    private static final char TYPE_OWNER_SEPARATOR = '\0';
+    // Rough estimate of the heap used by one entry in the index by time of last
+    // update (key, time and skip list node)
+    private static final long BYTES_PER_UPDATE_KEY = 96;
+    // Rough estimate of the heap used by one entry in the index by identity (skip
+    // list node and index levels), the identity itself is shared
+    private static final long BYTES_PER_ID_KEY = 48;
+
+    /**
+     * Key in the index by time of last update, the job ID makes it unique.
+     */
+    private static class UpdateKey implements Comparable<UpdateKey> {
+        final Instant time;
+        final String jobId;
+
+        UpdateKey(Instant time, String jobId) {
+            this.time = time;
+            this.jobId = jobId;
+        }
+
+        @Override
+        public int compareTo(UpdateKey other) {
+            int result = time.compareTo(other.time);
+            return result != 0 ? result : jobId.compareTo(other.jobId);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof UpdateKey && compareTo((UpdateKey) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(time, jobId);
+        }
+    }
 
-    private MultiMap<InfoJob> jobsByType = new MultiMap<>();
-    private MultiMap<InfoJob> jobsByOwner = new MultiMap<>();
-    private final Gson gson;
+    private final Map<String, InfoJob> allEiJobs = new ConcurrentHashMap<>();
+    // The identities of all jobs in order, for paged listings
+    private final ConcurrentSkipListMap<String, InfoJob> jobsById = new ConcurrentSkipListMap<>();
+
+    private final MultiMap<InfoJob> jobsByType = new MultiMap<>();
+    private final MultiMap<InfoJob> jobsByOwner = new MultiMap<>();
+    private final MultiMap<InfoJob> jobsByTypeAndOwner = new MultiMap<>();
+    private final MultiMap<InfoJob> jobsByTargetUrl;
+    private final NavigableMap<UpdateKey, InfoJob> jobsByLastUpdated;
+    private final JobHandles jobHandles = new JobHandles();
+    // The handles of all stored jobs
+    private final CompressedBitmap storedJobs = new CompressedBitmap();
+    private final Object[] lockStripes = new Object[NO_OF_LOCK_STRIPES];
+    private final RecordCodec<InfoJob> codec;
+    private final JobDefinitions definitions;
 
     private final ApplicationConfig config;
     private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     private final ProducerCallbacks producerCallbacks;
+    private final CachingDnsResolver dnsResolver;
+    private final DataStore dataStore;
 
-    public InfoJobs(ApplicationConfig config, ProducerCallbacks producerCallbacks) {
+    public InfoJobs(ApplicationConfig config, ProducerCallbacks producerCallbacks, CachingDnsResolver dnsResolver) {
         this.config = config;
+        this.jobsByTargetUrl = config.isJobIndexTargetUrl() ? new MultiMap<>() : null;
+        this.jobsByLastUpdated = config.isJobIndexLastUpdated() ? new ConcurrentSkipListMap<>() : null;
         GsonBuilder gsonBuilder = new GsonBuilder();
         ServiceLoader.load(TypeAdapterFactory.class).forEach(gsonBuilder::registerTypeAdapterFactory);
-        this.gson = gsonBuilder.create();
+        Gson gson = gsonBuilder.create();
+        final boolean isBinaryEncoded = config.getDatabaseBackend() == DataStore.Backend.JOURNAL;
         this.producerCallbacks = producerCallbacks;
+        this.dnsResolver = dnsResolver;
+        for (int i = 0; i < lockStripes.length; ++i) {
+            lockStripes[i] = new Object();
+        }
+        this.dataStore = DataStore.create(config, "eijobs", this::provideState, this::convertRecord);
+        // With JSON records, the job data is stored in each job
+        this.definitions = new JobDefinitions(gson, isBinaryEncoded ? dataStore : null);
+        this.codec = new RecordCodec<>(gson, InfoJob.class, new JobFormat(definitions), isBinaryEncoded);
+    }
+
+    private void provideState(BiConsumer<String, byte[]> consumer) {
+        definitions.forEach(consumer);
+        allEiJobs.values().forEach(job -> consumer.accept(job.getId(), toBytes(job)));
+    }
+
+    private byte[] convertRecord(byte[] value) {
+        return codec.convert(value);
+    }
+
+    /**
+     * Restores the jobs from the database. The database is read and parsed in
+     * parallel, the jobs are then inserted in one go.
+     */
+    public void restoreJobsFromDatabase() throws IOException {
+        List<InfoJob> jobs = dataStore.restore((key, value) -> {
+            if (JobDefinitions.isDefinitionKey(key)) {
+                definitions.load(key, value);
+                return null;
+            }
+            return toJob(value);
+        });
+        for (InfoJob job : jobs) {
+            if (job != null) {
+                doPut(job.toBuilder().jobData(definitions.resolve(job.getJobData())).build());
+            }
+        }
+        definitions.removeUnreferenced();
+        logger.debug("Restored {} jobs, {} job definitions", size(), definitions.size());
+    }
+
+    public RestoreProgress getRestoreProgress() {
+        return dataStore.getRestoreProgress();
     }
 
-    public synchronized void restoreJobsFromDatabase() throws IOException {
-        Files.createDirectories(Paths.get(getDatabaseDirectory()));
-        File dbDir = new File(getDatabaseDirectory());
+    /**
+     * Assigns a handle to a job that is about to be put, so that the job can be
+     * enabled in the producers before it is stored.
+     */
+    public void prepareForPut(InfoJob job) {
+        this.jobHandles.acquire(job.getId());
+    }
 
-        for (File file : dbDir.listFiles()) {
-            String json = Files.readString(file.toPath());
-            InfoJob job = gson.fromJson(json, InfoJob.class);
-            this.doPut(job);
+    /**
+     * Called when a put of a job is finished. If the job was not stored, for
+     * instance because the request was cancelled, the job is stopped in the
+     * producers and its handle is released.
+     */
+    public void finishPut(InfoJob job, InfoProducers infoProducers) {
+        synchronized (lockStripe(job.getId())) {
+            if (this.allEiJobs.containsKey(job.getId())) {
+                return;
+            }
         }
+        this.producerCallbacks.stopInfoJob(job, infoProducers);
+        releaseHandle(job.getId());
     }
 
-    public synchronized void put(InfoJob job) {
-        this.doPut(job);
-        storeJobInFile(job);
+    public void put(InfoJob job) {
+        Object sharedJobData = definitions.acquire(job.getJobData());
+        if (sharedJobData != job.getJobData()) {
+            job = job.toBuilder().jobData(sharedJobData).build();
+        }
+        synchronized (lockStripe(job.getId())) {
+            InfoJob previous = this.doPut(job);
+            storeJob(job);
+            if (previous != null) {
+                definitions.release(previous.getJobData());
+            }
+        }
+        this.producerCallbacks.evictEncodedJob(job.getId());
+        this.dnsResolver.preResolve(job.getJobStatusUrl());
     }
 
-    public synchronized Collection<InfoJob> getJobs() {
+    public Collection<InfoJob> getJobs() {
         return new Vector<>(allEiJobs.values());
     }
 
-    public synchronized InfoJob getJob(String id) throws ServiceException {
+    public InfoJob getJob(String id) throws ServiceException {
         InfoJob ric = allEiJobs.get(id);
         if (ric == null) {
             throw new ServiceException("Could not find Information job: " + id);
@@ -96,23 +236,81 @@ public class InfoJobs {
         return ric;
     }
 
-    public synchronized Collection<InfoJob> getJobsForType(String typeId) {
+    public Collection<InfoJob> getJobsForType(String typeId) {
         return jobsByType.get(typeId);
     }
 
-    public synchronized Collection<InfoJob> getJobsForType(InfoType type) {
+    public Collection<InfoJob> getJobsForType(InfoType type) {
         return jobsByType.get(type.getId());
     }
 
-    public synchronized Collection<InfoJob> getJobsForOwner(String owner) {
+    public Collection<InfoJob> getJobsForOwner(String owner) {
         return jobsByOwner.get(owner);
     }
 
-    public synchronized InfoJob get(String id) {
+    /**
+     * Selects jobs matching all given criteria. The most selective of the indexes
+     * that match a criterion is used, the other criteria are then checked for
+     * each selected job.
+     *
+     * @param typeId selects jobs of a type, or null
+     * @param owner selects jobs of an owner, or null
+     * @param targetUrl selects jobs with a target URL, or null
+     * @param updatedSince selects jobs updated at or after a time, or null
+     * @return the matching jobs
+     */
+    public Collection<InfoJob> getJobs(String typeId, String owner, String targetUrl, Instant updatedSince) {
+        return streamJobs(typeId, owner, targetUrl, updatedSince).collect(Collectors.toList());
+    }
+
+    /**
+     * Same as {@link #getJobs(String, String, String, Instant)}, but the matching
+     * jobs are not collected. The stream is lazily evaluated, so a large result
+     * can be consumed without being copied.
+     */
+    public Stream<InfoJob> streamJobs(String typeId, String owner, String targetUrl, Instant updatedSince) {
+        Collection<InfoJob> candidates = null;
+        if (typeId != null && owner != null) {
+            candidates = jobsByTypeAndOwner.get(typeOwnerKey(typeId, owner));
+        } else if (typeId != null) {
+            candidates = jobsByType.get(typeId);
+        } else if (owner != null) {
+            candidates = jobsByOwner.get(owner);
+        }
+        if (targetUrl != null && jobsByTargetUrl != null) {
+            Collection<InfoJob> jobs = jobsByTargetUrl.get(targetUrl);
+            if (candidates == null || jobs.size() < candidates.size()) {
+                candidates = jobs;
+            }
+        }
+        if (candidates == null && updatedSince != null && jobsByLastUpdated != null) {
+            candidates = jobsByLastUpdated.tailMap(new UpdateKey(updatedSince, ""), true).values();
+        }
+        if (candidates == null) {
+            candidates = allEiJobs.values();
+        }
+
+        return candidates.stream() //
+            .filter(job -> (typeId == null || typeId.equals(job.getTypeId())) //
+                && (owner == null || owner.equals(job.getOwner())) //
+                && (targetUrl == null || targetUrl.equals(job.getTargetUrl())) //
+                && (updatedSince == null || !lastUpdatedOf(job).isBefore(updatedSince)));
+    }
+
+    /**
+     * @param after only identities greater than this are streamed, or null
+     * @return the identities of all jobs, in lexicographic order. A page of a
+     *         listing is read without visiting the jobs before it.
+     */
+    public Stream<String> streamJobIds(String after) {
+        return (after == null ? jobsById : jobsById.tailMap(after, false)).keySet().stream();
+    }
+
+    public InfoJob get(String id) {
         return allEiJobs.get(id);
     }
 
-    public synchronized InfoJob remove(String id, InfoProducers infoProducers) {
+    public InfoJob remove(String id, InfoProducers infoProducers) {
         InfoJob job = allEiJobs.get(id);
         if (job != null) {
             remove(job, infoProducers);
@@ -120,65 +318,245 @@ public class InfoJobs {
         return job;
     }
 
-    public synchronized void remove(InfoJob job, InfoProducers infoProducers) {
-        this.allEiJobs.remove(job.getId());
-        jobsByType.remove(job.getTypeId(), job.getId());
-        jobsByOwner.remove(job.getOwner(), job.getId());
+    public void remove(InfoJob job, InfoProducers infoProducers) {
+        removeFromRepository(job);
+        this.producerCallbacks.stopInfoJob(job, infoProducers);
+        releaseHandle(job.getId());
+    }
 
-        try {
-            Files.delete(getPath(job));
-        } catch (IOException e) {
-            logger.warn("Could not remove file: {}", e.getMessage());
+    /**
+     * Removes several jobs. The producers that support it are notified with bulk
+     * callbacks.
+     */
+    public void remove(Collection<InfoJob> jobs, InfoProducers infoProducers) {
+        jobs.forEach(this::removeFromRepository);
+        this.producerCallbacks.stopInfoJobs(jobs, infoProducers);
+        jobs.forEach(job -> releaseHandle(job.getId()));
+    }
+
+    /**
+     * Releases the handle of a removed job, when the job is stopped in the
+     * producers. A job with the same ID that is stored meanwhile keeps the handle.
+     */
+    private void releaseHandle(String jobId) {
+        synchronized (lockStripe(jobId)) {
+            if (!this.allEiJobs.containsKey(jobId)) {
+                this.jobHandles.release(jobId);
+            }
         }
-        this.producerCallbacks.stopInfoJob(job, infoProducers);
     }
 
-    public synchronized int size() {
+    private void removeFromRepository(InfoJob job) {
+        synchronized (lockStripe(job.getId())) {
+            InfoJob removed = this.allEiJobs.remove(job.getId());
+            if (removed != null) {
+                this.jobsById.remove(job.getId());
+                removeFromIndexes(removed);
+                JobHandles.Handle handle = jobHandles.get(job.getId());
+                synchronized (storedJobs) {
+                    storedJobs.remove(handle != null ? handle.getValue() : -1);
+                }
+            }
+
+            try {
+                dataStore.delete(job.getId());
+            } catch (IOException e) {
+                logger.warn("Could not remove job from database: {} {}", job.getId(), e.getMessage());
+            }
+            if (removed != null) {
+                definitions.release(removed.getJobData());
+            }
+        }
+        this.producerCallbacks.evictEncodedJob(job.getId());
+    }
+
+    public int size() {
         return allEiJobs.size();
     }
 
-    public synchronized void clear() {
+    /**
+     * @return the number of distinct job definitions (job data) of the jobs
+     */
+    public int getNoOfJobDefinitions() {
+        return definitions.size();
+    }
+
+    public JobHandles getJobHandles() {
+        return jobHandles;
+    }
+
+    /**
+     * @return the handles of all stored jobs
+     */
+    public CompressedBitmap getJobHandleSet() {
+        synchronized (storedJobs) {
+            return storedJobs.copy();
+        }
+    }
+
+    public long getIndexMemoryUse() {
+        long memoryUse = jobsByType.estimatedMemoryUse() + jobsByOwner.estimatedMemoryUse()
+            + jobsByTypeAndOwner.estimatedMemoryUse();
+        synchronized (storedJobs) {
+            memoryUse += storedJobs.estimatedMemoryUse();
+        }
+        if (jobsByTargetUrl != null) {
+            memoryUse += jobsByTargetUrl.estimatedMemoryUse();
+        }
+        if (jobsByLastUpdated != null) {
+            memoryUse += (long) allEiJobs.size() * BYTES_PER_UPDATE_KEY;
+        }
+        memoryUse += (long) jobsById.size() * BYTES_PER_ID_KEY;
+        return memoryUse;
+    }
+
+    public void clear() {
         this.allEiJobs.clear();
+        this.jobsById.clear();
         this.jobsByType.clear();
         jobsByOwner.clear();
+        jobsByTypeAndOwner.clear();
+        if (jobsByTargetUrl != null) {
+            jobsByTargetUrl.clear();
+        }
+        if (jobsByLastUpdated != null) {
+            jobsByLastUpdated.clear();
+        }
+        definitions.clear();
+        synchronized (storedJobs) {
+            storedJobs.clear();
+        }
+        jobHandles.clear();
         clearDatabase();
     }
 
     private void clearDatabase() {
         try {
-            FileSystemUtils.deleteRecursively(Path.of(getDatabaseDirectory()));
-            Files.createDirectories(Paths.get(getDatabaseDirectory()));
+            dataStore.clear();
         } catch (IOException e) {
             logger.warn("Could not delete database : {}", e.getMessage());
         }
     }
 
-    private void doPut(InfoJob job) {
-        allEiJobs.put(job.getId(), job);
+    private InfoJob doPut(InfoJob job) {
+        InfoJob previous = allEiJobs.put(job.getId(), job);
+        if (previous != null) {
+            removeFromIndexes(previous);
+        }
+        jobsById.put(job.getId(), job);
         jobsByType.put(job.getTypeId(), job.getId(), job);
         jobsByOwner.put(job.getOwner(), job.getId(), job);
+        jobsByTypeAndOwner.put(typeOwnerKey(job.getTypeId(), job.getOwner()), job.getId(), job);
+        if (jobsByTargetUrl != null && job.getTargetUrl() != null) {
+            jobsByTargetUrl.put(job.getTargetUrl(), job.getId(), job);
+        }
+        if (jobsByLastUpdated != null) {
+            jobsByLastUpdated.put(new UpdateKey(lastUpdatedOf(job), job.getId()), job);
+        }
+        synchronized (storedJobs) {
+            storedJobs.add(jobHandles.acquire(job.getId()).getValue());
+        }
+        return previous;
     }
 
-    private void storeJobInFile(InfoJob job) {
+    private void removeFromIndexes(InfoJob job) {
+        jobsByType.remove(job.getTypeId(), job.getId());
+        jobsByOwner.remove(job.getOwner(), job.getId());
+        jobsByTypeAndOwner.remove(typeOwnerKey(job.getTypeId(), job.getOwner()), job.getId());
+        if (jobsByTargetUrl != null && job.getTargetUrl() != null) {
+            jobsByTargetUrl.remove(job.getTargetUrl(), job.getId());
+        }
+        if (jobsByLastUpdated != null) {
+            jobsByLastUpdated.remove(new UpdateKey(lastUpdatedOf(job), job.getId()));
+        }
+    }
+
+    private static String typeOwnerKey(String typeId, String owner) {
+        return typeId + TYPE_OWNER_SEPARATOR + owner;
+    }
+
+    private static Instant lastUpdatedOf(InfoJob job) {
         try {
-            try (PrintStream out = new PrintStream(new FileOutputStream(getFile(job)))) {
-                out.print(gson.toJson(job));
-            }
+            return job.getLastUpdated() == null ? Instant.EPOCH : Instant.parse(job.getLastUpdated());
+        } catch (DateTimeParseException e) {
+            return Instant.EPOCH;
+        }
+    }
+
+    private Object lockStripe(String jobId) {
+        return lockStripes[Math.floorMod(jobId.hashCode(), lockStripes.length)];
+    }
+
+    private void storeJob(InfoJob job) {
+        try {
+            dataStore.put(job.getId(), toBytes(job));
         } catch (Exception e) {
             logger.warn("Could not store job: {} {}", job.getId(), e.getMessage());
         }
     }
 
-    private File getFile(InfoJob job) {
-        return getPath(job).toFile();
+    private byte[] toBytes(InfoJob job) {
+        return codec.encode(job);
     }
 
-    private Path getPath(InfoJob job) {
-        return Path.of(getDatabaseDirectory(), job.getId());
+    private InfoJob toJob(byte[] bytes) {
+        return codec.decode(bytes);
     }
 
-    private String getDatabaseDirectory() {
-        return config.getVardataDirectory() + "/database/eijobs";
+    static class JobFormat implements RecordCodec.BinaryFormat<InfoJob> {
+        private final JobDefinitions definitions;
+
+        /**
+         * @param definitions the stored job definitions, null if the job data is
+         *        stored in each job
+         */
+        JobFormat(JobDefinitions definitions) {
+            this.definitions = definitions;
+        }
+
+        @Override
+        public int getSchemaVersion() {
+            return 2;
+        }
+
+        @Override
+        public void write(InfoJob job, RecordCodec.Writer out) {
+            out.writeString(job.getId());
+            out.writeString(job.getTypeId());
+            out.writeString(job.getOwner());
+            String reference = definitions == null ? null : definitions.referenceOf(job.getJobData());
+            out.writeBoolean(reference != null);
+            if (reference != null) {
+                out.writeString(reference);
+            } else {
+                out.writeObject(job.getJobData());
+            }
+            out.writeString(job.getTargetUrl());
+            out.writeString(job.getJobStatusUrl());
+            out.writeTimestamp(job.getLastUpdated());
+            out.writeBoolean(job.isLastStatusReportedEnabled());
+        }
+
+        @Override
+        public InfoJob read(RecordCodec.Reader in, int schemaVersion) {
+            return InfoJob.builder() //
+                .id(in.readString()) //
+                .typeId(in.readString()) //
+                .owner(in.readString()) //
+                .jobData(readJobData(in, schemaVersion)) //
+                .targetUrl(in.readString()) //
+                .jobStatusUrl(in.readString()) //
+                .lastUpdated(in.readTimestamp()) //
+                .isLastStatusReportedEnabled(in.readBoolean()) //
+                .build();
+        }
+
+        private static Object readJobData(RecordCodec.Reader in, int schemaVersion) {
+            if (schemaVersion >= 2 && in.readBoolean()) {
+                return new JobDefinitions.Reference(in.readString());
+            }
+            return in.readObject();
+        }
     }
 
 }
@@ -20,9 +20,10 @@
 
 package org.oransc.enrichment.repository;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.HashMap;
+import java.util.Map;
 
 import lombok.Getter;
 
@@ -39,23 +40,48 @@ public class InfoProducer {
     @Getter
     private final String producerSupervisionCallbackUrl;
 
-    private final Set<String> enabledJobs = new HashSet<>();
+    @Getter
+    private final String jobBulkCallbackUrl;
+
+    private final JobHandles jobHandles;
+
+    // The handles of the jobs that are enabled in the producer
+    private final CompressedBitmap enabledJobs = new CompressedBitmap();
+
+    private boolean isDeregistered = false;
+
+    // Jobs that are not confirmed to be started in the producer, these are
+    // checked by the supervision
+    private final Map<String, InfoJob> pendingJobs = new HashMap<>();
 
     private int unresponsiveCounter = 0;
 
+    private int respondingCounter = 0;
+
     public InfoProducer(String id, Collection<InfoType> infoTypes, String jobCallbackUrl,
-        String producerSupervisionCallbackUrl) {
+        String producerSupervisionCallbackUrl, String jobBulkCallbackUrl, JobHandles jobHandles) {
         this.id = id;
         this.infoTypes = infoTypes;
         this.jobCallbackUrl = jobCallbackUrl;
         this.producerSupervisionCallbackUrl = producerSupervisionCallbackUrl;
+        this.jobBulkCallbackUrl = jobBulkCallbackUrl;
+        this.jobHandles = jobHandles;
+    }
+
+    /**
+     * Can several jobs be started or stopped in one callback to the producer?
+     */
+    public boolean isBulkCallbackSupported() {
+        return this.jobBulkCallbackUrl != null && !this.jobBulkCallbackUrl.isEmpty();
     }
 
     public synchronized void setAliveStatus(boolean isAlive) {
         if (isAlive) {
             unresponsiveCounter = 0;
+            respondingCounter++;
         } else {
             unresponsiveCounter++;
+            respondingCounter = 0;
         }
     }
 
@@ -67,19 +93,91 @@ public class InfoProducer {
         return this.unresponsiveCounter == 0;
     }
 
+    /**
+     * @return the number of consecutive supervision checks that the producer
+     *         has responded to
+     */
+    public synchronized int getNoOfConsecutiveResponses() {
+        return this.respondingCounter;
+    }
+
+    /**
+     * The job is enabled. The count of enabled producers of the job is
+     * maintained here, a producer that is deregistered does not count. A job
+     * without a handle is removed (or was never stored) and is not enabled.
+     */
     public synchronized void setJobEnabled(InfoJob job) {
-        this.enabledJobs.add(job.getId());
+        JobHandles.Handle handle = jobHandles.get(job.getId());
+        if (!this.isDeregistered && handle != null && !this.enabledJobs.contains(handle.getValue())
+            && handle.tryProducerEnabled()) {
+            this.enabledJobs.add(handle.getValue());
+        }
+        this.pendingJobs.remove(job.getId());
     }
 
     public synchronized void setJobDisabled(InfoJob job) {
-        this.enabledJobs.remove(job.getId());
+        disable(job);
+        this.pendingJobs.put(job.getId(), job);
+    }
+
+    /**
+     * The job is being started in the producer, it is pending until it is
+     * enabled.
+     */
+    public synchronized void setJobPending(InfoJob job) {
+        this.pendingJobs.put(job.getId(), job);
+    }
+
+    /**
+     * The job is removed, it is neither enabled nor pending.
+     */
+    public synchronized void setJobRemoved(InfoJob job) {
+        disable(job);
+        this.pendingJobs.remove(job.getId());
+    }
+
+    /**
+     * The producer is deregistered or replaced by a new registration, none of
+     * its jobs are enabled any more.
+     */
+    public synchronized void setDeregistered() {
+        this.isDeregistered = true;
+        this.enabledJobs.forEach(value -> {
+            JobHandles.Handle handle = jobHandles.get(value);
+            if (handle != null) {
+                handle.producerDisabled();
+            }
+        });
+        this.enabledJobs.clear();
+    }
+
+    private void disable(InfoJob job) {
+        JobHandles.Handle handle = jobHandles.get(job.getId());
+        if (handle != null && this.enabledJobs.remove(handle.getValue())) {
+            handle.producerDisabled();
+        }
+    }
+
+    /**
+     * @return the jobs that are disabled or not yet confirmed to be started
+     */
+    public synchronized Collection<InfoJob> getPendingJobs() {
+        return new ArrayList<>(this.pendingJobs.values());
     }
 
     /**
      * Is the job enabled for this producer?
      */
     public synchronized boolean isJobEnabled(InfoJob job) {
-        return this.enabledJobs.contains(job.getId());
+        JobHandles.Handle handle = jobHandles.get(job.getId());
+        return handle != null && this.enabledJobs.contains(handle.getValue());
+    }
+
+    /**
+     * @return the handles of the jobs that are enabled for this producer
+     */
+    public synchronized CompressedBitmap getEnabledJobs() {
+        return this.enabledJobs.copy();
     }
 
 }
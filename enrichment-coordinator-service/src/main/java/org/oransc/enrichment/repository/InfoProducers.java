@@ -24,12 +24,15 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import lombok.Builder;
 import lombok.Getter;
 
+import org.oransc.enrichment.clients.CachingDnsResolver;
 import org.oransc.enrichment.controllers.a1e.A1eCallbacks;
 import org.oransc.enrichment.controllers.r1producer.ProducerCallbacks;
 import org.oransc.enrichment.exceptions.ServiceException;
@@ -47,6 +50,7 @@ public class InfoProducers {
     private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
     private final Map<String, InfoProducer> allEiProducers = new HashMap<>();
     private final MultiMap<InfoProducer> producersByType = new MultiMap<>();
+    private final List<RegistrationListener> registrationListeners = new CopyOnWriteArrayList<>();
 
     @Autowired
     private ProducerCallbacks producerCallbacks;
@@ -57,6 +61,18 @@ public class InfoProducers {
     @Autowired
     private InfoJobs infoJobs;
 
+    @Autowired
+    private CachingDnsResolver dnsResolver;
+
+    /**
+     * Is notified when producers are registered and deregistered.
+     */
+    public interface RegistrationListener {
+        void producerRegistered(InfoProducer producer);
+
+        void producerDeregistered(InfoProducer producer);
+    }
+
     @Builder
     @Getter
     public static class InfoProducerRegistrationInfo {
@@ -67,6 +83,8 @@ public class InfoProducers {
         String jobCallbackUrl;
 
         String producerSupervisionCallbackUrl;
+
+        String jobBulkCallbackUrl;
     }
 
     public InfoProducer registerProducer(InfoProducerRegistrationInfo producerInfo) {
@@ -77,6 +95,7 @@ public class InfoProducers {
                 producersByType.remove(type.getId(), producerId);
             }
             allEiProducers.remove(producerId);
+            previousDefinition.setDeregistered();
         }
 
         InfoProducer producer = createProducer(producerInfo);
@@ -88,6 +107,11 @@ public class InfoProducers {
         Collection<InfoType> previousTypes =
             previousDefinition != null ? previousDefinition.getInfoTypes() : new ArrayList<>();
 
+        dnsResolver.preResolve(producer.getJobCallbackUrl());
+        dnsResolver.preResolve(producer.getProducerSupervisionCallbackUrl());
+        dnsResolver.preResolve(producer.getJobBulkCallbackUrl());
+        registrationListeners.forEach(listener -> listener.producerRegistered(producer));
+
         producerCallbacks.startInfoJobs(producer, this.infoJobs) //
             .collectList() //
             .flatMapMany(list -> consumerCallbacks.notifyJobStatus(producer.getInfoTypes())) //
@@ -98,9 +122,14 @@ public class InfoProducers {
         return producer;
     }
 
+    public void addRegistrationListener(RegistrationListener listener) {
+        registrationListeners.add(listener);
+    }
+
     private InfoProducer createProducer(InfoProducerRegistrationInfo producerInfo) {
         return new InfoProducer(producerInfo.getId(), producerInfo.getSupportedTypes(),
-            producerInfo.getJobCallbackUrl(), producerInfo.getProducerSupervisionCallbackUrl());
+            producerInfo.getJobCallbackUrl(), producerInfo.getProducerSupervisionCallbackUrl(),
+            producerInfo.getJobBulkCallbackUrl(), infoJobs.getJobHandles());
     }
 
     public synchronized Collection<InfoProducer> getAllProducers() {
@@ -124,6 +153,7 @@ public class InfoProducers {
     }
 
     public synchronized void clear() {
+        this.allEiProducers.values().forEach(InfoProducer::setDeregistered);
         this.allEiProducers.clear();
         this.producersByType.clear();
     }
@@ -135,19 +165,21 @@ public class InfoProducers {
                 this.logger.error("Bug, no producer found");
             }
         }
+        producer.setDeregistered();
+        registrationListeners.forEach(listener -> listener.producerDeregistered(producer));
         this.consumerCallbacks.notifyJobStatus(producer.getInfoTypes()) //
             .subscribe();
     }
 
-    public synchronized Collection<InfoProducer> getProducersForType(InfoType type) {
+    public Collection<InfoProducer> getProducersForType(InfoType type) {
         return this.producersByType.get(type.getId());
     }
 
-    public synchronized Collection<InfoProducer> getProducersForType(String typeId) {
+    public Collection<InfoProducer> getProducersForType(String typeId) {
         return this.producersByType.get(typeId);
     }
 
-    public synchronized Collection<String> getProducerIdsForType(String typeId) {
+    public Collection<String> getProducerIdsForType(String typeId) {
         Collection<String> producerIds = new ArrayList<>();
         for (InfoProducer p : this.getProducersForType(typeId)) {
             producerIds.add(p.getId());
@@ -155,13 +187,37 @@ public class InfoProducers {
         return producerIds;
     }
 
-    public synchronized boolean isJobEnabled(InfoJob job) {
-        for (InfoProducer producer : this.producersByType.get(job.getTypeId())) {
-            if (producer.isJobEnabled(job)) {
-                return true;
-            }
+    public long getIndexMemoryUse() {
+        return this.producersByType.estimatedMemoryUse();
+    }
+
+    /**
+     * @return the handles of the jobs that are enabled in at least one producer
+     */
+    public CompressedBitmap getEnabledJobs() {
+        CompressedBitmap result = new CompressedBitmap();
+        for (InfoProducer producer : getAllProducers()) {
+            result.or(producer.getEnabledJobs());
         }
-        return false;
+        return result;
+    }
+
+    /**
+     * @return the number of stored jobs that are not enabled in any producer
+     */
+    public int getNoOfJobsEnabledNowhere() {
+        CompressedBitmap result = infoJobs.getJobHandleSet();
+        result.andNot(getEnabledJobs());
+        return result.cardinality();
+    }
+
+    /**
+     * Is the job enabled in any producer? This is read from the count of enabled
+     * producers that is kept for each job, without locking.
+     */
+    public boolean isJobEnabled(InfoJob job) {
+        JobHandles.Handle handle = infoJobs.getJobHandles().get(job.getId());
+        return handle != null && handle.getNoOfEnabledProducers() > 0;
     }
 
 }
@@ -20,38 +20,35 @@
 
 package org.oransc.enrichment.repository;
 
-import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.lang.invoke.MethodHandles;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.Duration;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import lombok.Builder;
 import lombok.Getter;
 
+import org.oransc.enrichment.clients.CachingDnsResolver;
+import org.oransc.enrichment.clients.RetryBudgets;
 import org.oransc.enrichment.configuration.ApplicationConfig;
+import org.oransc.enrichment.datastore.DataStore;
+import org.oransc.enrichment.datastore.RecordCodec;
+import org.oransc.enrichment.datastore.RestoreProgress;
 import org.oransc.enrichment.exceptions.ServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.util.FileSystemUtils;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
 
 /**
  * Subscriptions of callbacks for type registrations
@@ -60,11 +57,14 @@ import reactor.util.retry.Retry;
 @Configuration
 public class InfoTypeSubscriptions {
     private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-    private final Map<String, SubscriptionInfo> allSubscriptions = new HashMap<>();
+    private final Map<String, SubscriptionInfo> allSubscriptions = new ConcurrentHashMap<>();
     private final MultiMap<SubscriptionInfo> subscriptionsByOwner = new MultiMap<>();
-    private final Gson gson = new GsonBuilder().create();
+    private final RecordCodec<SubscriptionInfo> codec;
     private final ApplicationConfig config;
     private final Map<String, ConsumerCallbackHandler> callbackHandlers = new HashMap<>();
+    private final DataStore dataStore;
+    private final RetryBudgets retryBudgets;
+    private final CachingDnsResolver dnsResolver;
 
     public interface ConsumerCallbackHandler {
         Mono<String> notifyTypeRegistered(InfoType type, SubscriptionInfo subscriptionInfo);
@@ -84,13 +84,23 @@ public class InfoTypeSubscriptions {
         private String apiVersion;
     }
 
-    public InfoTypeSubscriptions(@Autowired ApplicationConfig config) {
+    public InfoTypeSubscriptions(@Autowired ApplicationConfig config, @Autowired RetryBudgets retryBudgets,
+        @Autowired CachingDnsResolver dnsResolver) {
         this.config = config;
+        this.retryBudgets = retryBudgets;
+        this.dnsResolver = dnsResolver;
+        this.codec = new RecordCodec<>(new GsonBuilder().create(), SubscriptionInfo.class, new SubscriptionFormat(),
+            config.getDatabaseBackend() == DataStore.Backend.JOURNAL);
+        this.dataStore =
+            DataStore.create(config, "infotypesubscriptions",
+                consumer -> allSubscriptions.values()
+                    .forEach(subscription -> consumer.accept(subscription.getId(), toBytes(subscription))),
+                codec::convert);
 
         try {
             this.restoreFromDatabase();
         } catch (IOException e) {
-            logger.error("Could not restore info type subscriptions from database {}", this.getDatabaseDirectory());
+            logger.error("Could not restore info type subscriptions from database {}", e.getMessage());
         }
     }
 
@@ -100,7 +110,8 @@ public class InfoTypeSubscriptions {
 
     public synchronized void put(SubscriptionInfo subscription) {
         doPut(subscription);
-        storeInFile(subscription);
+        store(subscription);
+        dnsResolver.preResolve(subscription.getCallbackUrl());
         logger.debug("Added type status subscription {}", subscription.id);
     }
 
@@ -138,6 +149,10 @@ public class InfoTypeSubscriptions {
         return allSubscriptions.size();
     }
 
+    public long getIndexMemoryUse() {
+        return subscriptionsByOwner.estimatedMemoryUse();
+    }
+
     public synchronized void clear() {
         allSubscriptions.clear();
         subscriptionsByOwner.clear();
@@ -149,7 +164,7 @@ public class InfoTypeSubscriptions {
         subscriptionsByOwner.remove(subscription.owner, subscription.id);
 
         try {
-            Files.delete(getPath(subscription));
+            dataStore.delete(subscription.getId());
         } catch (Exception e) {
             logger.debug("Could not delete subscription from database: {}", e.getMessage());
         }
@@ -202,10 +217,14 @@ public class InfoTypeSubscriptions {
         }
     }
 
+    /**
+     * The number of concurrent notifications is limited by the REST client of the
+     * callback handler, for each consumer, and by the max fan out for all.
+     */
     private synchronized void notifyAllSubscribers(Function<? super SubscriptionInfo, Mono<String>> notifyFunc) {
-        final int MAX_CONCURRENCY = 5;
+        final int maxFanOut = config.getWebClientConfig().concurrencyLimitConfig().maxFanOut();
         Flux.fromIterable(allSubscriptions.values()) //
-            .flatMap(subscription -> notifySubscriber(notifyFunc, subscription), MAX_CONCURRENCY) //
+            .flatMap(subscription -> notifySubscriber(notifyFunc, subscription), maxFanOut) //
             .subscribe();
     }
 
@@ -219,10 +238,8 @@ public class InfoTypeSubscriptions {
      */
     private Mono<String> notifySubscriber(Function<? super SubscriptionInfo, Mono<String>> notifyFunc,
         SubscriptionInfo subscriptionInfo) {
-        Retry retrySpec = Retry.backoff(3, Duration.ofSeconds(1));
-        return Mono.just(1) //
-            .flatMap(notUsed -> notifyFunc.apply(subscriptionInfo)) //
-            .retryWhen(retrySpec) //
+        Mono<String> notification = Mono.defer(() -> notifyFunc.apply(subscriptionInfo));
+        return retryBudgets.withRetries(subscriptionInfo.getCallbackUrl(), notification, 3) //
             .onErrorResume(throwable -> {
                 logger.warn("Consumer callback failed {}, removing subscription {}", throwable.getMessage(),
                     subscriptionInfo.id);
@@ -233,54 +250,67 @@ public class InfoTypeSubscriptions {
 
     private void clearDatabase() {
         try {
-            FileSystemUtils.deleteRecursively(Path.of(getDatabaseDirectory()));
-            Files.createDirectories(Paths.get(getDatabaseDirectory()));
+            dataStore.clear();
         } catch (IOException e) {
             logger.warn("Could not delete database : {}", e.getMessage());
         }
     }
 
-    private void storeInFile(SubscriptionInfo subscription) {
+    private void store(SubscriptionInfo subscription) {
         try {
-            try (PrintStream out = new PrintStream(new FileOutputStream(getFile(subscription)))) {
-                String json = gson.toJson(subscription);
-                out.print(json);
-            }
+            dataStore.put(subscription.getId(), toBytes(subscription));
         } catch (Exception e) {
             logger.warn("Could not save subscription: {} {}", subscription.getId(), e.getMessage());
         }
     }
 
-    public synchronized void restoreFromDatabase() throws IOException {
-        Files.createDirectories(Paths.get(getDatabaseDirectory()));
-        File dbDir = new File(getDatabaseDirectory());
+    private byte[] toBytes(SubscriptionInfo subscription) {
+        return codec.encode(subscription);
+    }
 
-        for (File file : dbDir.listFiles()) {
-            String json = Files.readString(file.toPath());
-            SubscriptionInfo subscription = gson.fromJson(json, SubscriptionInfo.class);
-            doPut(subscription);
+    public void restoreFromDatabase() throws IOException {
+        List<SubscriptionInfo> subscriptions = dataStore.restore(this::toSubscription);
+        synchronized (this) {
+            subscriptions.forEach(this::doPut);
         }
     }
 
-    private void doPut(SubscriptionInfo subscription) {
-        allSubscriptions.put(subscription.getId(), subscription);
-        subscriptionsByOwner.put(subscription.owner, subscription.id, subscription);
+    public RestoreProgress getRestoreProgress() {
+        return dataStore.getRestoreProgress();
     }
 
-    private File getFile(SubscriptionInfo subscription) {
-        return getPath(subscription).toFile();
+    private SubscriptionInfo toSubscription(byte[] bytes) {
+        return codec.decode(bytes);
     }
 
-    private Path getPath(SubscriptionInfo subscription) {
-        return getPath(subscription.getId());
-    }
+    private static class SubscriptionFormat implements RecordCodec.BinaryFormat<SubscriptionInfo> {
+        @Override
+        public int getSchemaVersion() {
+            return 1;
+        }
+
+        @Override
+        public void write(SubscriptionInfo subscription, RecordCodec.Writer out) {
+            out.writeString(subscription.getId());
+            out.writeString(subscription.getCallbackUrl());
+            out.writeString(subscription.getOwner());
+            out.writeString(subscription.getApiVersion());
+        }
 
-    private Path getPath(String subscriptionId) {
-        return Path.of(getDatabaseDirectory(), subscriptionId);
+        @Override
+        public SubscriptionInfo read(RecordCodec.Reader in, int schemaVersion) {
+            return SubscriptionInfo.builder() //
+                .id(in.readString()) //
+                .callbackUrl(in.readString()) //
+                .owner(in.readString()) //
+                .apiVersion(in.readString()) //
+                .build();
+        }
     }
 
-    private String getDatabaseDirectory() {
-        return config.getVardataDirectory() + "/database/infotypesubscriptions";
+    private void doPut(SubscriptionInfo subscription) {
+        allSubscriptions.put(subscription.getId(), subscription);
+        subscriptionsByOwner.put(subscription.owner, subscription.id, subscription);
     }
 
 }
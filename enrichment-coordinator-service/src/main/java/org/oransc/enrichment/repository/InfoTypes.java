@@ -20,29 +20,25 @@
 
 package org.oransc.enrichment.repository;
 
-import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.TypeAdapterFactory;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.lang.invoke.MethodHandles;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.oransc.enrichment.configuration.ApplicationConfig;
+import org.oransc.enrichment.datastore.DataStore;
+import org.oransc.enrichment.datastore.RecordCodec;
+import org.oransc.enrichment.datastore.RestoreProgress;
 import org.oransc.enrichment.exceptions.ServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.util.FileSystemUtils;
 
 /**
  * Dynamic representation of all Information Types in the system.
@@ -50,31 +46,36 @@ import org.springframework.util.FileSystemUtils;
 @SuppressWarnings("squid:S2629") // Invoke method(s) only conditionally
 public class InfoTypes {
     private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-    private final Map<String, InfoType> allEiTypes = new HashMap<>();
+    private final Map<String, InfoType> allEiTypes = new ConcurrentHashMap<>();
     private final ApplicationConfig config;
-    private final Gson gson;
+    private final RecordCodec<InfoType> codec;
+    private final DataStore dataStore;
 
     public InfoTypes(ApplicationConfig config) {
         this.config = config;
         GsonBuilder gsonBuilder = new GsonBuilder();
         ServiceLoader.load(TypeAdapterFactory.class).forEach(gsonBuilder::registerTypeAdapterFactory);
-        this.gson = gsonBuilder.create();
+        this.codec = new RecordCodec<>(gsonBuilder.create(), InfoType.class, new TypeFormat(),
+            config.getDatabaseBackend() == DataStore.Backend.JOURNAL);
+        this.dataStore = DataStore.create(config, "eitypes",
+            consumer -> allEiTypes.values().forEach(type -> consumer.accept(type.getId(), toBytes(type))),
+            codec::convert);
     }
 
-    public synchronized void restoreTypesFromDatabase() throws IOException {
-        Files.createDirectories(Paths.get(getDatabaseDirectory()));
-        File dbDir = new File(getDatabaseDirectory());
-
-        for (File file : dbDir.listFiles()) {
-            String json = Files.readString(file.toPath());
-            InfoType type = gson.fromJson(json, InfoType.class);
-            allEiTypes.put(type.getId(), type);
+    public void restoreTypesFromDatabase() throws IOException {
+        List<InfoType> types = dataStore.restore(this::toType);
+        synchronized (this) {
+            types.forEach(type -> allEiTypes.put(type.getId(), type));
         }
     }
 
+    public RestoreProgress getRestoreProgress() {
+        return dataStore.getRestoreProgress();
+    }
+
     public synchronized void put(InfoType type) {
         allEiTypes.put(type.getId(), type);
-        storeInFile(type);
+        store(type);
     }
 
     public synchronized Collection<InfoType> getAllInfoTypes() {
@@ -96,9 +97,9 @@ public class InfoTypes {
     public synchronized void remove(InfoType type) {
         allEiTypes.remove(type.getId());
         try {
-            Files.delete(getPath(type));
+            dataStore.delete(type.getId());
         } catch (IOException e) {
-            logger.warn("Could not remove file: {} {}", type.getId(), e.getMessage());
+            logger.warn("Could not remove type from database: {} {}", type.getId(), e.getMessage());
         }
     }
 
@@ -113,36 +114,44 @@ public class InfoTypes {
 
     private void clearDatabase() {
         try {
-            FileSystemUtils.deleteRecursively(Path.of(getDatabaseDirectory()));
-            Files.createDirectories(Paths.get(getDatabaseDirectory()));
+            dataStore.clear();
         } catch (IOException e) {
             logger.warn("Could not delete database : {}", e.getMessage());
         }
     }
 
-    private void storeInFile(InfoType type) {
+    private void store(InfoType type) {
         try {
-            try (PrintStream out = new PrintStream(new FileOutputStream(getFile(type)))) {
-                out.print(gson.toJson(type));
-            }
+            dataStore.put(type.getId(), toBytes(type));
         } catch (Exception e) {
-            logger.warn("Could not save job: {} {}", type.getId(), e.getMessage());
+            logger.warn("Could not save type: {} {}", type.getId(), e.getMessage());
         }
     }
 
-    private File getFile(InfoType type) {
-        return getPath(type).toFile();
+    private byte[] toBytes(InfoType type) {
+        return codec.encode(type);
     }
 
-    private Path getPath(InfoType type) {
-        return getPath(type.getId());
+    private InfoType toType(byte[] bytes) {
+        return codec.decode(bytes);
     }
 
-    private Path getPath(String typeId) {
-        return Path.of(getDatabaseDirectory(), typeId);
-    }
+    private static class TypeFormat implements RecordCodec.BinaryFormat<InfoType> {
+        @Override
+        public int getSchemaVersion() {
+            return 1;
+        }
+
+        @Override
+        public void write(InfoType type, RecordCodec.Writer out) {
+            out.writeString(type.getId());
+            out.writeObject(type.getJobDataSchema());
+            out.writeObject(type.getTypeSpecificInfo());
+        }
 
-    private String getDatabaseDirectory() {
-        return config.getVardataDirectory() + "/database/eitypes";
+        @Override
+        public InfoType read(RecordCodec.Reader in, int schemaVersion) {
+            return new InfoType(in.readString(), in.readObject(), in.readObject());
+        }
     }
 }
@@ -0,0 +1,290 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.repository;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.oransc.enrichment.datastore.DataStore;
+import org.oransc.enrichment.datastore.RecordCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content addressed, reference counted store of job definitions (the job data
+ * of information jobs). Jobs with identical job data share one instance, which
+ * is released when the last job referring to it is removed.
+ *
+ * When a data store is given, each definition is stored as a separate record,
+ * keyed by the hash of the job data, and the stored jobs refer to it. The data
+ * store is called without holding the monitor of this object, since the
+ * monitor is needed when the data store is compacted.
+ */
+class JobDefinitions {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    // Job IDs are path segments in the REST API, so they never start with a '/'
+    private static final String KEY_PREFIX = "/jobdefinition/";
+
+    /**
+     * Refers to a definition by its hash, used for job data in a restored job
+     * until the definitions are resolved.
+     */
+    static class Reference {
+        final String hash;
+
+        Reference(String hash) {
+            this.hash = hash;
+        }
+    }
+
+    private static class Definition {
+        final String hash;
+        final Object jobData;
+        int refCount = 0;
+
+        Definition(String hash, Object jobData) {
+            this.hash = hash;
+            this.jobData = jobData;
+        }
+    }
+
+    private final Map<String, Definition> byHash = new HashMap<>();
+    private final Map<Object, Definition> byJobData = new IdentityHashMap<>();
+    // Serializes the updates of the data store, see storeOrDelete
+    private final Object storeLock = new Object();
+    private final Gson gson;
+    private final DataStore dataStore;
+
+    /**
+     * @param gson used to create the canonical form of job data, which is hashed
+     * @param dataStore where the definitions are stored, null if they are stored
+     *        in each job
+     */
+    JobDefinitions(Gson gson, DataStore dataStore) {
+        this.gson = gson;
+        this.dataStore = dataStore;
+    }
+
+    static boolean isDefinitionKey(String key) {
+        return key.startsWith(KEY_PREFIX);
+    }
+
+    /**
+     * Adds a reference to the definition of some job data. The definition is
+     * created and stored if it does not exist.
+     *
+     * @return the shared instance of the job data
+     */
+    Object acquire(Object jobData) {
+        if (jobData == null) {
+            return null;
+        }
+        synchronized (this) {
+            Definition definition = byJobData.get(jobData);
+            if (definition != null) {
+                ++definition.refCount;
+                return definition.jobData;
+            }
+        }
+        final String hash = hashOf(jobData);
+        boolean isCreated = false;
+        Object sharedJobData;
+        synchronized (this) {
+            Definition definition = byHash.get(hash);
+            if (definition == null) {
+                definition = add(hash, jobData);
+                isCreated = true;
+            }
+            ++definition.refCount;
+            sharedJobData = definition.jobData;
+        }
+        if (isCreated) {
+            storeOrDelete(hash);
+        }
+        return sharedJobData;
+    }
+
+    /**
+     * Removes a reference to a definition. The definition is removed when it is no
+     * longer referenced.
+     */
+    void release(Object jobData) {
+        Definition removed = null;
+        synchronized (this) {
+            Definition definition = jobData == null ? null : byJobData.get(jobData);
+            if (definition != null && --definition.refCount <= 0) {
+                remove(definition);
+                removed = definition;
+            }
+        }
+        if (removed != null) {
+            storeOrDelete(removed.hash);
+        }
+    }
+
+    /**
+     * @return the hash of a shared job data instance, null if the job data is not
+     *         stored as a separate definition
+     */
+    synchronized String referenceOf(Object jobData) {
+        if (dataStore == null || jobData == null) {
+            return null;
+        }
+        Definition definition = byJobData.get(jobData);
+        return definition == null ? null : definition.hash;
+    }
+
+    /**
+     * Parses a stored definition. Used at restore, the definition is not
+     * referenced until it is resolved by a job.
+     */
+    synchronized Object load(String key, byte[] value) {
+        Definition definition = add(key.substring(KEY_PREFIX.length()), RecordCodec.decodeObject(value));
+        return definition.jobData;
+    }
+
+    /**
+     * Adds a reference to a definition, used for restored jobs. The job data is
+     * either a {@link Reference} or the job data itself.
+     *
+     * @return the shared instance of the job data, null if a referred definition
+     *         is missing
+     */
+    Object resolve(Object jobData) {
+        if (!(jobData instanceof Reference)) {
+            return acquire(jobData);
+        }
+        synchronized (this) {
+            Definition definition = byHash.get(((Reference) jobData).hash);
+            if (definition == null) {
+                logger.warn("Job definition not found: {}", ((Reference) jobData).hash);
+                return null;
+            }
+            ++definition.refCount;
+            return definition.jobData;
+        }
+    }
+
+    /**
+     * Removes the definitions that are not referenced by any job, used after a
+     * restore.
+     */
+    void removeUnreferenced() {
+        List<Definition> unreferenced = new ArrayList<>();
+        synchronized (this) {
+            byHash.values().stream().filter(definition -> definition.refCount <= 0).forEach(unreferenced::add);
+            unreferenced.forEach(this::remove);
+        }
+        unreferenced.forEach(definition -> storeOrDelete(definition.hash));
+    }
+
+    /**
+     * Provides all stored definitions, used when the data store is compacted.
+     */
+    void forEach(BiConsumer<String, byte[]> consumer) {
+        if (dataStore == null) {
+            return;
+        }
+        List<Definition> definitions;
+        synchronized (this) {
+            definitions = new ArrayList<>(byHash.values());
+        }
+        definitions.forEach(definition -> consumer.accept(keyOf(definition), toBytes(definition)));
+    }
+
+    synchronized int size() {
+        return byHash.size();
+    }
+
+    synchronized void clear() {
+        byHash.clear();
+        byJobData.clear();
+    }
+
+    private Definition add(String hash, Object jobData) {
+        Definition definition = new Definition(hash, jobData);
+        byHash.put(hash, definition);
+        byJobData.put(jobData, definition);
+        return definition;
+    }
+
+    private void remove(Definition definition) {
+        byHash.remove(definition.hash);
+        byJobData.remove(definition.jobData);
+    }
+
+    /**
+     * Stores a definition if it exists, otherwise deletes it from the data store.
+     * The current state is read while the store lock is held, so concurrent
+     * changes of one definition are stored in the order they were made.
+     */
+    private void storeOrDelete(String hash) {
+        if (dataStore == null) {
+            return;
+        }
+        synchronized (storeLock) {
+            Definition definition;
+            synchronized (this) {
+                definition = byHash.get(hash);
+            }
+            try {
+                if (definition != null) {
+                    dataStore.put(KEY_PREFIX + hash, toBytes(definition));
+                } else {
+                    dataStore.delete(KEY_PREFIX + hash);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not update job definition in database: {} {}", hash, e.getMessage());
+            }
+        }
+    }
+
+    private static String keyOf(Definition definition) {
+        return KEY_PREFIX + definition.hash;
+    }
+
+    private static byte[] toBytes(Definition definition) {
+        return RecordCodec.encodeObject(definition.jobData);
+    }
+
+    private String hashOf(Object jobData) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(gson.toJson(jobData).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.repository;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dense integer handles of the information jobs, so that sets of jobs can be
+ * kept as compressed bitmaps. The handles of removed jobs are reused, so the
+ * handles stay within the number of jobs.
+ *
+ * Each handle also counts the producers that have enabled the job, so that the
+ * status of a job is read without locking and without asking the producers.
+ */
+public class JobHandles {
+
+    /**
+     * The handle of one job.
+     */
+    public static class Handle {
+        // Value of the counter when the handle is released
+        private static final int RELEASED = -1;
+
+        private final int value;
+        private final AtomicInteger noOfEnabledProducers = new AtomicInteger();
+
+        Handle(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        /**
+         * @return the number of producers that have enabled the job
+         */
+        public int getNoOfEnabledProducers() {
+            return Math.max(0, noOfEnabledProducers.get());
+        }
+
+        /**
+         * @return false if the handle is released, the job is then removed
+         */
+        boolean tryProducerEnabled() {
+            int count;
+            do {
+                count = noOfEnabledProducers.get();
+                if (count == RELEASED) {
+                    return false;
+                }
+            } while (!noOfEnabledProducers.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        void producerDisabled() {
+            noOfEnabledProducers.decrementAndGet();
+        }
+
+        /**
+         * A handle can only be released when no producer has enabled the job.
+         */
+        private boolean tryRelease() {
+            return noOfEnabledProducers.compareAndSet(0, RELEASED);
+        }
+    }
+
+    private final Map<String, Handle> handles = new ConcurrentHashMap<>();
+    private Handle[] handlesByValue = new Handle[16];
+    private int[] freeHandles = new int[16];
+    private int noOfFreeHandles = 0;
+    private int nextHandle = 0;
+
+    /**
+     * @return the handle of a job, a new handle is assigned if the job has none
+     */
+    public synchronized Handle acquire(String jobId) {
+        Handle handle = handles.get(jobId);
+        if (handle != null) {
+            return handle;
+        }
+        handle = new Handle(noOfFreeHandles > 0 ? freeHandles[--noOfFreeHandles] : nextHandle++);
+        if (handle.getValue() == handlesByValue.length) {
+            handlesByValue = Arrays.copyOf(handlesByValue, handlesByValue.length * 2);
+        }
+        handlesByValue[handle.getValue()] = handle;
+        handles.put(jobId, handle);
+        return handle;
+    }
+
+    /**
+     * @return the handle of a job or null, this is done without locking
+     */
+    public Handle get(String jobId) {
+        return handles.get(jobId);
+    }
+
+    /**
+     * @return the handle with the given value or null
+     */
+    public synchronized Handle get(int value) {
+        return value >= 0 && value < handlesByValue.length ? handlesByValue[value] : null;
+    }
+
+    /**
+     * Releases the handle of a job, the handle may then be assigned to another
+     * job. The job must not be a member of any set when this is done. A handle
+     * of a job that is enabled in a producer is kept, this happens if the job is
+     * enabled while it is removed.
+     */
+    public synchronized void release(String jobId) {
+        Handle handle = handles.get(jobId);
+        if (handle != null && handle.tryRelease()) {
+            handles.remove(jobId);
+            handlesByValue[handle.getValue()] = null;
+            if (noOfFreeHandles == freeHandles.length) {
+                freeHandles = Arrays.copyOf(freeHandles, freeHandles.length * 2);
+            }
+            freeHandles[noOfFreeHandles++] = handle.getValue();
+        }
+    }
+
+    public synchronized int size() {
+        return handles.size();
+    }
+
+    public synchronized void clear() {
+        handles.clear();
+        Arrays.fill(handlesByValue, null);
+        noOfFreeHandles = 0;
+        nextHandle = 0;
+    }
+}
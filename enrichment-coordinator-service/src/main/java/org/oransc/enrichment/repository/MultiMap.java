@@ -20,42 +20,138 @@
 
 package org.oransc.enrichment.repository;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A map, where each key can be bound to may values (where each value has an own
- * ID)
+ * ID). The map is thread safe, reads are not blocked by modifications.
+ *
+ * The values for a key are read as an immutable snapshot. The snapshot is
+ * built at the first read after a modification and is then shared by all
+ * readers until the values for the key are modified again.
  */
 public class MultiMap<T> {
 
-    private final Map<String, Map<String, T>> map = new HashMap<>();
+    // Rough estimates of the heap used by the maps and snapshots (64 bit JVM,
+    // compressed references)
+    private static final long BYTES_PER_KEY = 160;
+    private static final long BYTES_PER_VALUE = 56;
+    private static final long BYTES_PER_SNAPSHOT_REFERENCE = 4;
+
+    private static class Snapshot<T> {
+        final long version;
+        final List<T> values;
+
+        Snapshot(long version, List<T> values) {
+            this.version = version;
+            this.values = values;
+        }
+    }
+
+    private static class Bucket<T> {
+        private static final int MAX_SNAPSHOT_ATTEMPTS = 3;
+        final Map<String, T> values = new ConcurrentHashMap<>();
+        volatile long version = 0;
+        volatile Snapshot<T> snapshot = null;
+
+        // Only invoked when holding the bucket (in ConcurrentHashMap.compute)
+        void modified() {
+            ++version;
+            snapshot = null;
+        }
+
+        List<T> snapshot() {
+            Snapshot<T> s = this.snapshot;
+            if (s != null && s.version == this.version) {
+                return s.values;
+            }
+            List<T> values = null;
+            for (int attempt = 0; attempt < MAX_SNAPSHOT_ATTEMPTS; ++attempt) {
+                long v = this.version;
+                values = List.copyOf(this.values.values());
+                if (v == this.version) {
+                    this.snapshot = new Snapshot<>(v, values);
+                    return values;
+                }
+            }
+            // Frequently modified, return a snapshot without caching it
+            return values;
+        }
+
+        long estimatedMemoryUse() {
+            Snapshot<T> s = this.snapshot;
+            long snapshotSize = s == null ? 0 : s.values.size() * BYTES_PER_SNAPSHOT_REFERENCE;
+            return BYTES_PER_KEY + this.values.size() * BYTES_PER_VALUE + snapshotSize;
+        }
+    }
+
+    private final Map<String, Bucket<T>> map = new ConcurrentHashMap<>();
 
     public void put(String key, String id, T value) {
-        this.map.computeIfAbsent(key, k -> new HashMap<>()).put(id, value);
+        this.map.compute(key, (k, bucket) -> {
+            if (bucket == null) {
+                bucket = new Bucket<>();
+            }
+            bucket.values.put(id, value);
+            bucket.modified();
+            return bucket;
+        });
     }
 
     public T remove(String key, String id) {
-        Map<String, T> innerMap = this.map.get(key);
-        if (innerMap != null) {
-            T removedElement = innerMap.remove(id);
-            if (innerMap.isEmpty()) {
-                this.map.remove(key);
+        List<T> removedElement = new ArrayList<>(1);
+        this.map.computeIfPresent(key, (k, bucket) -> {
+            T removed = bucket.values.remove(id);
+            if (removed != null) {
+                removedElement.add(removed);
+                bucket.modified();
             }
-            return removedElement;
-        }
-        return null;
+            return bucket.values.isEmpty() ? null : bucket;
+        });
+        return removedElement.isEmpty() ? null : removedElement.get(0);
     }
 
+    /**
+     * Gets the values bound to a key.
+     *
+     * @param key the key
+     * @return an immutable snapshot of the values, which is not affected by later
+     *         modifications of the map
+     */
     public Collection<T> get(String key) {
-        Map<String, T> innerMap = this.map.get(key);
-        if (innerMap == null) {
+        Bucket<T> bucket = this.map.get(key);
+        if (bucket == null) {
             return Collections.emptyList();
         }
-        return new Vector<>(innerMap.values());
+        return bucket.snapshot();
+    }
+
+    /**
+     * @return the total number of values in the map
+     */
+    public int size() {
+        int size = 0;
+        for (Bucket<T> bucket : this.map.values()) {
+            size += bucket.values.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return a rough estimate of the number of bytes used by the map, excluding
+     *         the values themselves
+     */
+    public long estimatedMemoryUse() {
+        long bytes = 0;
+        for (Bucket<T> bucket : this.map.values()) {
+            bytes += bucket.estimatedMemoryUse();
+        }
+        return bytes;
     }
 
     public void clear() {
@@ -0,0 +1,154 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.oransc.enrichment.configuration.ApplicationConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Leases of the Info Producers that send heartbeats. A lease is renewed by each
+ * heartbeat and expires if no heartbeat is received within the lease duration.
+ * The leases are ordered by expiry time, so finding the expired leases does
+ * not depend on the number of leases. The leases are updated without locks, so
+ * heartbeats from many producers do not block each other.
+ *
+ * A lease belongs to one registration of a producer. A producer that is
+ * registered again with the same identity does not get the lease of the
+ * previous registration.
+ */
+@Component
+public class ProducerLeases {
+
+    private static class Lease implements Comparable<Lease> {
+        final InfoProducer producer;
+        final String producerId;
+        final long expiresAtMillis;
+
+        Lease(InfoProducer producer, long expiresAtMillis) {
+            this.producer = producer;
+            this.producerId = producer.getId();
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        @Override
+        public int compareTo(Lease other) {
+            int result = Long.compare(expiresAtMillis, other.expiresAtMillis);
+            return result != 0 ? result : producerId.compareTo(other.producerId);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Lease && compareTo((Lease) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return producerId.hashCode() * 31 + Long.hashCode(expiresAtMillis);
+        }
+    }
+
+    private final Duration leaseDuration;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Lease> leasesByExpiry = new ConcurrentSkipListSet<>();
+
+    @Autowired
+    public ProducerLeases(ApplicationConfig config) {
+        this.leaseDuration = config.getProducerHeartbeatLease();
+    }
+
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    /**
+     * Creates or renews the lease of a producer.
+     */
+    public void renew(InfoProducer producer, long nowMillis) {
+        Lease lease = new Lease(producer, nowMillis + leaseDuration.toMillis());
+        leasesByExpiry.add(lease);
+        Lease previous = leases.put(producer.getId(), lease);
+        if (previous != null && !previous.equals(lease)) {
+            leasesByExpiry.remove(previous);
+        }
+    }
+
+    /**
+     * Cancels the lease of a producer, a lease of a later registration of the
+     * producer is kept.
+     */
+    public void cancel(InfoProducer producer) {
+        Lease lease = leases.get(producer.getId());
+        if (lease != null && lease.producer == producer && leases.remove(producer.getId(), lease)) {
+            leasesByExpiry.remove(lease);
+        }
+    }
+
+    /**
+     * @return true if the producer sends heartbeats and its lease is not expired
+     */
+    public boolean isLeased(InfoProducer producer, long nowMillis) {
+        Lease lease = leases.get(producer.getId());
+        return lease != null && lease.producer == producer && lease.expiresAtMillis > nowMillis;
+    }
+
+    public int size() {
+        return leases.size();
+    }
+
+    public void clear() {
+        leases.clear();
+        leasesByExpiry.clear();
+    }
+
+    /**
+     * Removes the leases that are expired.
+     *
+     * @return the producers which lease expired
+     */
+    public List<InfoProducer> expire(long nowMillis) {
+        List<InfoProducer> expired = new ArrayList<>();
+        Lease first;
+        while ((first = firstLease()) != null && first.expiresAtMillis <= nowMillis) {
+            // A lease that is renewed is replaced by a new lease, the old one is ignored
+            if (leasesByExpiry.remove(first) && leases.remove(first.producerId, first)) {
+                expired.add(first.producer);
+            }
+        }
+        return expired;
+    }
+
+    private Lease firstLease() {
+        try {
+            return leasesByExpiry.first();
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+}
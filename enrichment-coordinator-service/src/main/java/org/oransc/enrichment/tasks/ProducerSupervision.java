@@ -20,6 +20,17 @@
 
 package org.oransc.enrichment.tasks;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 import org.oransc.enrichment.configuration.ApplicationConfig;
 import org.oransc.enrichment.controllers.a1e.A1eCallbacks;
 import org.oransc.enrichment.controllers.r1producer.ProducerCallbacks;
@@ -27,6 +38,7 @@ import org.oransc.enrichment.repository.InfoJob;
 import org.oransc.enrichment.repository.InfoJobs;
 import org.oransc.enrichment.repository.InfoProducer;
 import org.oransc.enrichment.repository.InfoProducers;
+import org.oransc.enrichment.repository.ProducerLeases;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,44 +48,119 @@ import org.springframework.stereotype.Component;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
 
 /**
- * Regularly checks the availability of the Info Producers
+ * Regularly checks the availability of the Info Producers. Each producer is
+ * checked in its own slot of a timing wheel, so that the checks are spread
+ * evenly over time instead of all producers being checked at once. A producer
+ * that keeps responding is checked less often and a producer that does not
+ * respond is checked more often. A producer that sends heartbeats is not
+ * checked, it is deregistered when its lease expires.
  */
 @Component
 @EnableScheduling
 @SuppressWarnings("squid:S2629") // Invoke method(s) only conditionally
-public class ProducerSupervision {
+public class ProducerSupervision implements InfoProducers.RegistrationListener {
     private static final Logger logger = LoggerFactory.getLogger(ProducerSupervision.class);
 
+    public static final String LAG_METRIC = "ecs.supervision.lag";
+    public static final String SCHEDULED_METRIC = "ecs.supervision.scheduled";
+
+    private static final int NO_OF_WHEEL_LEVELS = 4;
+    private static final int MAX_INTERVAL_DOUBLINGS = 16;
+
+    private final ApplicationConfig applicationConfig;
     private final InfoProducers infoProducers;
     private final InfoJobs infoJobs;
     private final ProducerCallbacks producerCallbacks;
     private final A1eCallbacks consumerCallbacks;
+    private final ProducerLeases producerLeases;
+    private final TimingWheel<String> checkSchedule;
+    private final Timer lag;
 
     @Autowired
     public ProducerSupervision(ApplicationConfig applicationConfig, InfoProducers infoProducers, InfoJobs infoJobs,
-        ProducerCallbacks producerCallbacks, A1eCallbacks consumerCallbacks) {
+        ProducerCallbacks producerCallbacks, A1eCallbacks consumerCallbacks, ProducerLeases producerLeases) {
+        this.applicationConfig = applicationConfig;
         this.infoProducers = infoProducers;
         this.infoJobs = infoJobs;
         this.producerCallbacks = producerCallbacks;
         this.consumerCallbacks = consumerCallbacks;
+        this.producerLeases = producerLeases;
+        this.checkSchedule = new TimingWheel<>(applicationConfig.getProducerSupervisionTick(), NO_OF_WHEEL_LEVELS,
+            System.currentTimeMillis());
+        this.lag = Timer.builder(LAG_METRIC) //
+            .description("Delay from when the check of a producer is due until it is started") //
+            .publishPercentiles(0.5, 0.99) //
+            .register(Metrics.globalRegistry);
+        Gauge.builder(SCHEDULED_METRIC, checkSchedule, TimingWheel::size) //
+            .description("Number of producers with a scheduled check") //
+            .register(Metrics.globalRegistry);
+
+        infoProducers.addRegistrationListener(this);
+        infoProducers.getAllProducers().forEach(this::producerRegistered);
+    }
+
+    @Scheduled(fixedRateString = "${app.producer-supervision.tick-millis:1000}")
+    public void checkDueProducers() {
+        final long now = System.currentTimeMillis();
+        expireLeases(now);
+        createDueTask(now).subscribe(null,
+            throwable -> logger.warn("Checking producers failed: {}", throwable.getMessage()));
+    }
+
+    /**
+     * Deregisters the producers which heartbeat lease is expired.
+     */
+    public void expireLeases(long nowMillis) {
+        for (InfoProducer producer : producerLeases.expire(nowMillis)) {
+            // A producer that is registered again does not inherit the lease
+            if (infoProducers.get(producer.getId()) == producer) {
+                logger.warn("No heartbeat received from producer: {}", producer.getId());
+                infoProducers.deregisterProducer(producer);
+            }
+        }
     }
 
-    @Scheduled(fixedRate = 1000 * 60 * 5)
-    public void checkAllProducers() {
-        logger.debug("Checking producers starting");
-        createTask().subscribe(null, null, () -> logger.debug("Checking all Producers completed"));
+    /**
+     * Checks the producers that are due at the given time.
+     */
+    public Flux<InfoProducer> createDueTask(long nowMillis) {
+        List<TimingWheel.Timeout<String>> dueChecks = checkSchedule.advance(nowMillis);
+        return Flux.fromIterable(dueChecks) //
+            .doOnNext(timeout -> lag.record(nowMillis - timeout.getDueMillis(), TimeUnit.MILLISECONDS)) //
+            .flatMap(timeout -> Mono.justOrEmpty(infoProducers.get(timeout.getKey()))) //
+            .flatMap(this::checkOneProducer);
     }
 
+    /**
+     * Checks all producers now, regardless of when they are due.
+     */
     public Flux<InfoProducer> createTask() {
         return Flux.fromIterable(infoProducers.getAllProducers()) //
             .flatMap(this::checkOneProducer);
     }
 
+    /**
+     * @return true if a check of the producer is scheduled
+     */
+    public boolean isScheduled(InfoProducer producer) {
+        return checkSchedule.isScheduled(producer.getId());
+    }
+
+    @Override
+    public void producerRegistered(InfoProducer producer) {
+        checkSchedule.schedule(producer.getId(), firstCheckMillis(producer, System.currentTimeMillis()));
+    }
+
+    @Override
+    public void producerDeregistered(InfoProducer producer) {
+        checkSchedule.cancel(producer.getId());
+        producerLeases.cancel(producer);
+    }
+
     private Mono<InfoProducer> checkOneProducer(InfoProducer producer) {
-        return this.producerCallbacks.healthCheck(producer) //
+        return healthCheck(producer) //
             .onErrorResume(throwable -> {
                 handleNonRespondingProducer(throwable, producer);
                 return Mono.empty();
@@ -83,32 +170,99 @@ public class ProducerSupervision {
             .flatMap(responses -> Mono.just(producer));
     }
 
+    /**
+     * A producer with a valid heartbeat lease is alive without being called.
+     */
+    private Mono<String> healthCheck(InfoProducer producer) {
+        if (producerLeases.isLeased(producer, System.currentTimeMillis())) {
+            return Mono.just("Heartbeat lease is valid");
+        }
+        return this.producerCallbacks.healthCheck(producer);
+    }
+
+    /**
+     * Starts the jobs that are pending in the producer. Only these are visited,
+     * so a check of a producer that is in sync costs nothing.
+     */
     private Mono<?> checkProducerJobs(InfoProducer producer) {
-        final int MAX_CONCURRENCY = 10;
-        return getEiJobs(producer) //
-            .filter(infoJob -> !producer.isJobEnabled(infoJob)) //
-            .flatMap(infoJob -> producerCallbacks.startInfoJob(producer, infoJob, Retry.max(1)), MAX_CONCURRENCY) //
+        Collection<InfoJob> pendingJobs = producer.getPendingJobs();
+        if (pendingJobs.isEmpty()) {
+            return Mono.just(producer);
+        }
+        List<InfoJob> disabledJobs = new ArrayList<>();
+        for (InfoJob job : pendingJobs) {
+            InfoJob stored = infoJobs.get(job.getId());
+            if (stored != null) {
+                disabledJobs.add(stored); // The stored version may be later than the pending
+            } else if (infoJobs.getJobHandles().get(job.getId()) == null) {
+                producer.setJobRemoved(job); // The job is removed
+            }
+            // else the first start of the job is in flight, it is stored when completed
+        }
+        if (disabledJobs.isEmpty()) {
+            return Mono.just(producer);
+        }
+        return producerCallbacks.startInfoJobs(producer, Flux.fromIterable(disabledJobs), 1) //
             .collectList() //
-            .flatMapMany(startedJobs -> consumerCallbacks.notifyJobStatus(producer.getInfoTypes())) //
+            .flatMapMany(startedJobs -> consumerCallbacks.notifyJobStatusOfJobs(disabledJobs)) //
             .collectList();
     }
 
-    private Flux<InfoJob> getEiJobs(InfoProducer producer) {
-        return Flux.fromIterable(producer.getInfoTypes()) //
-            .flatMap(infoType -> Flux.fromIterable(infoJobs.getJobsForType(infoType)));
-    }
-
     private void handleNonRespondingProducer(Throwable throwable, InfoProducer producer) {
         logger.warn("Unresponsive producer: {} exception: {}", producer.getId(), throwable.getMessage());
         producer.setAliveStatus(false);
         if (producer.isDead()) {
             this.infoProducers.deregisterProducer(producer);
+        } else {
+            scheduleNextCheck(producer);
         }
     }
 
     private void handleRespondingProducer(String response, InfoProducer producer) {
         logger.debug("{}", response);
         producer.setAliveStatus(true);
+        scheduleNextCheck(producer);
+    }
+
+    private void scheduleNextCheck(InfoProducer producer) {
+        if (infoProducers.get(producer.getId()) != producer) {
+            return; // Deregistered or replaced
+        }
+        long intervalMillis = jittered(checkInterval(producer).toMillis());
+        checkSchedule.schedule(producer.getId(), System.currentTimeMillis() + intervalMillis);
+    }
+
+    /**
+     * The interval is doubled for each consecutive response, from the check
+     * interval up to the max check interval.
+     */
+    private Duration checkInterval(InfoProducer producer) {
+        if (!producer.isAvailable()) {
+            return applicationConfig.getProducerUnhealthyCheckInterval();
+        }
+        int doublings = Math.min(Math.max(producer.getNoOfConsecutiveResponses() - 1, 0), MAX_INTERVAL_DOUBLINGS);
+        Duration interval = applicationConfig.getProducerCheckInterval().multipliedBy(1L << doublings);
+        Duration maxInterval = applicationConfig.getProducerMaxCheckInterval();
+        return interval.compareTo(maxInterval) > 0 ? maxInterval : interval;
+    }
+
+    private long jittered(long intervalMillis) {
+        double jitter = applicationConfig.getProducerCheckJitter();
+        double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return (long) (intervalMillis * factor);
+    }
+
+    /**
+     * The first check of a producer is made in the slot of the producer within
+     * the check interval. The slot is given by the producer identity, so
+     * producers that are registered at the same time are checked at different
+     * times.
+     */
+    private long firstCheckMillis(InfoProducer producer, long nowMillis) {
+        long intervalMillis = Math.max(1, applicationConfig.getProducerCheckInterval().toMillis());
+        long phaseMillis = Math.floorMod(producer.getId().hashCode() * 0x9E3779B9L, intervalMillis);
+        long slotMillis = nowMillis - Math.floorMod(nowMillis, intervalMillis) + phaseMillis;
+        return slotMillis > nowMillis ? slotMillis : slotMillis + intervalMillis;
     }
 
 }
@@ -0,0 +1,218 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.tasks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A hierarchical timing wheel, which keeps track of when each key is due. The
+ * time is divided in ticks. The lowest level has one slot per tick and each
+ * higher level has one slot per rotation of the level below. Keys due far away
+ * are stored in a higher level and are moved down a level when the slot of
+ * that level is reached. Scheduling, cancelling and expiring a key is done in
+ * constant time, independent of the number of scheduled keys.
+ *
+ * Each key is scheduled at most once, scheduling a key again replaces its
+ * previous due time.
+ */
+public class TimingWheel<K> {
+    private static final int SLOT_BITS = 6;
+    private static final int NO_OF_SLOTS = 1 << SLOT_BITS;
+    private static final long SLOT_MASK = NO_OF_SLOTS - 1L;
+
+    /**
+     * A key that is due.
+     */
+    public static class Timeout<K> {
+        private final K key;
+        private final long dueMillis;
+
+        Timeout(K key, long dueMillis) {
+            this.key = key;
+            this.dueMillis = dueMillis;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public long getDueMillis() {
+            return dueMillis;
+        }
+    }
+
+    private static class Entry<K> {
+        final K key;
+        final long dueMillis;
+        final long dueTick;
+        Set<K> bucket;
+
+        Entry(K key, long dueMillis, long dueTick) {
+            this.key = key;
+            this.dueMillis = dueMillis;
+            this.dueTick = dueTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final int noOfLevels;
+    private final List<List<Set<K>>> levels = new ArrayList<>();
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * @param tick the resolution of the wheel
+     * @param noOfLevels the number of levels, a wheel can keep keys due within
+     *        tick * 64^noOfLevels. Keys due later than that are kept in the
+     *        highest level until they are within range.
+     * @param startMillis the current time
+     */
+    public TimingWheel(Duration tick, int noOfLevels, long startMillis) {
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.noOfLevels = noOfLevels;
+        this.currentTick = startMillis / tickMillis;
+        for (int level = 0; level < noOfLevels; ++level) {
+            List<Set<K>> slots = new ArrayList<>(NO_OF_SLOTS);
+            for (int slot = 0; slot < NO_OF_SLOTS; ++slot) {
+                slots.add(new LinkedHashSet<>());
+            }
+            levels.add(slots);
+        }
+    }
+
+    /**
+     * Schedules a key, replacing any previous schedule of the same key. A key
+     * that is due already expires at the next tick.
+     */
+    public synchronized void schedule(K key, long dueMillis) {
+        cancel(key);
+        long dueTick = (dueMillis + tickMillis - 1) / tickMillis;
+        Entry<K> entry = new Entry<>(key, dueMillis, dueTick);
+        entries.put(key, entry);
+        place(entry, currentTick + 1);
+    }
+
+    /**
+     * @return true if the key was scheduled
+     */
+    public synchronized boolean cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.bucket.remove(key);
+        return true;
+    }
+
+    public synchronized boolean isScheduled(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.values().forEach(entry -> entry.bucket.clear());
+        entries.clear();
+    }
+
+    /**
+     * Moves the wheel forward to the given time.
+     *
+     * @return the keys that became due, these are no longer scheduled
+     */
+    public synchronized List<Timeout<K>> advance(long nowMillis) {
+        List<Timeout<K>> result = new ArrayList<>();
+        final long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick && !entries.isEmpty()) {
+            ++currentTick;
+            cascade();
+            Set<K> bucket = slot(0, currentTick);
+            for (K key : bucket) {
+                Entry<K> entry = entries.remove(key);
+                result.add(new Timeout<>(key, entry.dueMillis));
+            }
+            bucket.clear();
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return result;
+    }
+
+    /**
+     * Moves the keys of the higher level slots that are reached by the current
+     * tick down to the lower levels.
+     */
+    private void cascade() {
+        int highestLevel = 0;
+        while (highestLevel + 1 < noOfLevels && isRotationCompleted(highestLevel)) {
+            ++highestLevel;
+        }
+        for (int level = highestLevel; level > 0; --level) {
+            Set<K> bucket = slot(level, currentTick >>> (SLOT_BITS * level));
+            List<K> keys = new ArrayList<>(bucket);
+            bucket.clear();
+            for (K key : keys) {
+                place(entries.get(key), currentTick);
+            }
+        }
+    }
+
+    /**
+     * Puts an entry in the lowest level that covers its due tick. Entries that
+     * are due before minTick are put in the slot of minTick.
+     */
+    private void place(Entry<K> entry, long minTick) {
+        final long tick = Math.max(entry.dueTick, minTick);
+        final long ticksLeft = tick - currentTick;
+        Set<K> bucket = null;
+        for (int level = 0; level < noOfLevels && bucket == null; ++level) {
+            if (ticksLeft < (1L << (SLOT_BITS * (level + 1)))) {
+                bucket = slot(level, tick >>> (SLOT_BITS * level));
+            }
+        }
+        if (bucket == null) {
+            // Out of range, kept in the last slot of the highest level to be reached
+            int highestLevel = noOfLevels - 1;
+            bucket = slot(highestLevel, (currentTick >>> (SLOT_BITS * highestLevel)) + SLOT_MASK);
+        }
+        bucket.add(entry.key);
+        entry.bucket = bucket;
+    }
+
+    /**
+     * @return true if the current tick starts a new rotation of the given level
+     */
+    private boolean isRotationCompleted(int level) {
+        long rotationMask = (1L << (SLOT_BITS * (level + 1))) - 1;
+        return (currentTick & rotationMask) == 0;
+    }
+
+    private Set<K> slot(int level, long index) {
+        return levels.get(level).get((int) (index & SLOT_MASK));
+    }
+}
@@ -34,7 +34,17 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.json.JSONObject;
 import org.junit.jupiter.api.AfterEach;
@@ -43,6 +53,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.oransc.enrichment.clients.AsyncRestClient;
 import org.oransc.enrichment.clients.AsyncRestClientFactory;
+import org.oransc.enrichment.clients.CachingDnsResolver;
+import org.oransc.enrichment.clients.CircuitBreakers;
+import org.oransc.enrichment.clients.RetryBudgets;
 import org.oransc.enrichment.configuration.ApplicationConfig;
 import org.oransc.enrichment.configuration.ImmutableHttpProxyConfig;
 import org.oransc.enrichment.configuration.ImmutableWebClientConfig;
@@ -55,6 +68,7 @@ import org.oransc.enrichment.controllers.a1e.A1eEiJobInfo;
 import org.oransc.enrichment.controllers.a1e.A1eEiJobStatus;
 import org.oransc.enrichment.controllers.a1e.A1eEiTypeInfo;
 import org.oransc.enrichment.controllers.r1consumer.ConsumerConsts;
+import org.oransc.enrichment.controllers.r1consumer.ConsumerController;
 import org.oransc.enrichment.controllers.r1consumer.ConsumerInfoTypeInfo;
 import org.oransc.enrichment.controllers.r1consumer.ConsumerJobInfo;
 import org.oransc.enrichment.controllers.r1consumer.ConsumerJobStatus;
@@ -67,6 +81,7 @@ import org.oransc.enrichment.controllers.r1producer.ProducerJobInfo;
 import org.oransc.enrichment.controllers.r1producer.ProducerRegistrationInfo;
 import org.oransc.enrichment.controllers.r1producer.ProducerStatusInfo;
 import org.oransc.enrichment.exceptions.ServiceException;
+import org.oransc.enrichment.repository.IndexMetrics;
 import org.oransc.enrichment.repository.InfoJob;
 import org.oransc.enrichment.repository.InfoJobs;
 import org.oransc.enrichment.repository.InfoProducer;
@@ -74,6 +89,7 @@ import org.oransc.enrichment.repository.InfoProducers;
 import org.oransc.enrichment.repository.InfoType;
 import org.oransc.enrichment.repository.InfoTypeSubscriptions;
 import org.oransc.enrichment.repository.InfoTypes;
+import org.oransc.enrichment.repository.ProducerLeases;
 import org.oransc.enrichment.tasks.ProducerSupervision;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -93,6 +109,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -102,7 +119,8 @@ import reactor.test.StepVerifier;
     properties = { //
         "server.ssl.key-store=./config/keystore.jks", //
         "app.webclient.trust-store=./config/truststore.jks", //
-        "app.vardata-directory=./target"})
+        "app.vardata-directory=./target", //
+        "app.producer-supervision.tick-millis=3600000"})
 class ApplicationTest {
     private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
@@ -141,6 +159,21 @@ class ApplicationTest {
     @Autowired
     InfoTypeSubscriptions infoTypeSubscriptions;
 
+    @Autowired
+    CircuitBreakers circuitBreakers;
+
+    @Autowired
+    ProducerLeases producerLeases;
+
+    @Autowired
+    RetryBudgets retryBudgets;
+
+    @Autowired
+    CachingDnsResolver dnsResolver;
+
+    @Autowired
+    ConsumerController consumerController;
+
     private static Gson gson = new GsonBuilder().create();
 
     /**
@@ -157,6 +190,8 @@ class ApplicationTest {
     @LocalServerPort
     private int port;
 
+    private AsyncRestClient restClient = null;
+
     @BeforeEach
     void reset() {
         this.infoJobs.clear();
@@ -165,6 +200,8 @@ class ApplicationTest {
         this.infoTypeSubscriptions.clear();
         this.producerSimulator.getTestResults().reset();
         this.consumerSimulator.getTestResults().reset();
+        this.circuitBreakers.clear();
+        this.producerLeases.clear();
     }
 
     @AfterEach
@@ -278,6 +315,45 @@ class ApplicationTest {
         url = A1eConsts.API_ROOT + "/eijobs?eiTypeId=JUNK";
         rsp = restClient().get(url).block();
         assertThat(rsp).isEqualTo("[]");
+
+        url = A1eConsts.API_ROOT + "/eijobs?jobResultUri=https://junk.com&owner=owner";
+        rsp = restClient().get(url).block();
+        assertThat(rsp).isEqualTo(JOB_ID_JSON);
+
+        url = A1eConsts.API_ROOT + "/eijobs?jobResultUri=JUNK";
+        rsp = restClient().get(url).block();
+        assertThat(rsp).isEqualTo("[]");
+
+        url = A1eConsts.API_ROOT + "/eijobs?updatedSince=2021-01-01T00:00:00Z";
+        rsp = restClient().get(url).block();
+        assertThat(rsp).isEqualTo(JOB_ID_JSON);
+
+        url = A1eConsts.API_ROOT + "/eijobs?updatedSince=" + Instant.now().plusSeconds(60);
+        rsp = restClient().get(url).block();
+        assertThat(rsp).isEqualTo("[]");
+
+        url = A1eConsts.API_ROOT + "/eijobs?updatedSince=JUNK";
+        testErrorCode(restClient().get(url), HttpStatus.BAD_REQUEST, "JUNK");
+
+        putEiJob(TYPE_ID, "jobId2");
+        url = A1eConsts.API_ROOT + "/eijobs?limit=1";
+        rsp = restClient().get(url).block();
+        assertThat(rsp).isEqualTo(JOB_ID_JSON);
+
+        url = A1eConsts.API_ROOT + "/eijobs?limit=1&after=jobId";
+        rsp = restClient().get(url).block();
+        assertThat(rsp).isEqualTo("[\"jobId2\"]");
+
+        url = A1eConsts.API_ROOT + "/eijobs?after=jobId2";
+        rsp = restClient().get(url).block();
+        assertThat(rsp).isEqualTo("[]");
+
+        url = A1eConsts.API_ROOT + "/eijobs?eiTypeId=typeId&limit=1&after=jobId";
+        rsp = restClient().get(url).block();
+        assertThat(rsp).isEqualTo("[\"jobId2\"]");
+
+        url = A1eConsts.API_ROOT + "/eijobs?limit=0";
+        testErrorCode(restClient().get(url), HttpStatus.BAD_REQUEST, "Invalid limit");
     }
 
     @Test
@@ -308,6 +384,11 @@ class ApplicationTest {
         url = ConsumerConsts.API_ROOT + "/info-jobs?infoTypeId=JUNK";
         rsp = restClient().get(url).block();
         assertThat(rsp).isEqualTo("[]");
+
+        url = ConsumerConsts.API_ROOT
+            + "/info-jobs?infoTypeId=typeId&owner=owner&jobResultUri=https://junk.com&updatedSince=2021-01-01T00:00:00Z";
+        rsp = restClient().get(url).block();
+        assertThat(rsp).isEqualTo(JOB_ID_JSON);
     }
 
     @Test
@@ -464,6 +545,26 @@ class ApplicationTest {
         verifyJobStatus(EI_JOB_ID, "ENABLED");
     }
 
+    @Test
+    void consumerPutInformationJobCancelled() throws Exception {
+        // Test that the handle of a job is released when the put is cancelled before
+        // the job is stored
+        putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
+        InfoProducer producer = this.infoProducers.getProducer(PRODUCER_ID);
+
+        Disposable put = this.consumerController.putIndividualInfoJob(EI_JOB_ID, false, consumerJobInfo()).subscribe();
+        put.dispose();
+
+        assertThat(this.infoJobs.size()).isZero();
+        assertThat(this.infoJobs.getJobHandles().get(EI_JOB_ID)).isNull();
+        assertThat(producer.getPendingJobs()).isEmpty();
+
+        // The supervision does not keep the job
+        this.producerSupervision.createTask().blockLast();
+        assertThat(producer.getPendingJobs()).isEmpty();
+        assertThat(this.infoJobs.getJobHandles().get(EI_JOB_ID)).isNull();
+    }
+
     @Test
     void consumerPutInformationJob_noType() throws JsonMappingException, JsonProcessingException, ServiceException {
         String url = ConsumerConsts.API_ROOT + "/info-jobs/jobId?typeCheck=false";
@@ -669,6 +770,106 @@ class ApplicationTest {
         assertThat(request.id).isEqualTo("jobId");
     }
 
+    @Test
+    void producerBulkCallbacks() throws Exception {
+        putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
+        putEiJob(TYPE_ID, "jobId1");
+        putEiJob(TYPE_ID, "jobId2");
+        putEiJob(TYPE_ID, "jobId3");
+        ProducerSimulatorController.TestResults simulatorResults = this.producerSimulator.getTestResults();
+        await().untilAsserted(() -> assertThat(simulatorResults.jobsStarted.size()).isEqualTo(3));
+        simulatorResults.reset();
+        simulatorResults.jobIdsToReject.add("jobId3");
+
+        // Re-register the producer with support for bulk callbacks
+        String url = ProducerConsts.API_ROOT + "/info-producers/" + PRODUCER_ID;
+        String body = gson.toJson(producerInfoRegistratioInfoBulk(TYPE_ID));
+        restClient().putForEntity(url, body).block();
+
+        await().untilAsserted(() -> assertThat(simulatorResults.jobsStarted.size()).isEqualTo(3));
+        assertThat(simulatorResults.noOfBulkRequests).isEqualTo(1);
+        InfoProducer producer = this.infoProducers.getProducer(PRODUCER_ID);
+        assertThat(producer.isBulkCallbackSupported()).isTrue();
+        await().untilAsserted(() -> assertThat(producer.isJobEnabled(this.infoJobs.getJob("jobId3"))).isFalse());
+        assertThat(producer.isJobEnabled(this.infoJobs.getJob("jobId1"))).isTrue();
+        assertThat(producer.isJobEnabled(this.infoJobs.getJob("jobId2"))).isTrue();
+
+        this.infoJobs.remove(this.infoJobs.getJobsForType(TYPE_ID), this.infoProducers);
+        await().untilAsserted(() -> assertThat(simulatorResults.jobsStopped.size()).isEqualTo(3));
+        assertThat(simulatorResults.noOfBulkRequests).isEqualTo(2);
+        assertThat(this.infoJobs.size()).isZero();
+    }
+
+    @Test
+    void producerBulkCallbackInvalidResponse() throws Exception {
+        putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
+        putEiJob(TYPE_ID, "jobId1");
+        ProducerSimulatorController.TestResults simulatorResults = this.producerSimulator.getTestResults();
+        await().untilAsserted(() -> assertThat(simulatorResults.jobsStarted.size()).isEqualTo(1));
+        simulatorResults.reset();
+        simulatorResults.isBulkResponseInvalid = true;
+
+        // The producer accepts the request, the response can not be parsed
+        String url = ProducerConsts.API_ROOT + "/info-producers/" + PRODUCER_ID;
+        String body = gson.toJson(producerInfoRegistratioInfoBulk(TYPE_ID));
+        restClient().putForEntity(url, body).block();
+
+        InfoProducer producer = this.infoProducers.getProducer(PRODUCER_ID);
+        await().untilAsserted(() -> assertThat(producer.isJobEnabled(this.infoJobs.getJob("jobId1"))).isTrue());
+        assertThat(simulatorResults.noOfBulkRequests).isEqualTo(1);
+    }
+
+    @Test
+    void producerConcurrentJobStartsAreCoalesced() throws Exception {
+        putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
+        InfoJob job = putEiJob(TYPE_ID, "jobId");
+        ProducerSimulatorController.TestResults simulatorResults = this.producerSimulator.getTestResults();
+        await().untilAsserted(() -> assertThat(simulatorResults.jobsStarted.size()).isEqualTo(1));
+        simulatorResults.reset();
+        InfoProducer producer = this.infoProducers.getProducer(PRODUCER_ID);
+
+        Mono<String> start1 = this.producerCallbacks.startInfoJob(producer, job, 1);
+        Mono<String> start2 = this.producerCallbacks.startInfoJob(producer, job, 1);
+        Mono.zip(start1, start2).block();
+        assertThat(simulatorResults.jobsStarted).hasSize(1);
+
+        // A later version of the job supersedes the pending start
+        InfoJob updatedJob = newRevision(job, "newOwner", Instant.now().plusSeconds(1).toString());
+        start1 = this.producerCallbacks.startInfoJob(producer, job, 1);
+        start2 = this.producerCallbacks.startInfoJob(producer, updatedJob, 1);
+        Mono.zip(start1, start2).block();
+        assertThat(simulatorResults.jobsStarted).extracting(request -> request.lastUpdated)
+            .contains(updatedJob.getLastUpdated());
+        assertThat(producer.isJobEnabled(job)).isTrue();
+
+        // Also when the time of the update is the same
+        simulatorResults.reset();
+        InfoJob sameTimeJob = newRevision(updatedJob, "sameTimeOwner", updatedJob.getLastUpdated());
+        start1 = this.producerCallbacks.startInfoJob(producer, updatedJob, 1);
+        start2 = this.producerCallbacks.startInfoJob(producer, sameTimeJob, 1);
+        Mono.zip(start1, start2).block();
+        assertThat(simulatorResults.jobsStarted).extracting(request -> request.owner).contains("sameTimeOwner");
+
+        // A copy of a revision is the same revision
+        simulatorResults.reset();
+        start1 = this.producerCallbacks.startInfoJob(producer, sameTimeJob, 1);
+        start2 = this.producerCallbacks.startInfoJob(producer, sameTimeJob.toBuilder().build(), 1);
+        Mono.zip(start1, start2).block();
+        assertThat(simulatorResults.jobsStarted).hasSize(1);
+    }
+
+    private static InfoJob newRevision(InfoJob job, String owner, String lastUpdated) {
+        return InfoJob.builder() //
+            .id(job.getId()) //
+            .typeId(job.getTypeId()) //
+            .owner(owner) //
+            .jobData(job.getJobData()) //
+            .targetUrl(job.getTargetUrl()) //
+            .jobStatusUrl(job.getJobStatusUrl()) //
+            .lastUpdated(lastUpdated) //
+            .build();
+    }
+
     @Test
     void producerGetEiJobsForProducer() throws JsonMappingException, JsonProcessingException, ServiceException {
         putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
@@ -820,12 +1021,14 @@ class ApplicationTest {
         assertThat(this.infoTypes.size()).isEqualTo(1); // The type remains
 
         // Now we have one disabled job, and no producer.
+        assertThat(this.infoProducers.getNoOfJobsEnabledNowhere()).isEqualTo(1);
         // PUT a producer, then a Job ENABLED status notification shall be received
         putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
         await().untilAsserted(() -> assertThat(consumerResults.eiJobStatusCallbacks.size()).isEqualTo(2));
         assertThat(consumerResults.eiJobStatusCallbacks.get(1).state)
             .isEqualTo(A1eEiJobStatus.EiJobStatusValues.ENABLED);
         verifyJobStatus(EI_JOB_ID, "ENABLED");
+        assertThat(this.infoProducers.getNoOfJobsEnabledNowhere()).isZero();
     }
 
     @Test
@@ -843,6 +1046,7 @@ class ApplicationTest {
         producer.setJobDisabled(job);
         job.setLastReportedStatus(false);
         verifyJobStatus(EI_JOB_ID, "DISABLED");
+        assertThat(producer.getPendingJobs()).containsExactly(job);
 
         // Run the supervision and wait for the job to get started in the producer
         this.producerSupervision.createTask().blockLast();
@@ -851,6 +1055,78 @@ class ApplicationTest {
         assertThat(consumerResults.eiJobStatusCallbacks.get(0).state)
             .isEqualTo(A1eEiJobStatus.EiJobStatusValues.ENABLED);
         verifyJobStatus(EI_JOB_ID, "ENABLED");
+        assertThat(producer.getPendingJobs()).isEmpty();
+
+        // A removed job is no longer pending
+        producer.setJobDisabled(job);
+        this.infoJobs.remove(job, this.infoProducers);
+        assertThat(producer.getPendingJobs()).isEmpty();
+
+        // A removed job that is set pending by a late start is dropped, not started
+        ProducerSimulatorController.TestResults simulatorResults = this.producerSimulator.getTestResults();
+        simulatorResults.reset();
+        producer.setJobPending(job);
+        this.producerSupervision.createTask().blockLast();
+        assertThat(producer.getPendingJobs()).isEmpty();
+        assertThat(simulatorResults.jobsStarted).isEmpty();
+    }
+
+    @Test
+    void producerSupervisionSchedule() throws JsonMappingException, JsonProcessingException, ServiceException {
+        putEiProducerWithOneTypeRejecting("simulateProducerError", TYPE_ID);
+        InfoProducer producer = this.infoProducers.getProducer("simulateProducerError");
+        assertThat(this.producerSupervision.isScheduled(producer)).isTrue();
+
+        // The producer is checked once within the check interval, and rescheduled when not responding
+        final long interval = this.applicationConfig.getProducerCheckInterval().toMillis();
+        long time = System.currentTimeMillis() + interval + 1000;
+        assertThat(this.producerSupervision.createDueTask(time).collectList().block()).hasSize(1);
+        assertThat(this.producerSupervision.createDueTask(time).collectList().block()).isEmpty();
+        assertThat(this.producerSupervision.isScheduled(producer)).isTrue();
+        assertProducerOpState("simulateProducerError", ProducerStatusInfo.OperationalState.DISABLED);
+
+        time += interval;
+        this.producerSupervision.createDueTask(time).blockLast();
+        time += interval;
+        this.producerSupervision.createDueTask(time).blockLast();
+
+        // After 3 failed checks, the producer shall be deregistered
+        assertThat(this.infoProducers.size()).isZero();
+        assertThat(this.producerSupervision.isScheduled(producer)).isFalse();
+    }
+
+    @Test
+    void producerHeartbeat() throws JsonMappingException, JsonProcessingException, ServiceException {
+        putEiProducerWithOneTypeRejecting("simulateProducerError", TYPE_ID);
+        String url = ProducerConsts.API_ROOT + "/info-producers/simulateProducerError/heartbeat";
+        ResponseEntity<String> resp = restClient().putForEntity(url).block();
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(resp.getBody()).contains("lease_duration_millis");
+
+        // A producer with a lease is not called for supervision
+        this.producerSupervision.createTask().blockLast();
+        assertProducerOpState("simulateProducerError", ProducerStatusInfo.OperationalState.ENABLED);
+
+        // When the lease expires, the producer is deregistered
+        final long leaseMillis = this.producerLeases.getLeaseDuration().toMillis();
+        this.producerSupervision.expireLeases(System.currentTimeMillis() + leaseMillis - 1000);
+        assertThat(this.infoProducers.size()).isEqualTo(1);
+        this.producerSupervision.expireLeases(System.currentTimeMillis() + leaseMillis + 1000);
+        assertThat(this.infoProducers.size()).isZero();
+        assertThat(this.producerLeases.size()).isZero();
+
+        // A lease of a previous registration does not affect a producer registered again
+        putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
+        InfoProducer previous = this.infoProducers.getProducer(PRODUCER_ID);
+        this.producerLeases.renew(previous, System.currentTimeMillis());
+        putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
+        InfoProducer producer = this.infoProducers.getProducer(PRODUCER_ID);
+        assertThat(this.producerLeases.isLeased(producer, System.currentTimeMillis())).isFalse();
+        this.producerSupervision.expireLeases(System.currentTimeMillis() + leaseMillis + 1000);
+        assertThat(this.infoProducers.get(PRODUCER_ID)).isSameAs(producer);
+
+        url = ProducerConsts.API_ROOT + "/info-producers/junk/heartbeat";
+        testErrorCode(restClient().put(url, ""), HttpStatus.NOT_FOUND, "Could not find Information Producer: junk");
     }
 
     @Test
@@ -863,6 +1139,17 @@ class ApplicationTest {
         assertThat(resp.getBody()).contains("hunky dory");
     }
 
+    @Test
+    void testGetCircuitBreakers() throws Exception {
+        putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
+        putEiJob(TYPE_ID, "jobId");
+
+        String url = "/status/circuit-breakers";
+        String rsp = restClient().get(url).block();
+        assertThat(rsp).contains("\"destination\":\"localhost:" + this.port + "\"") //
+            .contains("\"state\":\"CLOSED\"");
+    }
+
     @Test
     void testEiJobDatabase() throws Exception {
         putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
@@ -874,7 +1161,7 @@ class ApplicationTest {
         {
             InfoJob savedJob = this.infoJobs.getJob("jobId1");
             // Restore the jobs
-            InfoJobs jobs = new InfoJobs(this.applicationConfig, this.producerCallbacks);
+            InfoJobs jobs = new InfoJobs(this.applicationConfig, this.producerCallbacks, this.dnsResolver);
             jobs.restoreJobsFromDatabase();
             assertThat(jobs.size()).isEqualTo(2);
             InfoJob restoredJob = jobs.getJob("jobId1");
@@ -886,7 +1173,7 @@ class ApplicationTest {
         }
         {
             // Restore the jobs, no jobs in database
-            InfoJobs jobs = new InfoJobs(this.applicationConfig, this.producerCallbacks);
+            InfoJobs jobs = new InfoJobs(this.applicationConfig, this.producerCallbacks, this.dnsResolver);
             jobs.restoreJobsFromDatabase();
             assertThat(jobs.size()).isZero();
         }
@@ -898,6 +1185,130 @@ class ApplicationTest {
         await().untilAsserted(() -> assertThat(simulatorResults.jobsStopped.size()).isEqualTo(3));
     }
 
+    @Test
+    void testJobDefinitionDeduplication() throws Exception {
+        putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
+        putEiJob(TYPE_ID, "jobId1");
+        putEiJob(TYPE_ID, "jobId2");
+        putEiJob(TYPE_ID, "jobId3");
+
+        // Identical job data is shared
+        assertThat(this.infoJobs.getNoOfJobDefinitions()).isEqualTo(1);
+        assertThat(this.infoJobs.getJob("jobId1").getJobData()).isSameAs(this.infoJobs.getJob("jobId2").getJobData());
+
+        {
+            // Restore the jobs, the sharing is preserved
+            InfoJobs jobs = new InfoJobs(this.applicationConfig, this.producerCallbacks, this.dnsResolver);
+            jobs.restoreJobsFromDatabase();
+            assertThat(jobs.size()).isEqualTo(3);
+            assertThat(jobs.getNoOfJobDefinitions()).isEqualTo(1);
+            assertThat(jobs.getJob("jobId1").getJobData()).isSameAs(jobs.getJob("jobId3").getJobData());
+            assertThat(gson.toJson(jobs.getJob("jobId1").getJobData()))
+                .isEqualTo(gson.toJson(this.infoJobs.getJob("jobId1").getJobData()));
+
+            jobs.remove("jobId1", this.infoProducers);
+            jobs.remove("jobId2", this.infoProducers);
+            assertThat(jobs.getNoOfJobDefinitions()).isEqualTo(1);
+            jobs.remove("jobId3", this.infoProducers);
+            assertThat(jobs.getNoOfJobDefinitions()).isZero();
+        }
+        {
+            // The unreferenced definition is removed from the database
+            InfoJobs jobs = new InfoJobs(this.applicationConfig, this.producerCallbacks, this.dnsResolver);
+            jobs.restoreJobsFromDatabase();
+            assertThat(jobs.size()).isZero();
+            assertThat(jobs.getNoOfJobDefinitions()).isZero();
+        }
+    }
+
+    @Test
+    void testDatabaseRestoreProgress() throws Exception {
+        ResponseEntity<String> resp = restClient().getForEntity("/actuator/restore").block();
+        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JSONObject progress = new JSONObject(resp.getBody());
+        assertThat(progress.getJSONObject("infoJobs").getString("state")).isEqualTo("DONE");
+        assertThat(progress.getJSONObject("infoTypes").getString("state")).isEqualTo("DONE");
+        assertThat(progress.getJSONObject("infoTypeSubscriptions").getString("state")).isEqualTo("DONE");
+    }
+
+    @Test
+    void testConcurrentJobAccess() throws Exception {
+        final int noOfWriters = 4;
+        final int noOfReaders = 4;
+        final int noOfOperations = 10000;
+        final int noOfJobsPerWriter = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(noOfWriters + noOfReaders);
+        AtomicLong noOfReads = new AtomicLong();
+        AtomicBoolean isWriting = new AtomicBoolean(true);
+
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < noOfReaders; ++r) {
+            readers.add(executor.submit(() -> {
+                while (isWriting.get()) {
+                    this.infoJobs.getJobsForType(TYPE_ID);
+                    this.infoJobs.getJobsForOwner("owner0");
+                    this.infoJobs.getJobs();
+                    noOfReads.addAndGet(3);
+                }
+            }));
+        }
+
+        Instant startTime = Instant.now();
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < noOfWriters; ++w) {
+            final int writerId = w;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < noOfOperations; ++i) {
+                    String jobId = "job_" + writerId + "_" + (i % noOfJobsPerWriter);
+                    if (i % 10 == 9) {
+                        this.infoJobs.remove(jobId, this.infoProducers);
+                    } else {
+                        this.infoJobs.put(InfoJob.builder() //
+                            .id(jobId) //
+                            .typeId(TYPE_ID) //
+                            .owner("owner" + (i % 3)) //
+                            .jobData(jsonObject()) //
+                            .targetUrl("targetUrl") //
+                            .jobStatusUrl("") //
+                            .build());
+                    }
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        Duration writeDuration = Duration.between(startTime, Instant.now());
+        isWriting.set(false);
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+        executor.shutdown();
+
+        logger.info("Concurrent job access, writes: {}, reads: {}, duration: {} ms", noOfWriters * noOfOperations,
+            noOfReads.get(), writeDuration.toMillis());
+
+        // The indexes shall be consistent with the map of all jobs
+        Collection<InfoJob> allJobs = this.infoJobs.getJobs();
+        assertThat(allJobs).isNotEmpty();
+        assertThat(this.infoJobs.getJobsForType(TYPE_ID)).hasSameSizeAs(allJobs);
+        int noOfOwnedJobs = 0;
+        for (int owner = 0; owner < 3; ++owner) {
+            Collection<InfoJob> ownedJobs = this.infoJobs.getJobsForOwner("owner" + owner);
+            noOfOwnedJobs += ownedJobs.size();
+            assertThat(this.infoJobs.getJobs(TYPE_ID, "owner" + owner, null, null)).hasSameSizeAs(ownedJobs);
+            for (InfoJob job : ownedJobs) {
+                assertThat(this.infoJobs.get(job.getId())).isSameAs(job);
+            }
+        }
+        assertThat(noOfOwnedJobs).isEqualTo(allJobs.size());
+
+        String url = "/actuator/metrics/" + IndexMetrics.INDEX_MEMORY_METRIC + "?tag=repository:infoJobs";
+        ResponseEntity<String> resp = restClient().getForEntity(url).block();
+        JSONObject metric = new JSONObject(resp.getBody());
+        assertThat(metric.getJSONArray("measurements").getJSONObject(0).getDouble("value")).isPositive();
+    }
+
     @Test
     void testEiTypesDatabase() throws Exception {
         putInfoProducerWithOneType(PRODUCER_ID, TYPE_ID);
@@ -931,13 +1342,14 @@ class ApplicationTest {
         restClient().putForEntity(typeSubscriptionUrl() + "/subscriptionId", body).block();
         assertThat(this.infoTypeSubscriptions.size()).isEqualTo(1);
 
-        InfoTypeSubscriptions restoredSubscriptions = new InfoTypeSubscriptions(this.applicationConfig);
+        InfoTypeSubscriptions restoredSubscriptions =
+            new InfoTypeSubscriptions(this.applicationConfig, this.retryBudgets, this.dnsResolver);
         assertThat(restoredSubscriptions.size()).isEqualTo(1);
         assertThat(restoredSubscriptions.getSubscriptionsForOwner("owner")).hasSize(1);
 
         // Delete the subscription
         restClient().deleteForEntity(typeSubscriptionUrl() + "/subscriptionId").block();
-        restoredSubscriptions = new InfoTypeSubscriptions(this.applicationConfig);
+        restoredSubscriptions = new InfoTypeSubscriptions(this.applicationConfig, this.retryBudgets, this.dnsResolver);
         assertThat(restoredSubscriptions.size()).isZero();
     }
 
@@ -1068,6 +1480,13 @@ class ApplicationTest {
             baseUrl() + ProducerSimulatorController.JOB_URL, baseUrl() + ProducerSimulatorController.SUPERVISION_URL);
     }
 
+    ProducerRegistrationInfo producerInfoRegistratioInfoBulk(String typeId)
+        throws JsonMappingException, JsonProcessingException {
+        return new ProducerRegistrationInfo(Arrays.asList(typeId), //
+            baseUrl() + ProducerSimulatorController.JOB_URL, baseUrl() + ProducerSimulatorController.SUPERVISION_URL,
+            baseUrl() + ProducerSimulatorController.JOB_BULK_URL);
+    }
+
     private ConsumerJobInfo consumerJobInfo() throws JsonMappingException, JsonProcessingException {
         return consumerJobInfo(TYPE_ID, EI_JOB_ID);
     }
@@ -1194,7 +1613,11 @@ class ApplicationTest {
     }
 
     private AsyncRestClient restClient() {
-        return restClient(false);
+        // Reused, so that the requests of a test share the connections of one pool
+        if (this.restClient == null) {
+            this.restClient = restClient(false);
+        }
+        return this.restClient;
     }
 
     private void testErrorCode(Mono<?> request, HttpStatus expStatus, String responseContains) {
@@ -20,13 +20,20 @@
 
 package org.oransc.enrichment.clients;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import io.netty.util.internal.logging.JdkLoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -36,6 +43,7 @@ import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
 import reactor.test.StepVerifier;
 import reactor.util.Loggers;
 
@@ -158,4 +166,74 @@ class AsyncRestClientTest {
         StepVerifier.create(returnedMono)
             .expectErrorMatches(throwable -> throwable instanceof WebClientResponseException).verify();
     }
+
+    @Test
+    void testConnectionsAreReused() throws IOException, InterruptedException {
+        final int noOfRequests = 10;
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("test").maxConnections(1).build();
+        try (MockWebServer server = new MockWebServer()) {
+            AsyncRestClient client = new AsyncRestClient(server.url(BASE_URL).toString(), null, null,
+                connectionProvider, null, null, null, null);
+            for (int i = 0; i < noOfRequests; ++i) {
+                server.enqueue(new MockResponse().setResponseCode(SUCCESS_CODE).setBody(TEST_JSON));
+                StepVerifier.create(client.get(REQUEST_URL)).expectNext(TEST_JSON).expectComplete().verify();
+            }
+            // The sequence number is the index of the request on its connection
+            for (int i = 0; i < noOfRequests; ++i) {
+                assertThat(server.takeRequest().getSequenceNumber()).isEqualTo(i);
+            }
+        } finally {
+            connectionProvider.dispose();
+        }
+    }
+
+    @Test
+    void testPostEncodedBody() throws IOException, InterruptedException {
+        byte[] body = "{\"name\":\"\u00e5\u00e4\u00f6\"}".getBytes(StandardCharsets.UTF_8);
+        try (MockWebServer server = new MockWebServer()) {
+            AsyncRestClient client = new AsyncRestClient(server.url(BASE_URL).toString(), null, null);
+            server.enqueue(new MockResponse().setResponseCode(ERROR_CODE));
+            server.enqueue(new MockResponse().setResponseCode(SUCCESS_CODE).setBody(TEST_JSON));
+
+            // The same bytes are sent again when the request is retried
+            Mono<String> returnedMono = client.post(REQUEST_URL, body).retry(1);
+            StepVerifier.create(returnedMono).expectNext(TEST_JSON).expectComplete().verify();
+
+            for (int i = 0; i < 2; ++i) {
+                RecordedRequest request = server.takeRequest();
+                assertThat(request.getHeader(HttpHeaders.CONTENT_TYPE)).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+                assertThat(request.getBody().readByteArray()).isEqualTo(body);
+            }
+        }
+    }
+
+    @Test
+    void testCallMetrics() throws IOException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try (MockWebServer server = new MockWebServer()) {
+            CallMetrics callMetrics = new CallMetrics("test_kind");
+            AsyncRestClient client =
+                new AsyncRestClient(server.url(BASE_URL).toString(), null, null, null, null, null, callMetrics, null);
+            server.enqueue(new MockResponse().setResponseCode(SUCCESS_CODE).setBody(TEST_JSON));
+            server.enqueue(new MockResponse().setResponseCode(SUCCESS_CODE).setBody(TEST_JSON));
+            server.enqueue(new MockResponse().setResponseCode(ERROR_CODE));
+            for (int i = 0; i < 2; ++i) {
+                StepVerifier.create(client.get(REQUEST_URL)).expectNext(TEST_JSON).expectComplete().verify();
+            }
+            StepVerifier.create(client.get(REQUEST_URL)).expectError(WebClientResponseException.class).verify();
+
+            String destination = server.getHostName() + ":" + server.getPort();
+            assertThat(registry.get(CallMetrics.LATENCY_METRIC).tag("kind", "test_kind")
+                .tag("destination", destination).timer().count()).isEqualTo(3);
+            assertThat(registry.get(CallMetrics.RESPONSES_METRIC).tag("status", "2xx").counter().count())
+                .isEqualTo(2.0);
+            assertThat(registry.get(CallMetrics.RESPONSES_METRIC).tag("status", "5xx").counter().count())
+                .isEqualTo(1.0);
+            assertThat(registry.get(CallMetrics.IN_FLIGHT_METRIC).gauge().value()).isZero();
+            assertThat(callMetrics.getInFlightCalls(destination)).isZero();
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
 }
@@ -0,0 +1,176 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.oransc.enrichment.configuration.ImmutableDnsConfig;
+
+import reactor.test.StepVerifier;
+
+class CachingDnsResolverTest {
+    private MeterRegistry registry;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void init() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void reset() {
+        Metrics.removeRegistry(registry);
+    }
+
+    /**
+     * Hosts in the hosts file are resolved without DNS, which makes the test
+     * independent of the network.
+     */
+    private CachingDnsResolver dnsResolver(String hostsFileContent) throws IOException {
+        return dnsResolver(hostsFileContent, 1000);
+    }
+
+    private CachingDnsResolver dnsResolver(String hostsFileContent, int maxCacheSize) throws IOException {
+        Path hostsFile = Files.writeString(dir.resolve("hosts"), hostsFileContent);
+        return new CachingDnsResolver(ImmutableDnsConfig.builder() //
+            .positiveTtl(Duration.ofHours(1)) //
+            .negativeTtl(Duration.ofHours(1)) //
+            .maxCacheSize(maxCacheSize) //
+            .queryTimeout(Duration.ofMillis(500)) //
+            .hostsFile(hostsFile.toString()) //
+            .build());
+    }
+
+    private double noOfLookups(String result) {
+        return registry.get(CachingDnsResolver.LOOKUPS_METRIC).tag("result", result).counter().count();
+    }
+
+    @Test
+    void testCachedResolution() throws IOException {
+        CachingDnsResolver resolver = dnsResolver("127.0.0.1 producer.test\n10.0.0.1 consumer.test\n");
+        InetAddress expected = InetAddress.getByName("127.0.0.1");
+
+        StepVerifier.create(resolver.resolve("producer.test")).expectNext(List.of(expected)).verifyComplete();
+        StepVerifier.create(resolver.resolve("Producer.Test")).expectNext(List.of(expected)).verifyComplete();
+        assertThat(noOfLookups("miss")).isEqualTo(1.0);
+        assertThat(noOfLookups("hit")).isEqualTo(1.0);
+
+        // Addresses are not cached
+        StepVerifier.create(resolver.resolve("10.0.0.2")).expectNextCount(1).verifyComplete();
+        assertThat(noOfLookups("miss")).isEqualTo(1.0);
+
+        // Pre resolution when an entity is registered
+        resolver.preResolve("http://consumer.test:8080/callback");
+        await().until(() -> noOfLookups("miss") == 2.0);
+        resolver.resolve("consumer.test").block();
+        assertThat(noOfLookups("hit")).isEqualTo(2.0);
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLookup() throws Exception {
+        final int noOfThreads = 8;
+        final int noOfCalls = 100;
+        CachingDnsResolver resolver = dnsResolver("127.0.0.1 producer.test\n");
+        ExecutorService executor = Executors.newFixedThreadPool(noOfThreads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < noOfThreads; ++i) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < noOfCalls; ++j) {
+                    resolver.resolve("producer.test").block();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(noOfLookups("miss")).isEqualTo(1.0);
+        assertThat(noOfLookups("hit")).isEqualTo(noOfThreads * noOfCalls - 1.0);
+    }
+
+    @Test
+    void testFullCache() throws IOException {
+        CachingDnsResolver resolver = dnsResolver("127.0.0.1 producer.test\n10.0.0.1 consumer.test\n", 1);
+        resolver.resolve("producer.test").block();
+        resolver.resolve("consumer.test").block();
+        resolver.resolve("consumer.test").block();
+
+        // The last resolved name is cached, also when the cache is full
+        assertThat(noOfLookups("miss")).isEqualTo(2.0);
+        assertThat(noOfLookups("hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testNegativeCache() throws IOException {
+        CachingDnsResolver resolver = dnsResolver("");
+
+        StepVerifier.create(resolver.resolve("unknown.invalid")).expectError().verify(Duration.ofSeconds(10));
+        StepVerifier.create(resolver.resolve("unknown.invalid")).expectError().verify(Duration.ofSeconds(1));
+        assertThat(noOfLookups("miss")).isEqualTo(1.0);
+        assertThat(noOfLookups("negative_hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testClientUsesResolver() throws IOException {
+        CachingDnsResolver resolver = dnsResolver("127.0.0.1 producer.test\n");
+        try (MockWebServer server = new MockWebServer()) {
+            server.start(InetAddress.getByName("127.0.0.1"), 0);
+            AsyncRestClient client = new AsyncRestClient("http://producer.test:" + server.getPort(), null, null,
+                null, null, null, null, resolver);
+            server.enqueue(new MockResponse().setResponseCode(200).setBody("OK"));
+
+            StepVerifier.create(client.get("/health")).expectNext("OK").verifyComplete();
+            assertThat(noOfLookups("miss")).isEqualTo(1.0);
+        }
+    }
+}
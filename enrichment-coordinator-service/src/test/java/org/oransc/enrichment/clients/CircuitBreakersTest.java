@@ -0,0 +1,153 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import org.junit.jupiter.api.Test;
+import org.oransc.enrichment.configuration.ImmutableCircuitBreakerConfig;
+import org.oransc.enrichment.exceptions.ServiceException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.test.StepVerifier;
+
+class CircuitBreakersTest {
+
+    private static CircuitBreakers circuitBreakers(Duration openDuration) {
+        return new CircuitBreakers(ImmutableCircuitBreakerConfig.builder() //
+            .failureThreshold(2) //
+            .openDuration(openDuration) //
+            .halfOpenMaxCalls(1) //
+            .maxConcurrentCallsPerHost(2) //
+            .build());
+    }
+
+    @Test
+    void testOpensAfterConsecutiveFailures() throws ServiceException {
+        CircuitBreakers.CircuitBreaker breaker = circuitBreakers(Duration.ofHours(1)).get("host:80");
+        IOException failure = new IOException("Connection refused");
+
+        breaker.acquire();
+        breaker.onError(failure);
+        breaker.acquire();
+        breaker.onSuccess();
+        breaker.acquire();
+        breaker.onError(failure);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreakers.State.CLOSED);
+
+        // Responses with status 4xx are not failures
+        breaker.acquire();
+        breaker.onError(WebClientResponseException.create(404, "Not Found", null, null, null));
+        breaker.acquire();
+        breaker.onError(failure);
+        breaker.acquire();
+        breaker.onError(failure);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreakers.State.OPEN);
+        assertThat(breaker.getInFlightCalls()).isZero();
+
+        ServiceException e = assertThrows(ServiceException.class, breaker::acquire);
+        assertThat(e.getHttpStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void testHalfOpenProbing() throws ServiceException {
+        CircuitBreakers.CircuitBreaker breaker = circuitBreakers(Duration.ZERO).get("host:80");
+        IOException failure = new IOException("Connection refused");
+        breaker.acquire();
+        breaker.onError(failure);
+        breaker.acquire();
+        breaker.onError(failure);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreakers.State.HALF_OPEN);
+
+        // One probing call at a time, a failed probe opens the breaker again
+        breaker.acquire();
+        assertThrows(ServiceException.class, breaker::acquire);
+        breaker.onError(failure);
+        assertThat(breaker.getConsecutiveFailures()).isEqualTo(3);
+
+        // A successful probe closes the breaker
+        breaker.acquire();
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreakers.State.CLOSED);
+        assertThat(breaker.getConsecutiveFailures()).isZero();
+    }
+
+    @Test
+    void testBulkhead() throws ServiceException {
+        CircuitBreakers breakers = circuitBreakers(Duration.ofHours(1));
+        CircuitBreakers.CircuitBreaker breaker = breakers.get("host:80");
+        breaker.acquire();
+        breaker.acquire();
+        ServiceException e = assertThrows(ServiceException.class, breaker::acquire);
+        assertThat(e.getHttpStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        // Other destinations are not affected
+        breakers.get("otherHost:80").acquire();
+
+        breaker.onCancel();
+        breaker.acquire();
+        assertThat(breaker.getInFlightCalls()).isEqualTo(2);
+    }
+
+    @Test
+    void testBulkheadIsSizedForConcurrencyLimits() throws ServiceException {
+        CircuitBreakers breakers = circuitBreakers(Duration.ofHours(1));
+        // Two client factories, each with its own concurrency limit per destination
+        breakers.addConcurrencyLimit(3);
+        breakers.addConcurrencyLimit(3);
+        assertThat(breakers.getMaxConcurrentCalls()).isEqualTo(6);
+
+        CircuitBreakers.CircuitBreaker breaker = breakers.get("host:80");
+        for (int i = 0; i < 6; ++i) {
+            breaker.acquire();
+        }
+        assertThrows(ServiceException.class, breaker::acquire);
+    }
+
+    @Test
+    void testClientFailsFastWhenOpen() throws IOException {
+        CircuitBreakers breakers = circuitBreakers(Duration.ofHours(1));
+        try (MockWebServer server = new MockWebServer()) {
+            AsyncRestClient client =
+                new AsyncRestClient(server.url("/base").toString(), null, null, null, breakers, null, null, null);
+            for (int i = 0; i < 2; ++i) {
+                server.enqueue(new MockResponse().setResponseCode(503));
+                StepVerifier.create(client.get("/test")) //
+                    .expectError(WebClientResponseException.class) //
+                    .verify();
+            }
+            StepVerifier.create(client.get("/test")) //
+                .expectError(ServiceException.class) //
+                .verify();
+            assertThat(server.getRequestCount()).isEqualTo(2);
+            assertThat(breakers.get(server.getHostName() + ":" + server.getPort()).getState())
+                .isEqualTo(CircuitBreakers.State.OPEN);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.oransc.enrichment.configuration.ImmutableConcurrencyLimitConfig;
+import org.oransc.enrichment.exceptions.ServiceException;
+import org.springframework.http.HttpStatus;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class ConcurrencyLimitersTest {
+
+    private static ConcurrencyLimiters.ConcurrencyLimiter limiter(int initialLimit, double latencyTolerance) {
+        return new ConcurrencyLimiters("test", ImmutableConcurrencyLimitConfig.builder() //
+            .initialLimit(initialLimit) //
+            .minLimit(1) //
+            .maxLimit(20) //
+            .latencyTolerance(latencyTolerance) //
+            .backoffRatio(0.5) //
+            .maxWaitingCalls(2) //
+            .build()).get("host:80");
+    }
+
+    private static List<Sinks.One<String>> startCalls(ConcurrencyLimiters.ConcurrencyLimiter limiter, int noOfCalls) {
+        List<Sinks.One<String>> calls = new ArrayList<>();
+        for (int i = 0; i < noOfCalls; ++i) {
+            Sinks.One<String> call = Sinks.one();
+            limiter.run(call.asMono()).onErrorResume(t -> Mono.empty()).subscribe();
+            calls.add(call);
+        }
+        return calls;
+    }
+
+    @Test
+    void testCallsWaitForPermit() {
+        ConcurrencyLimiters.ConcurrencyLimiter limiter = limiter(1, 1000);
+        Sinks.One<String> first = Sinks.one();
+        AtomicBoolean isSecondStarted = new AtomicBoolean(false);
+        Mono<String> second = Mono.fromCallable(() -> {
+            isSecondStarted.set(true);
+            return "second";
+        });
+
+        limiter.run(first.asMono()).subscribe();
+        Disposable cancelled = limiter.run(Mono.just("cancelled")).subscribe();
+        limiter.run(second).subscribe();
+        assertThat(limiter.getNoOfWaitingCalls()).isEqualTo(2);
+        cancelled.dispose();
+
+        first.tryEmitValue("first");
+        assertThat(isSecondStarted).isTrue();
+        assertThat(limiter.getInFlightCalls()).isZero();
+        assertThat(limiter.getNoOfWaitingCalls()).isZero();
+    }
+
+    @Test
+    void testTooManyWaitingCallsAreRejected() {
+        ConcurrencyLimiters.ConcurrencyLimiter limiter = limiter(1, 1000);
+        List<Sinks.One<String>> calls = startCalls(limiter, 3);
+        assertThat(limiter.getNoOfWaitingCalls()).isEqualTo(2);
+
+        AtomicBoolean isRejectedStarted = new AtomicBoolean(false);
+        Mono<String> rejected = limiter.run(Mono.fromCallable(() -> {
+            isRejectedStarted.set(true);
+            return "rejected";
+        }));
+        StepVerifier.create(rejected) //
+            .expectErrorMatches(throwable -> throwable instanceof ServiceException
+                && ((ServiceException) throwable).getHttpStatus() == HttpStatus.TOO_MANY_REQUESTS) //
+            .verify();
+        assertThat(isRejectedStarted).isFalse();
+        assertThat(limiter.getNoOfWaitingCalls()).isEqualTo(2);
+
+        calls.forEach(call -> call.tryEmitValue("OK"));
+        assertThat(limiter.getNoOfWaitingCalls()).isZero();
+    }
+
+    @Test
+    void testLimitIncreasesWhenUsed() {
+        ConcurrencyLimiters.ConcurrencyLimiter limiter = limiter(4, 1000);
+        for (int i = 0; i < 20; ++i) {
+            startCalls(limiter, limiter.getLimit()).forEach(call -> call.tryEmitValue("OK"));
+        }
+        assertThat(limiter.getLimit()).isGreaterThan(4);
+
+        // Calls that do not use the limit does not increase it
+        int limit = limiter.getLimit();
+        for (int i = 0; i < 100; ++i) {
+            startCalls(limiter, 1).forEach(call -> call.tryEmitValue("OK"));
+        }
+        assertThat(limiter.getLimit()).isEqualTo(limit);
+    }
+
+    @Test
+    void testLimitDecreasesOnOverload() {
+        ConcurrencyLimiters.ConcurrencyLimiter limiter = limiter(16, 1000);
+
+        // Overlapping failures decrease the limit once
+        startCalls(limiter, 4).forEach(call -> call.tryEmitError(new IOException("Connection refused")));
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        Mono<String> rejected = Mono.error(new ServiceException("Breaker is open", HttpStatus.SERVICE_UNAVAILABLE));
+        limiter.run(rejected).onErrorResume(t -> Mono.empty()).block();
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        Mono<String> failed = Mono.error(new IOException("Connection refused"));
+        limiter.run(failed).onErrorResume(t -> Mono.empty()).block();
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void testLimitDecreasesOnHighLatency() throws InterruptedException {
+        ConcurrencyLimiters.ConcurrencyLimiter limiter = limiter(16, 2);
+        limiter.run(Mono.just("fast")).block();
+        assertThat(limiter.getLimit()).isEqualTo(16);
+
+        Sinks.One<String> slow = startCalls(limiter, 1).get(0);
+        Thread.sleep(50);
+        slow.tryEmitValue("slow");
+        assertThat(limiter.getLimit()).isEqualTo(8);
+    }
+}
@@ -0,0 +1,146 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.oransc.enrichment.configuration.ImmutableRetryBudgetConfig;
+import org.oransc.enrichment.exceptions.ServiceException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class RetryBudgetsTest {
+
+    private static RetryBudgets retryBudgets(double retryRatio, double minRetriesPerSecond, Duration window) {
+        return new RetryBudgets(ImmutableRetryBudgetConfig.builder() //
+            .retryRatio(retryRatio) //
+            .minRetriesPerSecond(minRetriesPerSecond) //
+            .window(window) //
+            .minBackoff(Duration.ofMillis(1)) //
+            .maxBackoff(Duration.ofMillis(1)) //
+            .jitter(0) //
+            .build());
+    }
+
+    private static Mono<String> failingCall(AtomicInteger noOfAttempts, int noOfFailures) {
+        return Mono.defer(() -> noOfAttempts.incrementAndGet() <= noOfFailures
+            ? Mono.error(new IOException("Connection refused"))
+            : Mono.just("OK"));
+    }
+
+    @Test
+    void testRetriesLimitedByRequests() {
+        RetryBudgets budgets = retryBudgets(0.5, 0, Duration.ofHours(1));
+        AtomicInteger noOfAttempts = new AtomicInteger();
+
+        // One request gives half a retry, which is not enough
+        StepVerifier.create(budgets.withRetries("http://host:80/cb", failingCall(noOfAttempts, 100), 3)) //
+            .expectError(IOException.class) //
+            .verify();
+        assertThat(noOfAttempts.get()).isEqualTo(1);
+
+        StepVerifier.create(budgets.withRetries("http://host:80/cb", failingCall(noOfAttempts, 100), 3)) //
+            .expectError(IOException.class) //
+            .verify();
+        assertThat(noOfAttempts.get()).isEqualTo(3);
+        assertThat(budgets.get("host:80").getRemainingRetries()).isZero();
+    }
+
+    @Test
+    void testMaxRetries() {
+        RetryBudgets budgets = retryBudgets(0.2, 10, Duration.ofHours(1));
+        AtomicInteger noOfAttempts = new AtomicInteger();
+
+        StepVerifier.create(budgets.withRetries("http://host:80/cb", failingCall(noOfAttempts, 100), 2)) //
+            .expectErrorMatches(Exceptions::isRetryExhausted) //
+            .verify();
+        assertThat(noOfAttempts.get()).isEqualTo(3);
+
+        noOfAttempts.set(0);
+        StepVerifier.create(budgets.withRetries("http://host:80/cb", failingCall(noOfAttempts, 1), 2)) //
+            .expectNext("OK") //
+            .verifyComplete();
+        assertThat(noOfAttempts.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testExhaustedCallOnlyWithdrawsPerformedRetries() {
+        // The reserve gives 5 retries in the window
+        RetryBudgets budgets = retryBudgets(0, 0.5, Duration.ofSeconds(10));
+        AtomicInteger noOfAttempts = new AtomicInteger();
+
+        StepVerifier.create(budgets.withRetries("http://host:80/cb", failingCall(noOfAttempts, 100), 2)) //
+            .expectErrorMatches(Exceptions::isRetryExhausted) //
+            .verify();
+        assertThat(noOfAttempts.get()).isEqualTo(3);
+        assertThat(budgets.get("host:80").getRemainingRetries()).isEqualTo(3.0);
+    }
+
+    @Test
+    void testRejectedCallsAreNotRetried() {
+        RetryBudgets budgets = retryBudgets(0, 0.5, Duration.ofSeconds(10));
+        AtomicInteger noOfAttempts = new AtomicInteger();
+
+        Mono<String> breakerOpen = Mono.defer(() -> {
+            noOfAttempts.incrementAndGet();
+            return Mono.error(new ServiceException("Circuit breaker is open", HttpStatus.SERVICE_UNAVAILABLE));
+        });
+        StepVerifier.create(budgets.withRetries("http://host:80/cb", breakerOpen, 2)) //
+            .expectError(ServiceException.class) //
+            .verify();
+        assertThat(noOfAttempts.get()).isEqualTo(1);
+
+        Mono<String> notFound = Mono.defer(() -> {
+            noOfAttempts.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(HttpStatus.NOT_FOUND.value(), "Not Found", null,
+                null, null));
+        });
+        StepVerifier.create(budgets.withRetries("http://host:80/cb", notFound, 2)) //
+            .expectError(WebClientResponseException.class) //
+            .verify();
+        assertThat(noOfAttempts.get()).isEqualTo(2);
+        assertThat(budgets.get("host:80").getRemainingRetries()).isEqualTo(5.0);
+    }
+
+    @Test
+    void testBudgetPerDestinationAndWindow() {
+        RetryBudgets budgets = retryBudgets(0, 10, Duration.ofMillis(100));
+        RetryBudgets.RetryBudget budget = budgets.get("host:80");
+        assertThat(budget.tryRetry()).isTrue();
+        assertThat(budget.tryRetry()).isFalse();
+
+        // Other destinations are not affected
+        assertThat(budgets.get("otherHost:80").tryRetry()).isTrue();
+
+        // The retries expire when they fall out of the window
+        await().atMost(Duration.ofSeconds(5)).until(budget::tryRetry);
+    }
+}
@@ -0,0 +1,94 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.handler.ssl.SslContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.oransc.enrichment.configuration.ImmutableHttpProxyConfig;
+import org.oransc.enrichment.configuration.ImmutableWebClientConfig;
+import org.oransc.enrichment.configuration.WebClientConfig;
+
+class SslContextProviderTest {
+
+    private static WebClientConfig webClientConfig(Path keyStore, Path trustStore, Duration reloadCheckInterval) {
+        return ImmutableWebClientConfig.builder() //
+            .keyStoreType("JKS") //
+            .keyStorePassword("policy_agent") //
+            .keyStore(keyStore.toString()) //
+            .keyPassword("policy_agent") //
+            .isTrustStoreUsed(true) //
+            .trustStore(trustStore.toString()) //
+            .trustStorePassword("policy_agent") //
+            .httpProxyConfig(ImmutableHttpProxyConfig.builder().httpProxyHost("").httpProxyPort(0).build()) //
+            .sslReloadCheckInterval(reloadCheckInterval) //
+            .sslSessionCacheSize(10) //
+            .build();
+    }
+
+    private static Path copy(String file, Path dir) throws IOException {
+        return Files.copy(Path.of("./config", file), dir.resolve(file), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    void testReloadWhenModified(@TempDir Path dir) throws IOException {
+        Path keyStore = copy("keystore.jks", dir);
+        Path trustStore = copy("truststore.jks", dir);
+        SslContextProvider provider =
+            new SslContextProvider(webClientConfig(keyStore, trustStore, Duration.ZERO), "test");
+
+        SslContext context = provider.getSslContext();
+        assertThat(context).isNotNull();
+        assertThat(context.sessionCacheSize()).isEqualTo(10);
+        assertThat(provider.getSslContext()).isSameAs(context);
+
+        // A rotated trust store replaces the context
+        assertThat(trustStore.toFile().setLastModified(trustStore.toFile().lastModified() + 10_000)).isTrue();
+        SslContext reloaded = provider.getSslContext();
+        assertThat(reloaded).isNotNull().isNotSameAs(context);
+
+        // A broken key store does not replace the context
+        Files.write(keyStore, new byte[] {1, 2, 3});
+        assertThat(keyStore.toFile().setLastModified(keyStore.toFile().lastModified() + 10_000)).isTrue();
+        assertThat(provider.getSslContext()).isSameAs(reloaded);
+    }
+
+    @Test
+    void testReloadCheckInterval(@TempDir Path dir) throws IOException {
+        Path keyStore = copy("keystore.jks", dir);
+        Path trustStore = copy("truststore.jks", dir);
+        SslContextProvider provider =
+            new SslContextProvider(webClientConfig(keyStore, trustStore, Duration.ofHours(1)), "test");
+
+        SslContext context = provider.getSslContext();
+        assertThat(keyStore.toFile().setLastModified(keyStore.toFile().lastModified() + 10_000)).isTrue();
+        assertThat(provider.getSslContext()).isSameAs(context);
+    }
+}
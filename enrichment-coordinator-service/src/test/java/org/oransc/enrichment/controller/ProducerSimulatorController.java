@@ -20,6 +20,9 @@
 
 package org.oransc.enrichment.controller;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -37,6 +40,8 @@ import lombok.Getter;
 import org.oransc.enrichment.controllers.ErrorResponse;
 import org.oransc.enrichment.controllers.VoidResponse;
 import org.oransc.enrichment.controllers.r1producer.ProducerConsts;
+import org.oransc.enrichment.controllers.r1producer.ProducerJobBulkRequest;
+import org.oransc.enrichment.controllers.r1producer.ProducerJobBulkResponse;
 import org.oransc.enrichment.controllers.r1producer.ProducerJobInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,9 +60,11 @@ import org.springframework.web.bind.annotation.RestController;
 public class ProducerSimulatorController {
 
     private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static Gson gson = new GsonBuilder().create();
 
     public static final String JOB_URL = "/example_dataproducer/info_job";
     public static final String JOB_ERROR_URL = "/example_dataproducer/info_job_error";
+    public static final String JOB_BULK_URL = "/example_dataproducer/info_job_bulk";
 
     public static final String SUPERVISION_URL = "/example_dataproducer/health_check";
     public static final String SUPERVISION_ERROR_URL = "/example_dataproducer/health_check_error";
@@ -68,6 +75,9 @@ public class ProducerSimulatorController {
         public List<String> jobsStopped = Collections.synchronizedList(new ArrayList<String>());
         public int noOfRejectedCreate = 0;
         public int noOfRejectedDelete = 0;
+        public int noOfBulkRequests = 0;
+        public List<String> jobIdsToReject = Collections.synchronizedList(new ArrayList<String>());
+        public boolean isBulkResponseInvalid = false;
         public boolean errorFound = false;
 
         public TestResults() {
@@ -79,6 +89,9 @@ public class ProducerSimulatorController {
             this.errorFound = false;
             this.noOfRejectedCreate = 0;
             this.noOfRejectedDelete = 0;
+            this.noOfBulkRequests = 0;
+            this.jobIdsToReject.clear();
+            this.isBulkResponseInvalid = false;
         }
     }
 
@@ -133,6 +146,45 @@ public class ProducerSimulatorController {
         }
     }
 
+    @PostMapping(path = JOB_BULK_URL, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Callback for creation and deletion of several Information Jobs",
+        description = "The call is invoked to activate, modify or terminate several data subscriptions. The endpoint is optionally provided by the Information Producer.")
+    @ApiResponses(
+        value = { //
+            @ApiResponse(
+                responseCode = "200",
+                description = "OK, the jobs that the producer could not handle are rejected", //
+                content = @Content(schema = @Schema(implementation = ProducerJobBulkResponse.class))) //
+        })
+    public ResponseEntity<Object> jobsBulkCallback( //
+        @RequestBody ProducerJobBulkRequest request) {
+        try {
+            logger.info("Job bulk callback, started: {}, stopped: {}", request.startedJobs.size(),
+                request.stoppedJobs.size());
+            synchronized (this.testResults) {
+                this.testResults.noOfBulkRequests += 1;
+            }
+            List<String> rejectedJobIds = new ArrayList<>();
+            for (ProducerJobInfo job : request.startedJobs) {
+                this.testResults.jobsStarted.add(job);
+                if (this.testResults.jobIdsToReject.contains(job.id)) {
+                    rejectedJobIds.add(job.id);
+                }
+            }
+            for (ProducerJobInfo job : request.stoppedJobs) {
+                this.testResults.jobsStopped.add(job.id);
+            }
+            if (this.testResults.isBulkResponseInvalid) {
+                return new ResponseEntity<>("Not JSON", HttpStatus.OK);
+            }
+            return new ResponseEntity<>(gson.toJson(new ProducerJobBulkResponse(rejectedJobIds)), HttpStatus.OK);
+        } catch (Exception e) {
+            this.testResults.errorFound = true;
+            return ErrorResponse.create(e, HttpStatus.NOT_FOUND);
+        }
+    }
+
     @PostMapping(path = JOB_ERROR_URL, produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Callback for Information Job creation, returns error", description = "", hidden = true)
     @ApiResponses(
@@ -0,0 +1,77 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+class IdListingTest {
+
+    private static final String NDJSON = MediaType.APPLICATION_NDJSON_VALUE;
+
+    @Test
+    void testJsonArray() throws IOException {
+        assertThat(body(IdListing.create(Stream.of("b", "a"), null, null, null))).isEqualTo("[\"b\",\"a\"]");
+        assertThat(body(IdListing.create(Stream.empty(), null, null, "*/*"))).isEqualTo("[]");
+    }
+
+    @Test
+    void testNdJson() throws IOException {
+        ResponseEntity<StreamingResponseBody> rsp =
+            IdListing.create(Stream.of("a", "b"), null, null, MediaType.APPLICATION_JSON_VALUE + ", " + NDJSON);
+        assertThat(rsp.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(body(rsp)).isEqualTo("\"a\"\n\"b\"\n");
+    }
+
+    @Test
+    void testCursorPagination() throws IOException {
+        String[] ids = {"d", "a", "e", "c", "b"};
+        assertThat(body(IdListing.create(Stream.of(ids), null, 2, null))).isEqualTo("[\"a\",\"b\"]");
+        assertThat(body(IdListing.create(Stream.of(ids), "b", 2, null))).isEqualTo("[\"c\",\"d\"]");
+        assertThat(body(IdListing.create(Stream.of(ids), "d", 2, null))).isEqualTo("[\"e\"]");
+        assertThat(body(IdListing.create(Stream.of(ids), "e", 2, null))).isEqualTo("[]");
+        assertThat(body(IdListing.create(Stream.of(ids), "c", null, NDJSON))).isEqualTo("\"d\"\n\"e\"\n");
+    }
+
+    @Test
+    void testInvalidLimit() throws IOException {
+        ResponseEntity<StreamingResponseBody> rsp = IdListing.create(Stream.of("a"), null, 0, null);
+        assertThat(rsp.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(rsp.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_PROBLEM_JSON);
+        assertThat(body(rsp)).contains("Invalid limit: 0");
+    }
+
+    private static String body(ResponseEntity<StreamingResponseBody> rsp) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        rsp.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+}
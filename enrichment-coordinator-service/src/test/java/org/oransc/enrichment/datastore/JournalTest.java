@@ -0,0 +1,307 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.datastore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class JournalTest {
+    private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static Gson gson = new GsonBuilder().create();
+
+    @TempDir
+    Path directory;
+
+    private final Map<String, byte[]> state = new ConcurrentHashMap<>();
+
+    private Journal createJournal(long maxSegmentSize, int segmentsPerSnapshot) {
+        return new Journal(directory, consumer -> state.forEach(consumer), maxSegmentSize, segmentsPerSnapshot);
+    }
+
+    private void put(Journal journal, String key, String value) throws Exception {
+        state.put(key, value.getBytes(StandardCharsets.UTF_8));
+        journal.put(key, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void delete(Journal journal, String key) throws Exception {
+        state.remove(key);
+        journal.delete(key);
+    }
+
+    private static String valueOf(Map<String, byte[]> records, String key) {
+        return new String(records.get(key), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testPutDeleteRestore() throws Exception {
+        Journal journal = createJournal(Journal.DEFAULT_MAX_SEGMENT_SIZE, Journal.DEFAULT_SEGMENTS_PER_SNAPSHOT);
+        assertThat(journal.restore()).isEmpty();
+        put(journal, "a", "1");
+        put(journal, "b", "2");
+        put(journal, "a", "3");
+        delete(journal, "b");
+
+        Map<String, byte[]> restored = createJournal(1000, 2).restore();
+        assertThat(restored).containsOnlyKeys("a");
+        assertThat(valueOf(restored, "a")).isEqualTo("3");
+
+        journal.clear();
+        assertThat(createJournal(1000, 2).restore()).isEmpty();
+    }
+
+    @Test
+    void testCompaction() throws Exception {
+        Journal journal = createJournal(100, 2);
+        journal.restore();
+        for (int i = 0; i < 100; ++i) {
+            put(journal, "key" + (i % 10), "value" + i);
+        }
+        delete(journal, "key0");
+        journal.flush();
+
+        File[] files = directory.toFile().listFiles();
+        assertThat(files).hasSizeLessThan(5);
+        assertThat(directory.toFile().list()).anyMatch(name -> name.startsWith("snapshot-"));
+
+        Map<String, byte[]> restored = createJournal(100, 2).restore();
+        assertThat(restored).hasSize(9);
+        assertThat(valueOf(restored, "key9")).isEqualTo("value99");
+    }
+
+    @Test
+    void testPutCommitsDuringCompaction() throws Exception {
+        CountDownLatch isCompacting = new CountDownLatch(1);
+        CountDownLatch continueCompaction = new CountDownLatch(1);
+        Journal journal = new Journal(directory, consumer -> {
+            isCompacting.countDown();
+            try {
+                continueCompaction.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            state.forEach(consumer);
+        }, 100, 1);
+        journal.restore();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int i = 0; isCompacting.getCount() > 0; ++i) {
+                put(journal, "key" + (i % 10), "value" + i);
+            }
+            // The snapshot is being written, modifications are still committed
+            put(journal, "during", "compaction");
+            delete(journal, "key0");
+        });
+        continueCompaction.countDown();
+        journal.flush();
+
+        Map<String, byte[]> restored = createJournal(100, 1).restore();
+        assertThat(restored).doesNotContainKey("key0").containsKey("during");
+        assertThat(restored).hasSize(state.size());
+    }
+
+    @Test
+    void testPartiallyWrittenRecord() throws Exception {
+        Journal journal = createJournal(Journal.DEFAULT_MAX_SEGMENT_SIZE, Journal.DEFAULT_SEGMENTS_PER_SNAPSHOT);
+        journal.restore();
+        put(journal, "a", "1");
+        put(journal, "b", "2");
+
+        // Simulate a crash in the middle of writing the last record
+        Path segment = directory.resolve(directory.toFile().list()[0]);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        Journal restoredJournal = createJournal(1000, 2);
+        Map<String, byte[]> restored = restoredJournal.restore();
+        assertThat(restored).containsOnlyKeys("a");
+
+        restoredJournal.put("c", "3".getBytes(StandardCharsets.UTF_8));
+        assertThat(createJournal(1000, 2).restore()).containsOnlyKeys("a", "c");
+    }
+
+    @Test
+    void testUnknownFilesAreIgnored() throws Exception {
+        Journal journal = createJournal(Journal.DEFAULT_MAX_SEGMENT_SIZE, Journal.DEFAULT_SEGMENTS_PER_SNAPSHOT);
+        journal.restore();
+        put(journal, "a", "1");
+        String segmentName = directory.toFile().list()[0];
+        Files.copy(directory.resolve(segmentName), directory.resolve(segmentName + ".bak"));
+        Files.write(directory.resolve("." + segmentName + ".swp"), new byte[0]);
+        Files.write(directory.resolve("snapshot-old"), new byte[0]);
+
+        assertThat(createJournal(1000, 2).restore()).containsOnlyKeys("a");
+    }
+
+    @Test
+    void testMigrationFromFileStore() throws Exception {
+        Path legacyDirectory = directory.resolve("legacy");
+        FileStore fileStore = new FileStore(legacyDirectory);
+        fileStore.put("jobId1", "{}".getBytes(StandardCharsets.UTF_8));
+        fileStore.put("jobId2", "{}".getBytes(StandardCharsets.UTF_8));
+        fileStore.delete("jobId2");
+
+        Journal journal = new Journal(directory.resolve("journal"), consumer -> {
+        });
+        journal.setMigrationSource(new FileStore(legacyDirectory), UnaryOperator.identity());
+        assertThat(journal.restore()).containsOnlyKeys("jobId1");
+        assertThat(legacyDirectory.toFile()).doesNotExist();
+
+        Journal restoredJournal = new Journal(directory.resolve("journal"), consumer -> {
+        });
+        restoredJournal.setMigrationSource(new FileStore(legacyDirectory), UnaryOperator.identity());
+        assertThat(restoredJournal.restore()).containsOnlyKeys("jobId1");
+    }
+
+    @Test
+    void testRestoreCompareWithFilePerRecord() throws Exception {
+        final int NO_OF_RECORDS = 5000;
+        Path legacyDirectory = directory.resolve("legacy");
+        FileStore fileStore = new FileStore(legacyDirectory);
+        Journal journal = new Journal(directory.resolve("journal"), consumer -> {
+        });
+        journal.restore();
+        for (int i = 0; i < NO_OF_RECORDS; ++i) {
+            String json = "{\"id\":\"job" + i + "\",\"typeId\":\"type\",\"owner\":\"owner\"," //
+                + "\"jobData\":{\"property1\":" + i + ",\"property2\":\"value\"}," //
+                + "\"targetUrl\":\"https://junk.com\",\"lastUpdated\":\"2021-09-01T12:00:00Z\"}";
+            fileStore.put("job" + i, json.getBytes(StandardCharsets.UTF_8));
+            journal.put("job" + i, json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // One file per record, read and parsed one by one
+        long startTime = System.nanoTime();
+        List<JsonObject> fromFiles = new ArrayList<>();
+        for (File file : legacyDirectory.toFile().listFiles()) {
+            fromFiles.add(gson.fromJson(Files.readString(file.toPath()), JsonObject.class));
+        }
+        final long filesMicros = (System.nanoTime() - startTime) / 1000;
+
+        startTime = System.nanoTime();
+        Journal restoredJournal = new Journal(directory.resolve("journal"), consumer -> {
+        });
+        List<JsonObject> fromJournal = restoredJournal
+            .restore(value -> gson.fromJson(new String(value, StandardCharsets.UTF_8), JsonObject.class));
+        final long journalMicros = (System.nanoTime() - startTime) / 1000;
+
+        logger.info("Restore of {} records, file per record: {} us, journal: {} us", NO_OF_RECORDS, filesMicros,
+            journalMicros);
+        assertThat(fromJournal).hasSameSizeAs(fromFiles);
+        RestoreProgress progress = restoredJournal.getRestoreProgress();
+        assertThat(progress.getState()).isEqualTo(RestoreProgress.State.DONE);
+        assertThat(progress.getRecordsParsed()).isEqualTo(NO_OF_RECORDS);
+        assertThat(progress.getFilesRead()).isEqualTo(progress.getNoOfFiles());
+    }
+
+    @Test
+    void testGroupCommit() throws Exception {
+        final int NO_OF_THREADS = 8;
+        final int NO_OF_RECORDS_PER_THREAD = 500;
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+        Journal journal = createJournal(Journal.DEFAULT_MAX_SEGMENT_SIZE, Journal.DEFAULT_SEGMENTS_PER_SNAPSHOT);
+        journal.setDurability(Journal.FsyncPolicy.BATCH, Duration.ZERO, Journal.AckMode.COMMIT);
+        journal.restore();
+
+        ExecutorService executor = Executors.newFixedThreadPool(NO_OF_THREADS);
+        List<Future<?>> writers = new ArrayList<>();
+        long startTime = System.nanoTime();
+        for (int t = 0; t < NO_OF_THREADS; ++t) {
+            final int threadNo = t;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < NO_OF_RECORDS_PER_THREAD; ++i) {
+                    put(journal, "key" + threadNo + "_" + i, "value" + i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+        final long millis = (System.nanoTime() - startTime) / 1000000;
+
+        DistributionSummary batchSize = meterRegistry.get("ecs.journal.batch.size") //
+            .tag("journal", directory.getFileName().toString()) //
+            .summary();
+        Metrics.removeRegistry(meterRegistry);
+        logger.info("Group commit of {} records, {} ms, {} batches", NO_OF_THREADS * NO_OF_RECORDS_PER_THREAD, millis,
+            batchSize.count());
+        assertThat(batchSize.totalAmount()).isEqualTo(NO_OF_THREADS * NO_OF_RECORDS_PER_THREAD);
+        assertThat(createJournal(1000, 2).restore()).hasSize(NO_OF_THREADS * NO_OF_RECORDS_PER_THREAD);
+    }
+
+    @Test
+    void testAckAfterEnqueue() throws Exception {
+        Journal journal = createJournal(100, 2);
+        journal.setDurability(Journal.FsyncPolicy.INTERVAL, Duration.ofMillis(50), Journal.AckMode.ENQUEUE);
+        journal.restore();
+        for (int i = 0; i < 100; ++i) {
+            put(journal, "key" + (i % 10), "value" + i);
+        }
+        journal.flush();
+
+        Map<String, byte[]> restored = createJournal(100, 2).restore();
+        assertThat(restored).hasSize(10);
+        assertThat(valueOf(restored, "key9")).isEqualTo("value99");
+    }
+
+    @Test
+    void testAckAfterIntervalSync() throws Exception {
+        Journal journal = createJournal(Journal.DEFAULT_MAX_SEGMENT_SIZE, Journal.DEFAULT_SEGMENTS_PER_SNAPSHOT);
+        journal.setDurability(Journal.FsyncPolicy.INTERVAL, Duration.ofMillis(100), Journal.AckMode.COMMIT);
+        journal.restore();
+        put(journal, "a", "1");
+        put(journal, "b", "2");
+        assertThat(createJournal(1000, 2).restore()).containsOnlyKeys("a", "b");
+    }
+}
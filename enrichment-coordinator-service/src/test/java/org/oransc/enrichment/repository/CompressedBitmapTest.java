@@ -0,0 +1,110 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+class CompressedBitmapTest {
+
+    private static List<Integer> members(CompressedBitmap bitmap) {
+        List<Integer> result = new ArrayList<>();
+        bitmap.forEach(result::add);
+        return result;
+    }
+
+    @Test
+    void testAddAndRemove() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(70000);
+        bitmap.add(3);
+        bitmap.add(3);
+        assertThat(members(bitmap)).containsExactly(3, 70000);
+        assertThat(bitmap.contains(70000)).isTrue();
+        assertThat(bitmap.contains(4)).isFalse();
+        assertThat(bitmap.contains(-1)).isFalse();
+
+        bitmap.remove(3);
+        bitmap.remove(70000);
+        assertThat(bitmap.isEmpty()).isTrue();
+    }
+
+    @Test
+    void testDenseSetIsCompact() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < 100_000; ++i) {
+            bitmap.add(i);
+        }
+        assertThat(bitmap.cardinality()).isEqualTo(100_000);
+        // About one bit per member
+        assertThat(bitmap.estimatedMemoryUse()).isLessThan(20_000);
+
+        for (int i = 0; i < 100_000; i += 2) {
+            bitmap.remove(i);
+        }
+        assertThat(bitmap.cardinality()).isEqualTo(50_000);
+        assertThat(bitmap.contains(1)).isTrue();
+        assertThat(bitmap.contains(2)).isFalse();
+    }
+
+    @Test
+    void testSetOperations() {
+        Random random = new Random(4711);
+        CompressedBitmap all = new CompressedBitmap();
+        CompressedBitmap enabled = new CompressedBitmap();
+        TreeSet<Integer> expectedAll = new TreeSet<>();
+        TreeSet<Integer> expectedEnabled = new TreeSet<>();
+        for (int i = 0; i < 20_000; ++i) {
+            int value = random.nextInt(200_000);
+            all.add(value);
+            expectedAll.add(value);
+            if (random.nextBoolean()) {
+                enabled.add(value);
+                expectedEnabled.add(value);
+            }
+        }
+        for (int i = 0; i < 10_000; ++i) {
+            enabled.add(i); // Makes a bitmap chunk
+            expectedEnabled.add(i);
+        }
+
+        CompressedBitmap union = all.copy();
+        union.or(enabled);
+        TreeSet<Integer> expectedUnion = new TreeSet<>(expectedAll);
+        expectedUnion.addAll(expectedEnabled);
+        assertThat(members(union)).containsExactlyElementsOf(expectedUnion);
+
+        CompressedBitmap disabled = all.copy();
+        disabled.andNot(enabled);
+        expectedAll.removeAll(expectedEnabled);
+        assertThat(members(disabled)).containsExactlyElementsOf(expectedAll);
+        assertThat(disabled.cardinality()).isEqualTo(expectedAll.size());
+
+        // The copies are independent
+        assertThat(all.cardinality()).isGreaterThan(disabled.cardinality());
+    }
+}
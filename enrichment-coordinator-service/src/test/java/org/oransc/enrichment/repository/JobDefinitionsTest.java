@@ -0,0 +1,88 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.oransc.enrichment.datastore.Journal;
+
+class JobDefinitionsTest {
+    private static Gson gson = new GsonBuilder().create();
+
+    private static final int NO_OF_THREADS = 4;
+    private static final int NO_OF_DEFINITIONS = 200;
+
+    @TempDir
+    Path directory;
+
+    private static Object jobData(int thread, int i) {
+        return gson.fromJson("{\"thread\":" + thread + ",\"i\":" + i + "}", Object.class);
+    }
+
+    @Test
+    void testCompactionWhileDefinitionsAreChanged() throws Exception {
+        JobDefinitions[] definitions = {null};
+        // Small segments, so that the journal is compacted by the writer all the time
+        Journal journal = new Journal(directory, consumer -> definitions[0].forEach(consumer), 500, 1);
+        journal.restore();
+        definitions[0] = new JobDefinitions(gson, journal);
+
+        ExecutorService executor = Executors.newFixedThreadPool(NO_OF_THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < NO_OF_THREADS; ++t) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < NO_OF_DEFINITIONS; ++i) {
+                    Object sharedJobData = definitions[0].acquire(jobData(thread, i));
+                    if (i % 2 == 0) {
+                        definitions[0].release(sharedJobData);
+                    }
+                }
+            }));
+        }
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        });
+        executor.shutdown();
+
+        final int expectedSize = NO_OF_THREADS * NO_OF_DEFINITIONS / 2;
+        assertThat(definitions[0].size()).isEqualTo(expectedSize);
+        journal.flush(); // Waits for the last compaction
+        Journal restoredJournal = new Journal(directory, consumer -> definitions[0].forEach(consumer), 500, 1);
+        assertThat(restoredJournal.restore()).hasSize(expectedSize);
+    }
+}
@@ -0,0 +1,99 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class JobHandlesTest {
+
+    private static InfoProducer producer(String id, JobHandles handles) {
+        return new InfoProducer(id, List.of(), "callbackUrl", "supervisionUrl", null, handles);
+    }
+
+    @Test
+    void testHandlesAreReused() {
+        JobHandles handles = new JobHandles();
+        assertThat(handles.acquire("job1").getValue()).isZero();
+        assertThat(handles.acquire("job2").getValue()).isEqualTo(1);
+        assertThat(handles.acquire("job1").getValue()).isZero();
+        handles.release("job1");
+        assertThat(handles.get("job1")).isNull();
+        assertThat(handles.acquire("job3").getValue()).isZero();
+        assertThat(handles.get(0)).isSameAs(handles.get("job3"));
+        assertThat(handles.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testNoOfEnabledProducers() {
+        JobHandles handles = new JobHandles();
+        InfoJob job = InfoJob.builder().id("job").typeId("type").build();
+        InfoProducer producer1 = producer("producer1", handles);
+        InfoProducer producer2 = producer("producer2", handles);
+        JobHandles.Handle handle = handles.acquire("job");
+
+        producer1.setJobEnabled(job);
+        producer1.setJobEnabled(job);
+        producer2.setJobEnabled(job);
+        assertThat(handle.getNoOfEnabledProducers()).isEqualTo(2);
+
+        producer1.setJobDisabled(job);
+        producer1.setJobRemoved(job);
+        assertThat(handle.getNoOfEnabledProducers()).isEqualTo(1);
+
+        // A deregistered producer does not count, not even if it enables the job later
+        producer2.setDeregistered();
+        producer2.setJobEnabled(job);
+        assertThat(handle.getNoOfEnabledProducers()).isZero();
+        assertThat(producer2.isJobEnabled(job)).isFalse();
+    }
+
+    @Test
+    void testRemovedJobIsNotEnabled() {
+        JobHandles handles = new JobHandles();
+        InfoJob job = InfoJob.builder().id("job").typeId("type").build();
+        InfoProducer producer = producer("producer", handles);
+
+        // A job without a handle is not enabled and gets no handle
+        producer.setJobEnabled(job);
+        assertThat(producer.isJobEnabled(job)).isFalse();
+        assertThat(handles.get("job")).isNull();
+
+        // The handle of a job that is enabled is kept when released
+        JobHandles.Handle handle = handles.acquire("job");
+        producer.setJobEnabled(job);
+        handles.release("job");
+        assertThat(handles.get("job")).isSameAs(handle);
+
+        producer.setJobRemoved(job);
+        handles.release("job");
+        assertThat(handles.get("job")).isNull();
+
+        // A released handle can not be enabled
+        assertThat(handle.tryProducerEnabled()).isFalse();
+        assertThat(handle.getNoOfEnabledProducers()).isZero();
+        producer.setJobEnabled(job);
+        assertThat(producer.isJobEnabled(job)).isFalse();
+    }
+}
@@ -0,0 +1,80 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collection;
+
+import org.junit.jupiter.api.Test;
+
+class MultiMapTest {
+
+    @Test
+    void testSnapshotIsSharedUntilModified() {
+        MultiMap<String> map = new MultiMap<>();
+        map.put("key", "id1", "value1");
+        map.put("key", "id2", "value2");
+
+        Collection<String> snapshot = map.get("key");
+        assertThat(snapshot).containsExactlyInAnyOrder("value1", "value2");
+        assertThat(map.get("key")).isSameAs(snapshot);
+
+        map.put("key", "id3", "value3");
+        assertThat(snapshot).hasSize(2);
+        assertThat(map.get("key")).isNotSameAs(snapshot).hasSize(3);
+
+        assertThat(map.remove("key", "id1")).isEqualTo("value1");
+        assertThat(map.remove("key", "id1")).isNull();
+        assertThat(map.get("key")).containsExactlyInAnyOrder("value2", "value3");
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testSnapshotIsImmutable() {
+        MultiMap<String> map = new MultiMap<>();
+        map.put("key", "id1", "value1");
+        Collection<String> snapshot = map.get("key");
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add("value2"));
+        assertThat(map.get("noKey")).isEmpty();
+    }
+
+    @Test
+    void testMemoryUse() {
+        MultiMap<String> map = new MultiMap<>();
+        assertThat(map.estimatedMemoryUse()).isZero();
+        for (int i = 0; i < 1000; ++i) {
+            map.put("key" + (i % 10), "id" + i, "value");
+        }
+        long memoryUse = map.estimatedMemoryUse();
+        assertThat(memoryUse).isPositive();
+
+        map.get("key1");
+        assertThat(map.estimatedMemoryUse()).isGreaterThan(memoryUse);
+
+        for (int i = 0; i < 1000; ++i) {
+            map.remove("key" + (i % 10), "id" + i);
+        }
+        assertThat(map.estimatedMemoryUse()).isZero();
+        assertThat(map.size()).isZero();
+    }
+}
@@ -0,0 +1,122 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.oransc.enrichment.datastore.RecordCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class RecordEncodingTest {
+    private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static Gson gson = new GsonBuilder().create();
+
+    private final RecordCodec<InfoJob> binaryCodec =
+        new RecordCodec<>(gson, InfoJob.class, new InfoJobs.JobFormat(null), true);
+    private final RecordCodec<InfoJob> jsonCodec =
+        new RecordCodec<>(gson, InfoJob.class, new InfoJobs.JobFormat(null), false);
+
+    private static InfoJob createJob(int i) {
+        String jobData = "{\"property1\":" + i + ",\"property2\":\"value\",\"list\":[1.5,true,null]," //
+            + "\"nested\":{\"a\":\"b\"}}";
+        return InfoJob.builder() //
+            .id("job" + i) //
+            .typeId("type") //
+            .owner("owner") //
+            .jobData(gson.fromJson(jobData, Object.class)) //
+            .targetUrl("https://junk.com/target/" + i) //
+            .jobStatusUrl("") //
+            .build();
+    }
+
+    @Test
+    void testRoundTrip() {
+        InfoJob job = createJob(1);
+        job.setLastReportedStatus(false);
+        byte[] encoded = binaryCodec.encode(job);
+        assertThat(RecordCodec.isBinary(encoded)).isTrue();
+
+        InfoJob decoded = binaryCodec.decode(encoded);
+        assertThat(gson.toJson(decoded)).isEqualTo(gson.toJson(job));
+        assertThat(decoded.getLastUpdated()).isEqualTo(job.getLastUpdated());
+        assertThat(decoded.isLastStatusReportedEnabled()).isFalse();
+    }
+
+    @Test
+    void testConvertFromJson() {
+        InfoJob job = createJob(1);
+        byte[] json = jsonCodec.encode(job);
+        assertThat(RecordCodec.isBinary(json)).isFalse();
+
+        // Both formats can be decoded by both codecs
+        byte[] converted = binaryCodec.convert(json);
+        assertThat(RecordCodec.isBinary(converted)).isTrue();
+        assertThat(gson.toJson(jsonCodec.decode(converted))).isEqualTo(gson.toJson(job));
+        assertThat(binaryCodec.convert(converted)).isSameAs(converted);
+        assertThat(new String(jsonCodec.convert(converted), StandardCharsets.UTF_8)).isEqualTo(gson.toJson(job));
+    }
+
+    @Test
+    void testCompareWithJson() {
+        final int NO_OF_RECORDS = 20000;
+        List<byte[]> jsonRecords = new ArrayList<>();
+        List<byte[]> binaryRecords = new ArrayList<>();
+        long jsonSize = 0;
+        long binarySize = 0;
+        for (int i = 0; i < NO_OF_RECORDS; ++i) {
+            InfoJob job = createJob(i);
+            jsonRecords.add(jsonCodec.encode(job));
+            binaryRecords.add(binaryCodec.encode(job));
+            jsonSize += jsonRecords.get(i).length;
+            binarySize += binaryRecords.get(i).length;
+        }
+
+        // Warm up, then measure
+        decodeAll(jsonRecords);
+        decodeAll(binaryRecords);
+        long startTime = System.nanoTime();
+        decodeAll(jsonRecords);
+        final long jsonMicros = (System.nanoTime() - startTime) / 1000;
+        startTime = System.nanoTime();
+        decodeAll(binaryRecords);
+        final long binaryMicros = (System.nanoTime() - startTime) / 1000;
+
+        logger.info("Decoding {} jobs, JSON: {} bytes {} us, binary: {} bytes {} us", NO_OF_RECORDS, jsonSize,
+            jsonMicros, binarySize, binaryMicros);
+        assertThat(binarySize).isLessThan(jsonSize);
+    }
+
+    private void decodeAll(List<byte[]> records) {
+        for (byte[] rec : records) {
+            assertThat(binaryCodec.decode(rec).getId()).startsWith("job");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*-
+ * ========================LICENSE_START=================================
+ * O-RAN-SC
+ * %%
+ * Copyright (C) 2021 Nordix Foundation
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ========================LICENSE_END===================================
+ */
+
+package org.oransc.enrichment.tasks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+    private static List<String> keys(List<TimingWheel.Timeout<String>> timeouts) {
+        return timeouts.stream().map(TimingWheel.Timeout::getKey).collect(Collectors.toList());
+    }
+
+    @Test
+    void testExpiry() {
+        TimingWheel<String> wheel = new TimingWheel<>(Duration.ofMillis(10), 2, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 1000); // In the second level
+        wheel.schedule("c", 1_000_000); // Out of range
+        assertThat(wheel.size()).isEqualTo(3);
+
+        assertThat(wheel.advance(20)).isEmpty();
+        assertThat(keys(wheel.advance(30))).containsExactly("a");
+        assertThat(wheel.advance(990)).isEmpty();
+        List<TimingWheel.Timeout<String>> timeouts = wheel.advance(1005);
+        assertThat(keys(timeouts)).containsExactly("b");
+        assertThat(timeouts.get(0).getDueMillis()).isEqualTo(1000);
+
+        assertThat(wheel.advance(999_990)).isEmpty();
+        assertThat(keys(wheel.advance(1_000_000))).containsExactly("c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void testRescheduleAndCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(Duration.ofMillis(10), 3, 0);
+        wheel.schedule("a", 100);
+        wheel.schedule("b", 100);
+        wheel.schedule("a", 5000);
+        assertThat(wheel.cancel("b")).isTrue();
+        assertThat(wheel.cancel("b")).isFalse();
+        assertThat(wheel.advance(200)).isEmpty();
+        assertThat(wheel.isScheduled("a")).isTrue();
+
+        // A key that is already due expires at the next tick
+        wheel.schedule("b", 0);
+        assertThat(wheel.advance(200)).isEmpty();
+        assertThat(keys(wheel.advance(210))).containsExactly("b");
+        assertThat(keys(wheel.advance(5000))).containsExactly("a");
+    }
+
+    @Test
+    void testNeverEarlyNorLate() {
+        final long tick = 10;
+        TimingWheel<Integer> wheel = new TimingWheel<>(Duration.ofMillis(tick), 3, 0);
+        Random random = new Random(4711);
+        List<Long> dueTimes = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            long due = random.nextInt(10_000_000);
+            dueTimes.add(due);
+            wheel.schedule(i, due);
+        }
+
+        int noOfExpired = 0;
+        for (long now = 0; now <= 10_000_000; now += tick) {
+            for (TimingWheel.Timeout<Integer> timeout : wheel.advance(now)) {
+                long due = dueTimes.get(timeout.getKey());
+                assertThat(now).isBetween(due, due + tick);
+                ++noOfExpired;
+            }
+        }
+        assertThat(noOfExpired).isEqualTo(1000);
+    }
+}